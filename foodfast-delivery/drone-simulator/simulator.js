@@ -35,6 +35,13 @@ class DroneSimulator {
             },
             onConnect: () => {
                 console.log(`[Drone ${this.droneId}] WebSocket connected!`);
+                // Server tự phát hiện drone tới nơi (geofence) và broadcast ARRIVED
+                this.stompClient.subscribe(`/topic/drone/${this.droneId}`, (message) => {
+                    const event = JSON.parse(message.body);
+                    if (event.status === 'ARRIVED') {
+                        this.arrive();
+                    }
+                });
                 this.startDelivery();
             },
             onStompError: (frame) => {
@@ -55,19 +62,10 @@ class DroneSimulator {
         // Gửi GPS updates mỗi 2 giây
         this.interval = setInterval(() => {
             if (this.isFlying) {
+                // Tới đích thì bay lơ lửng, vẫn gửi GPS cho tới khi server xác nhận ARRIVED
                 this.updatePosition();
                 this.sendGpsUpdate();
                 this.updateBattery();
-
-                // Kiểm tra đã đến nơi chưa
-                const distance = this.calculateDistance(
-                    this.currentLat, this.currentLng,
-                    this.destLat, this.destLng
-                );
-                
-                if (distance < 0.01) { // < 10 meters
-                    this.arrive();
-                }
             }
         }, 2000); // 2 giây
     }
@@ -115,21 +113,14 @@ class DroneSimulator {
         if (this.battery < 0) this.battery = 0;
     }
 
-    // Đã đến nơi
+    // Đã đến nơi (server xác nhận qua geofence)
     arrive() {
+        if (!this.isFlying) return;
         this.isFlying = false;
         clearInterval(this.interval);
         
         console.log(`[Drone ${this.droneId}] ✅ ARRIVED at destination!`);
         
-        this.stompClient.publish({
-            destination: '/app/drone/arrived',
-            body: JSON.stringify({
-                droneId: this.droneId,
-                orderId: this.orderId
-            })
-        });
-        
         // Tự động nhận hàng sau 5 giây
         setTimeout(() => {
             this.completeDelivery();
@@ -38,9 +38,9 @@ export default function AdminDroneApproval() {
 
   const loadRequests = async () => {
     try {
-      const response = await ApiClient.get<DroneRequest[]>('/api/admin/drones/requests/pending');
-      console.debug('[AdminDrone] Pending requests response', response);
-      setRequests(response.data || []);
+      const items = await ApiClient.getAllPages<DroneRequest>('/api/admin/drones/requests/pending?limit=100');
+      console.debug('[AdminDrone] Pending requests loaded', items.length);
+      setRequests(items);
     } catch (error: any) {
       console.error('[AdminDrone] Error loading pending requests:', error);
     } finally {
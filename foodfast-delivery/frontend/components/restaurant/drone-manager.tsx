@@ -67,9 +67,9 @@ export default function RestaurantDroneManager() {
   const loadDrones = async () => {
     try {
       console.log('Loading drones...');
-      const response = await ApiClient.get<Drone[]>('/api/drones/my-restaurant');
-      console.log('Drones loaded:', response);
-      setDrones(response.data || []);
+      const items = await ApiClient.getAllPages<Drone>('/api/drones/my-restaurant?limit=100');
+      console.log('Drones loaded:', items.length);
+      setDrones(items);
     } catch (error: any) {
       console.error('Error loading drones:', error);
       console.error('Error details:', error.response?.data || error.message);
@@ -88,11 +88,11 @@ export default function RestaurantDroneManager() {
         console.warn('[Drone] Không tìm thấy restaurant_user trong localStorage để tải requests');
         return;
       }
-      const response = await ApiClient.get<RegistrationRequest[]>(
-        `/api/drones/registration-requests/my-restaurant?restaurantId=${restaurantId}`
+      const items = await ApiClient.getAllPages<RegistrationRequest>(
+        `/api/drones/registration-requests/my-restaurant?restaurantId=${restaurantId}&limit=100`
       );
-      console.debug('[Drone] Loaded registration requests', response);
-      setRequests(response.data || []);
+      console.debug('[Drone] Loaded registration requests', items.length);
+      setRequests(items);
     } catch (error) {
       console.error('[Drone] Error loading requests:', error);
     }
@@ -13,6 +13,13 @@ export interface ApiResponse<T> {
   token?: string
 }
 
+// Trang của API phân trang keyset: gửi lại nextCursor qua ?cursor= để lấy trang sau
+export interface CursorPage<T> {
+  items: T[]
+  nextCursor: string | null
+  hasMore: boolean
+}
+
 // Hàm trợ giúp kiểm tra URL tuyệt đối
 function isAbsoluteURL(url: string) {
   return url.startsWith("http://") || url.startsWith("https://")
@@ -106,6 +113,20 @@ export class ApiClient {
     }
   }
 
+  // Đọc mọi trang của endpoint phân trang keyset (theo nextCursor tới khi hasMore = false)
+  static async getAllPages<T>(endpoint: string): Promise<T[]> {
+    const items: T[] = []
+    const separator = endpoint.includes("?") ? "&" : "?"
+    let cursor: string | null = null
+    do {
+      const url: string = cursor ? `${endpoint}${separator}cursor=${encodeURIComponent(cursor)}` : endpoint
+      const page: CursorPage<T> | undefined = (await this.get<CursorPage<T>>(url)).data
+      items.push(...(page?.items || []))
+      cursor = page?.hasMore ? page.nextCursor : null
+    } while (cursor)
+    return items
+  }
+
   static async put<T>(endpoint: string, data: any): Promise<ApiResponse<T>> {
     try {
       // ⭐️ SỬA ĐỔI TẠI ĐÂY
@@ -0,0 +1,167 @@
+package com.programming.droneservice.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.loadgen.FleetSeeder.SeededDrone;
+import com.programming.droneservice.loadgen.ServerMetrics.Probe;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test drone-service: seed fleet → mở một STOMP session cho mỗi drone (virtual thread)
+ * theo tốc độ ramp → bay tới hết duration-s → chờ server xử lý nốt → in báo cáo
+ *
+ * Mất message được tính hai phía:
+ * - GPS: số client gửi so với phần server đã xử lý (drone.gps.ingest.accepted/rejected) hoặc chủ động bỏ
+ *   (drone.inbound.mailbox.shed), chênh lệch counter trước/sau
+ * - Lệnh điều khiển: không có event xác nhận trong ack-timeout-ms
+ *
+ * stall-s > 0: khoá các bảng chính của Postgres giữa lần chạy (PostgresStall) để kiểm tra backpressure;
+ * độ sâu / độ trễ hộp thư inbound của server được lấy mẫu mỗi PROGRESS_INTERVAL_SECONDS.
+ */
+final class FleetLoadGenerator {
+
+    private static final int PROGRESS_INTERVAL_SECONDS = 10;
+
+    private FleetLoadGenerator() {
+    }
+
+    /**
+     * @return Exit code: 0 nếu không mất message nào
+     */
+    static int run(LoadConfig config) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        List<SeededDrone> fleet = new FleetSeeder(config, httpClient, objectMapper).seed();
+        if (fleet.isEmpty()) {
+            System.err.println("No idle drones available, nothing to fly");
+            return 1;
+        }
+
+        ServerMetrics serverMetrics = new ServerMetrics(config.baseUrl(), httpClient, objectMapper);
+        Map<Probe, Double> before = serverMetrics.snapshot(ServerMetrics.RUN_COUNTERS);
+
+        WebSocketStompClient stompClient = stompClient();
+        LoadMetrics metrics = new LoadMetrics();
+        AtomicLong orderIds = new AtomicLong(System.currentTimeMillis() * 1000);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+
+        System.out.printf("Flying %d drones against %s for %d s (ramp %d sessions/s, GPS every %d ms)%n",
+                fleet.size(), config.webSocketUri(), config.durationSeconds(), config.rampPerSecond(), config.intervalMs());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong lastGpsSent = new AtomicLong();
+        MailboxPeaks peaks = new MailboxPeaks();
+        reporter.scheduleAtFixedRate(() -> {
+            long sent = metrics.gpsSent.sum();
+            metrics.printProgress(System.out, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos),
+                    (sent - lastGpsSent.getAndSet(sent)) / PROGRESS_INTERVAL_SECONDS);
+            peaks.sample(serverMetrics, before);
+        }, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        try (ExecutorService drones = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.stallSeconds() > 0) {
+                drones.submit(new PostgresStall(config, startNanos));
+            }
+            long rampIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.rampPerSecond());
+            for (int i = 0; i < fleet.size(); i++) {
+                long startAt = startNanos + i * rampIntervalNanos;
+                long wait = startAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                drones.submit(new SimulatedDrone(fleet.get(i), config, stompClient, httpClient, objectMapper,
+                        metrics, orderIds, deadlineNanos));
+            }
+        } // close() chờ mọi drone dừng
+        reporter.shutdownNow();
+
+        // Hàng đợi inbound / write-behind của server xử lý nốt trước khi đọc counter
+        TimeUnit.SECONDS.sleep(config.drainSeconds());
+        Map<Probe, Double> after = serverMetrics.snapshot(ServerMetrics.RUN_COUNTERS);
+        peaks.sample(serverMetrics, before);
+        stompClient.stop();
+
+        metrics.printSummary(System.out);
+        long sent = metrics.gpsSent.sum();
+        long accepted = delta(before, after, ServerMetrics.GPS_ACCEPTED);
+        long rejected = delta(before, after, ServerMetrics.GPS_REJECTED);
+        long shed = delta(before, after, ServerMetrics.MAILBOX_SHED);
+        long missing = sent - accepted - rejected - shed;
+        System.out.println("=== Server ===");
+        System.out.printf("GPS ingested %d, shed by inbound mailbox %d, rejected by ingest queue %d,"
+                        + " unaccounted %d (%.3f %%)%n",
+                accepted, shed, rejected, missing, sent == 0 ? 0.0 : 100.0 * missing / sent);
+        System.out.printf("inbound mailbox: max depth %d, max oldest message %.1f s,"
+                        + " mean lag gps %.1f ms / control %.1f ms%n",
+                peaks.maxDepth, peaks.maxOldestSeconds,
+                meanLagMillis(before, after, ServerMetrics.GPS_LAG_COUNT, ServerMetrics.GPS_LAG_TOTAL),
+                meanLagMillis(before, after, ServerMetrics.CONTROL_LAG_COUNT, ServerMetrics.CONTROL_LAG_TOTAL));
+
+        // GPS cũ bị bỏ có chủ đích (shed / rejected) là chấp nhận được; mất lệnh điều khiển hoặc GPS không rõ lý do thì không
+        boolean passed = missing == 0 && metrics.controlsLost() == 0;
+        System.out.println(passed ? "RESULT: no message lost" : "RESULT: messages lost");
+        return passed ? 0 : 2;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static long delta(Map<Probe, Double> before, Map<Probe, Double> after, Probe probe) {
+        return Math.round(after.get(probe) - before.get(probe));
+    }
+
+    private static double meanLagMillis(Map<Probe, Double> before, Map<Probe, Double> after,
+                                        Probe count, Probe totalSeconds) {
+        double samples = after.get(count) - before.get(count);
+        return samples > 0 ? (after.get(totalSeconds) - before.get(totalSeconds)) / samples * 1000 : 0;
+    }
+
+    private static WebSocketStompClient stompClient() {
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        SimpleAsyncTaskExecutor connectExecutor = new SimpleAsyncTaskExecutor("stomp-connect-");
+        connectExecutor.setVirtualThreads(true);
+        webSocketClient.setTaskExecutor(connectExecutor);
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        return stompClient;
+    }
+
+    /**
+     * Giá trị lớn nhất của gauge hộp thư inbound qua các lần lấy mẫu (chỉ thread báo cáo ghi)
+     */
+    private static final class MailboxPeaks {
+
+        private volatile long maxDepth;
+        private volatile double maxOldestSeconds;
+
+        void sample(ServerMetrics serverMetrics, Map<Probe, Double> before) {
+            double depth = serverMetrics.read(ServerMetrics.MAILBOX_DEPTH);
+            double oldest = serverMetrics.read(ServerMetrics.MAILBOX_OLDEST);
+            double shed = serverMetrics.read(ServerMetrics.MAILBOX_SHED) - before.get(ServerMetrics.MAILBOX_SHED);
+            if (!Double.isNaN(depth)) {
+                maxDepth = Math.max(maxDepth, Math.round(depth));
+            }
+            if (!Double.isNaN(oldest)) {
+                maxOldestSeconds = Math.max(maxOldestSeconds, oldest);
+            }
+            System.out.printf("       server: mailbox depth %.0f, oldest %.1f s, shed %.0f%n", depth, oldest, shed);
+        }
+    }
+}
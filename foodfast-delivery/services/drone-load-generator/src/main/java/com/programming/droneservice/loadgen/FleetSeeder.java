@@ -0,0 +1,177 @@
+package com.programming.droneservice.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Chuẩn bị fleet qua API công khai của drone-service (giống luồng thật, không ghi thẳng database)
+ *
+ * 1. Tự ký JWT RESTAURANT / ADMIN bằng jwt.secret (thay cho user-service)
+ * 2. Mỗi nhà hàng: đếm drone IDLE đang có, đăng ký + admin duyệt phần còn thiếu
+ * 3. Đọc lại danh sách drone (phân trang keyset) → droneId + vị trí home
+ *
+ * Chạy lại nhiều lần trên cùng database chỉ đăng ký thêm phần thiếu.
+ */
+final class FleetSeeder {
+
+    private static final int REGISTRATION_CONCURRENCY = 32;
+    private static final int PAGE_LIMIT = 100;
+    private static final double RESTAURANT_SPREAD_DEG = 0.03;   // ~3.3 km quanh tâm
+    private static final double DRONE_SPREAD_DEG = 0.0002;      // ~20 m quanh nhà hàng
+
+    private final LoadConfig config;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Key signingKey;
+
+    FleetSeeder(LoadConfig config, HttpClient httpClient, ObjectMapper objectMapper) {
+        this.config = config;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.signingKey = Keys.hmacShaKeyFor(config.jwtSecret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drone đã sẵn sàng (IDLE, active) trên server
+     */
+    record SeededDrone(long droneId, double homeLat, double homeLng) {
+    }
+
+    List<SeededDrone> seed() throws Exception {
+        Random random = new Random(config.seed());
+        String adminToken = token("loadgen-admin", "ADMIN");
+        List<SeededDrone> drones = new ArrayList<>(config.drones());
+
+        for (int r = 0; r < config.restaurants() && drones.size() < config.drones(); r++) {
+            String ownerId = "loadgen-restaurant-" + r;
+            String restaurantToken = token(ownerId, "RESTAURANT");
+            double restaurantLat = config.centerLat() + (random.nextDouble() - 0.5) * RESTAURANT_SPREAD_DEG;
+            double restaurantLng = config.centerLng() + (random.nextDouble() - 0.5) * RESTAURANT_SPREAD_DEG;
+
+            int wanted = Math.min(config.dronesPerRestaurant(), config.drones() - drones.size());
+            int missing = wanted - listIdleDrones(restaurantToken).size();
+            if (missing > 0) {
+                register(restaurantToken, adminToken, missing, restaurantLat, restaurantLng, random);
+            }
+
+            List<SeededDrone> idle = listIdleDrones(restaurantToken);
+            drones.addAll(idle.subList(0, Math.min(wanted, idle.size())));
+            System.out.printf("Restaurant %s: %d idle drones%n", ownerId, Math.min(wanted, idle.size()));
+        }
+        return drones;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Đăng ký + duyệt song song trên virtual thread, giới hạn số request đồng thời
+     */
+    private void register(String restaurantToken, String adminToken, int count,
+                          double restaurantLat, double restaurantLng, Random random) throws Exception {
+        Semaphore permits = new Semaphore(REGISTRATION_CONCURRENCY);
+        List<Future<?>> futures = new ArrayList<>(count);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> body = Map.of(
+                        "droneName", "LoadGen-" + System.nanoTime() + "-" + i,
+                        "droneModel", "LoadGen X1",
+                        "maxPayloadKg", 5.0,
+                        "maxSpeedKmh", 60.0,
+                        "homeLat", restaurantLat + (random.nextDouble() - 0.5) * DRONE_SPREAD_DEG,
+                        "homeLng", restaurantLng + (random.nextDouble() - 0.5) * DRONE_SPREAD_DEG,
+                        "reason", "Load test");
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        JsonNode request = send("POST", "/api/v1/drones/registration-requests", restaurantToken, body);
+                        send("PUT", "/api/v1/admin/drones/requests/" + request.path("id").asLong() + "/approve",
+                                adminToken, null);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(); // Lỗi đăng ký → dừng sớm, không chạy load test với fleet thiếu
+        }
+    }
+
+    private List<SeededDrone> listIdleDrones(String restaurantToken) throws IOException, InterruptedException {
+        List<SeededDrone> drones = new ArrayList<>();
+        String cursor = null;
+        do {
+            String path = "/api/v1/drones/my-restaurant?status=IDLE&limit=" + PAGE_LIMIT
+                    + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            JsonNode page = send("GET", path, restaurantToken, null);
+            for (JsonNode drone : page.path("items")) {
+                if (drone.path("isActive").asBoolean()) {
+                    drones.add(new SeededDrone(drone.path("id").asLong(),
+                            drone.path("homeLat").asDouble(), drone.path("homeLng").asDouble()));
+                }
+            }
+            cursor = page.path("hasMore").asBoolean() ? page.path("nextCursor").asText() : null;
+        } while (cursor != null);
+        return drones;
+    }
+
+    /**
+     * @return Trường data của ApiResponseDto
+     */
+    private JsonNode send(String method, String path, String token, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(method + " " + path + " failed with HTTP " + response.statusCode()
+                    + ": " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return objectMapper.readTree(response.body()).path("data");
+    }
+
+    /**
+     * JWT cùng định dạng user-service: userId ở claim "id"
+     */
+    private String token(String userId, String role) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(userId)
+                .claim("id", userId)
+                .claim("role", role)
+                .claim("email", userId + "@loadgen.local")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + Duration.ofDays(1).toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
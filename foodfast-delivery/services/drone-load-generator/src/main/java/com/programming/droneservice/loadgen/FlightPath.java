@@ -0,0 +1,91 @@
+package com.programming.droneservice.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lộ trình bay A → B lấy mẫu theo chu kỳ GPS, phát lại tuần tự bởi SimulatedDrone
+ *
+ * Gần với log bay thật hơn bước cố định 0.0005° của drone-simulator.js:
+ * - Tăng tốc / giảm tốc ở hai đầu (ACCELERATION), vận tốc hành trình dao động ±5 %
+ * - Gió ngang làm đường bay cong nhẹ (lệch tối đa 3 % quãng đường)
+ * - Nhiễu GPS ~2 m, độ cao lên tới 60 m và hạ dần khi gần đích
+ */
+final class FlightPath {
+
+    record Sample(double lat, double lng, double speedKmh, double altitudeMeters) {
+    }
+
+    private static final double METERS_PER_DEG_LAT = 111_320.0;
+    private static final double ACCELERATION = 2.0;          // m/s²
+    private static final double MIN_SPEED = 1.0;             // m/s, tránh đứng yên ở hai đầu
+    private static final double CRUISE_JITTER = 0.05;
+    private static final double MAX_DRIFT_RATIO = 0.03;
+    private static final double GPS_NOISE_M = 2.0;
+    private static final double CRUISE_ALTITUDE_M = 60.0;
+    private static final double CLIMB_RATE = 3.0;            // m/s
+    private static final double HOVER_ALTITUDE_M = 5.0;
+
+    private FlightPath() {
+    }
+
+    /**
+     * @return Các mẫu GPS cách nhau intervalMs, mẫu cuối ở điểm B (± nhiễu)
+     */
+    static List<Sample> plan(double fromLat, double fromLng, double toLat, double toLng,
+                             double cruiseKmh, long intervalMs, Random random) {
+        double metersPerDegLng = METERS_PER_DEG_LAT * Math.cos(Math.toRadians(fromLat));
+        double north = (toLat - fromLat) * METERS_PER_DEG_LAT;
+        double east = (toLng - fromLng) * metersPerDegLng;
+        double distance = Math.hypot(north, east);
+        double drift = distance * MAX_DRIFT_RATIO * (random.nextDouble() * 2 - 1);
+        double cruise = cruiseKmh / 3.6;
+        double dt = intervalMs / 1000.0;
+
+        List<Sample> samples = new ArrayList<>();
+        double travelled = 0;
+        double elapsed = 0;
+        while (travelled < distance) {
+            double speed = Math.max(MIN_SPEED, Math.min(cruise * (1 + CRUISE_JITTER * (random.nextDouble() * 2 - 1)),
+                    Math.min(Math.sqrt(2 * ACCELERATION * travelled), Math.sqrt(2 * ACCELERATION * (distance - travelled)))));
+            travelled = Math.min(distance, travelled + speed * dt);
+            elapsed += dt;
+
+            double progress = distance == 0 ? 1 : travelled / distance;
+            double lateral = drift * Math.sin(Math.PI * progress);
+            double pointNorth = north * progress - east / Math.max(distance, 1) * lateral + random.nextGaussian() * GPS_NOISE_M;
+            double pointEast = east * progress + north / Math.max(distance, 1) * lateral + random.nextGaussian() * GPS_NOISE_M;
+            double altitude = Math.min(CRUISE_ALTITUDE_M,
+                    Math.min(CLIMB_RATE * elapsed, HOVER_ALTITUDE_M + (distance - travelled) * 0.5));
+
+            samples.add(new Sample(
+                    fromLat + pointNorth / METERS_PER_DEG_LAT,
+                    fromLng + pointEast / metersPerDegLng,
+                    speed * 3.6,
+                    altitude));
+        }
+        return samples;
+    }
+
+    /**
+     * Một mẫu khi đang lơ lửng tại điểm (chờ geofence / giao hàng)
+     */
+    static Sample hover(double lat, double lng, Random random) {
+        double metersPerDegLng = METERS_PER_DEG_LAT * Math.cos(Math.toRadians(lat));
+        return new Sample(
+                lat + random.nextGaussian() * GPS_NOISE_M / METERS_PER_DEG_LAT,
+                lng + random.nextGaussian() * GPS_NOISE_M / metersPerDegLng,
+                0.0,
+                HOVER_ALTITUDE_M);
+    }
+
+    /**
+     * Quãng đường giữa hai mẫu liên tiếp (m), dùng để trừ pin
+     */
+    static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double north = (lat2 - lat1) * METERS_PER_DEG_LAT;
+        double east = (lng2 - lng1) * METERS_PER_DEG_LAT * Math.cos(Math.toRadians(lat1));
+        return Math.hypot(north, east);
+    }
+}
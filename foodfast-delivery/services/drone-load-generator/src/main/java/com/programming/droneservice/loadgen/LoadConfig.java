@@ -0,0 +1,112 @@
+package com.programming.droneservice.loadgen;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tham số của một lần chạy load test, đọc từ --key=value (xem README)
+ */
+record LoadConfig(
+        String baseUrl,
+        int drones,
+        int restaurants,
+        int durationSeconds,
+        int rampPerSecond,
+        long intervalMs,
+        double speedKmh,
+        double minTripKm,
+        double maxTripKm,
+        long dwellMs,
+        long ackTimeoutMs,
+        int drainSeconds,
+        double centerLat,
+        double centerLng,
+        String jwtSecret,
+        long seed,
+        String stallJdbcUrl,
+        int stallAtSeconds,
+        int stallSeconds
+) {
+
+    static final String DEFAULT_JWT_SECRET = "your-super-secret-jwt-key-change-this-in-production-12345";
+
+    private static final Set<String> KNOWN_OPTIONS = Set.of(
+            "base-url", "drones", "restaurants", "duration-s", "ramp-per-s", "interval-ms", "speed-kmh",
+            "min-trip-km", "max-trip-km", "dwell-ms", "ack-timeout-ms", "drain-s", "center-lat", "center-lng",
+            "jwt-secret", "seed", "stall-jdbc-url", "stall-at-s", "stall-s");
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        LoadConfig config = new LoadConfig(
+                options.getOrDefault("base-url", "http://localhost:8086"),
+                intOption(options, "drones", 500),
+                intOption(options, "restaurants", 10),
+                intOption(options, "duration-s", 300),
+                intOption(options, "ramp-per-s", 200),
+                longOption(options, "interval-ms", 2000),
+                doubleOption(options, "speed-kmh", 30.0),
+                doubleOption(options, "min-trip-km", 0.5),
+                doubleOption(options, "max-trip-km", 3.0),
+                longOption(options, "dwell-ms", 5000),
+                longOption(options, "ack-timeout-ms", 30000),
+                intOption(options, "drain-s", 5),
+                doubleOption(options, "center-lat", 10.762622),
+                doubleOption(options, "center-lng", 106.660172),
+                options.getOrDefault("jwt-secret", DEFAULT_JWT_SECRET),
+                longOption(options, "seed", 42),
+                options.get("stall-jdbc-url"),
+                intOption(options, "stall-at-s", 60),
+                intOption(options, "stall-s", 0)
+        );
+        options.keySet().removeAll(KNOWN_OPTIONS);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+        if (config.maxTripKm() > 5.0) {
+            // delivery.max-distance-km của drone-service
+            throw new IllegalArgumentException("max-trip-km must be <= 5 (delivery range of drone-service)");
+        }
+        if (config.stallSeconds() > 0 && config.stallJdbcUrl() == null) {
+            throw new IllegalArgumentException("stall-s requires stall-jdbc-url");
+        }
+        if (config.stallSeconds() * 1000L >= config.ackTimeoutMs()) {
+            // Lệnh bị chặn trong lúc stall phải vẫn được xác nhận trước khi hết hạn chờ
+            throw new IllegalArgumentException("ack-timeout-ms must be longer than stall-s");
+        }
+        return config;
+    }
+
+    /**
+     * Endpoint SockJS /ws nhận WebSocket thuần ở /ws/websocket (không cần handshake SockJS)
+     */
+    URI webSocketUri() {
+        return URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws/websocket");
+    }
+
+    int dronesPerRestaurant() {
+        return (drones + restaurants - 1) / restaurants;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        return options.containsKey(key) ? Integer.parseInt(options.get(key)) : defaultValue;
+    }
+
+    private static long longOption(Map<String, String> options, String key, long defaultValue) {
+        return options.containsKey(key) ? Long.parseLong(options.get(key)) : defaultValue;
+    }
+
+    private static double doubleOption(Map<String, String> options, String key, double defaultValue) {
+        return options.containsKey(key) ? Double.parseDouble(options.get(key)) : defaultValue;
+    }
+}
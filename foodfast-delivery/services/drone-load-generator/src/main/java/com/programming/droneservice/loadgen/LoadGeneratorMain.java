@@ -0,0 +1,28 @@
+package com.programming.droneservice.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * Entry point của drone-load-generator.jar
+ *
+ * - server [--spring.property=value ...]: drone-service + Postgres/Redis nhúng trong cùng JVM
+ * - run [--drones=2000 ...]: load test vào một drone-service đang chạy (xem LoadConfig / README)
+ */
+public final class LoadGeneratorMain {
+
+    private LoadGeneratorMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "";
+        String[] options = Arrays.copyOfRange(args, Math.min(1, args.length), args.length);
+        switch (command) {
+            case "server" -> LocalDroneService.start(options);
+            case "run" -> System.exit(FleetLoadGenerator.run(LoadConfig.parse(options)));
+            default -> {
+                System.err.println("Usage: java -jar drone-load-generator.jar <server|run> [--key=value ...]");
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.programming.droneservice.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Số đo phía client của một lần chạy
+ *
+ * - Ghi: wait-free từ hàng nghìn virtual thread (LongAdder, HdrHistogram Recorder)
+ * - Đọc: chỉ thread báo cáo, gộp từng khoảng vào histogram tổng
+ *
+ * Latency:
+ * - ingest: client gửi /app/drone/update → server nhận (timestamp trong DronePositionDto), cùng đồng hồ máy
+ * - broadcast: client gửi → client nhận lại vị trí đó trên /topic/drone/{id} (gồm cả nhịp customer-interval-ms)
+ * - control: client gửi lệnh → nhận event xác nhận trên /topic/drone/{id}
+ */
+final class LoadMetrics {
+
+    /**
+     * Lệnh điều khiển và event xác nhận tương ứng
+     */
+    enum Control {
+        ASSIGN_ORDER(false),    // POST /internal/assign-order → HTTP 200
+        ARRIVED(true),          // Tới điểm giao → geofence broadcast status ARRIVED
+        DELIVERED(true),        // /app/drone/delivered → status COMPLETED
+        RETURN_TO_BASE(true);   // /app/drone/return-to-base → eventType DRONE_RETURNING
+
+        final boolean inbound;  // Đi qua luồng GPS/STOMP inbound của server (không bao giờ được phép mất)
+
+        Control(boolean inbound) {
+            this.inbound = inbound;
+        }
+    }
+
+    private static final long MAX_LATENCY_MS = TimeUnit.MINUTES.toMillis(10);
+
+    final LongAdder sessionsConnected = new LongAdder();
+    final LongAdder sessionsFailed = new LongAdder();
+    final LongAdder sessionsLost = new LongAdder();
+    final LongAdder gpsSent = new LongAdder();
+    final LongAdder positionsReceived = new LongAdder();
+    final LongAdder tripsCompleted = new LongAdder();
+
+    private final Map<Control, ControlStats> controls = new EnumMap<>(Control.class);
+    private final LatencyStats ingestLatency = new LatencyStats();
+    private final LatencyStats broadcastLatency = new LatencyStats();
+
+    LoadMetrics() {
+        for (Control control : Control.values()) {
+            controls.put(control, new ControlStats());
+        }
+    }
+
+    void recordIngest(long latencyMs) {
+        ingestLatency.record(latencyMs);
+    }
+
+    void recordBroadcast(long latencyMs) {
+        broadcastLatency.record(latencyMs);
+    }
+
+    void controlSent(Control control) {
+        controls.get(control).sent.increment();
+    }
+
+    void controlAcked(Control control, long latencyMs) {
+        ControlStats stats = controls.get(control);
+        stats.acked.increment();
+        stats.latency.record(latencyMs);
+    }
+
+    /**
+     * Không nhận được xác nhận trong ack-timeout-ms (lệnh bị mất hoặc bị từ chối)
+     */
+    void controlLost(Control control) {
+        controls.get(control).lost.increment();
+    }
+
+    /**
+     * Lệnh đi qua luồng inbound bị mất; assign-order (REST, có thể bị từ chối khi quá tải) không tính
+     */
+    long controlsLost() {
+        long lost = 0;
+        for (Map.Entry<Control, ControlStats> entry : controls.entrySet()) {
+            if (entry.getKey().inbound) {
+                lost += entry.getValue().lost.sum();
+            }
+        }
+        return lost;
+    }
+
+    /**
+     * Một dòng tiến độ; gộp khoảng hiện tại vào histogram tổng
+     */
+    void printProgress(PrintStream out, long elapsedSeconds, long gpsPerSecond) {
+        Histogram ingest = ingestLatency.interval();
+        Histogram broadcast = broadcastLatency.interval();
+        controls.values().forEach(stats -> stats.latency.interval());
+        out.printf("[%4ds] sessions %d (failed %d, lost %d) | gps %d/s | ingest p50 %d p99 %d ms"
+                        + " | broadcast p99 %d ms | trips %d | control lost %d%n",
+                elapsedSeconds, sessionsConnected.sum(), sessionsFailed.sum(), sessionsLost.sum(), gpsPerSecond,
+                ingest.getValueAtPercentile(50), ingest.getValueAtPercentile(99),
+                broadcast.getValueAtPercentile(99), tripsCompleted.sum(), controlsLost());
+    }
+
+    void printSummary(PrintStream out) {
+        ingestLatency.interval();
+        broadcastLatency.interval();
+        out.println();
+        out.println("=== Sessions ===");
+        out.printf("connected %d, failed to connect %d, lost during run %d%n",
+                sessionsConnected.sum(), sessionsFailed.sum(), sessionsLost.sum());
+        out.println("=== GPS ===");
+        out.printf("sent %d, positions received on /topic/drone/{id} %d (coalesced by broadcast interval)%n",
+                gpsSent.sum(), positionsReceived.sum());
+        printLatency(out, "ingest latency (ms)", ingestLatency.total);
+        printLatency(out, "broadcast latency (ms)", broadcastLatency.total);
+        out.println("=== Control messages ===");
+        controls.forEach((control, stats) -> {
+            stats.latency.interval();
+            out.printf("%-15s sent %d, acked %d, lost %d%n",
+                    control, stats.sent.sum(), stats.acked.sum(), stats.lost.sum());
+            printLatency(out, "  ack latency (ms)", stats.latency.total);
+        });
+        out.printf("trips completed %d%n", tripsCompleted.sum());
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static void printLatency(PrintStream out, String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            out.printf("%s: no samples%n", label);
+            return;
+        }
+        out.printf("%s: p50 %d, p95 %d, p99 %d, p99.9 %d, max %d (n=%d)%n", label,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(95),
+                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue(), histogram.getTotalCount());
+    }
+
+    private static final class ControlStats {
+        final LongAdder sent = new LongAdder();
+        final LongAdder acked = new LongAdder();
+        final LongAdder lost = new LongAdder();
+        final LatencyStats latency = new LatencyStats();
+    }
+
+    private static final class LatencyStats {
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MS, 3);
+        private final Histogram total = new Histogram(MAX_LATENCY_MS, 3);
+        private Histogram recycled;
+
+        void record(long latencyMs) {
+            // Lệch đồng hồ giữa hai process có thể cho giá trị âm vài ms
+            recorder.recordValue(Math.max(0, Math.min(latencyMs, MAX_LATENCY_MS)));
+        }
+
+        /**
+         * Histogram của khoảng vừa qua (đã cộng vào total)
+         */
+        Histogram interval() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            total.add(recycled);
+            return recycled;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.programming.droneservice.loadgen;
+
+import com.programming.droneservice.DroneServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * Chạy drone-service trong JVM hiện tại với Postgres + Redis nhúng
+ *
+ * - Postgres thật (binary zonky, cổng ngẫu nhiên): partition delivery_logs, jsonb, SKIP LOCKED chạy như production
+ * - Redis thật (redis-server nhúng): Streams, outbox relay, hàng đợi return-to-base
+ * - Cấu hình ghi qua system property → tham số --key=value truyền vào vẫn ghi đè được
+ * - Dữ liệu mất khi tắt process (thư mục tạm)
+ */
+final class LocalDroneService {
+
+    private LocalDroneService() {
+    }
+
+    static void start(String[] args) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        // URL có sẵn user/password để truyền thẳng vào "run --stall-jdbc-url=..."
+        System.out.printf("Embedded Postgres: jdbc:postgresql://localhost:%d/postgres?user=postgres&password=postgres%n",
+                postgres.getPort());
+        System.out.printf("Embedded Redis on port %d%n", redisPort);
+
+        defaultProperty("spring.datasource.url", "jdbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        defaultProperty("spring.datasource.username", "postgres");
+        defaultProperty("spring.datasource.password", "postgres");
+        defaultProperty("spring.data.redis.host", "localhost");
+        defaultProperty("spring.data.redis.port", String.valueOf(redisPort));
+        // Log SQL/INFO mỗi chuyến bay làm sai lệch số đo khi có hàng nghìn drone
+        defaultProperty("spring.jpa.show-sql", "false");
+        defaultProperty("logging.level.com.programming.droneservice", "WARN");
+
+        ConfigurableApplicationContext context;
+        try {
+            context = SpringApplication.run(DroneServiceApplication.class, args);
+        } catch (RuntimeException e) {
+            stop(redis, postgres);
+            throw e;
+        }
+
+        // Đóng Spring trước (bean còn dùng Redis/Postgres khi shutdown), sau đó mới tắt hạ tầng nhúng
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            context.close();
+            stop(redis, postgres);
+        }, "embedded-infrastructure-shutdown"));
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static void stop(RedisServer redis, EmbeddedPostgres postgres) {
+        try {
+            redis.stop();
+            postgres.close();
+        } catch (IOException e) {
+            System.err.println("Failed to stop embedded infrastructure: " + e.getMessage());
+        }
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
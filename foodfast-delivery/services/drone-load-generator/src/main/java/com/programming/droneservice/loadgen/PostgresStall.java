@@ -0,0 +1,51 @@
+package com.programming.droneservice.loadgen;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giả lập Postgres bị treo giữa lần chạy: giữ ACCESS EXCLUSIVE lock trên các bảng drone-service ghi
+ * (drones, delivery_logs + partition, delivery_route_points) trong stall-s giây
+ *
+ * Mọi transaction chạm các bảng này (arrived/delivered, flush GPS write-behind, assign-order) bị chặn
+ * tới khi lock được nhả → kiểm tra hộp thư inbound giữ bộ nhớ có giới hạn và không làm mất lệnh điều khiển.
+ */
+final class PostgresStall implements Runnable {
+
+    private static final String LOCK_SQL =
+            "LOCK TABLE drones, delivery_logs, delivery_route_points IN ACCESS EXCLUSIVE MODE";
+
+    private final LoadConfig config;
+    private final long startNanos;
+
+    PostgresStall(LoadConfig config, long startNanos) {
+        this.config = config;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public void run() {
+        try {
+            long wait = startNanos + TimeUnit.SECONDS.toNanos(config.stallAtSeconds()) - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            try (Connection connection = DriverManager.getConnection(config.stallJdbcUrl());
+                 Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(false);
+                statement.execute(LOCK_SQL);
+                System.out.printf(">>> Postgres stalled for %d s (tables locked)%n", config.stallSeconds());
+                TimeUnit.SECONDS.sleep(config.stallSeconds());
+                connection.rollback();
+                System.out.println(">>> Postgres stall released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.err.println("Failed to stall Postgres: " + e.getMessage());
+        }
+    }
+}
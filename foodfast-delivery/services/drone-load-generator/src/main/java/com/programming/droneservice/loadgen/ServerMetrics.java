@@ -0,0 +1,88 @@
+package com.programming.droneservice.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đọc metric phía server qua /actuator/metrics (permitAll)
+ *
+ * - Counter đọc trước và sau lần chạy → số GPS server thực sự nhận / bỏ, so với số client đã gửi
+ * - Gauge hộp thư inbound đọc định kỳ khi đang chạy → độ sâu hàng đợi và độ trễ lớn nhất quan sát được
+ */
+final class ServerMetrics {
+
+    /**
+     * Một giá trị: tên meter, tag lọc (key:value, có thể null) và statistic
+     */
+    record Probe(String name, String tag, String statistic) {
+    }
+
+    static final Probe GPS_ACCEPTED = new Probe("drone.gps.ingest.accepted", null, "COUNT");
+    static final Probe GPS_REJECTED = new Probe("drone.gps.ingest.rejected", null, "COUNT");
+    static final Probe MAILBOX_SHED = new Probe("drone.inbound.mailbox.shed", null, "COUNT");
+    static final Probe GPS_LAG_COUNT = new Probe("drone.inbound.mailbox.lag", "type:gps", "COUNT");
+    static final Probe GPS_LAG_TOTAL = new Probe("drone.inbound.mailbox.lag", "type:gps", "TOTAL_TIME");
+    static final Probe CONTROL_LAG_COUNT = new Probe("drone.inbound.mailbox.lag", "type:control", "COUNT");
+    static final Probe CONTROL_LAG_TOTAL = new Probe("drone.inbound.mailbox.lag", "type:control", "TOTAL_TIME");
+    static final Probe MAILBOX_DEPTH = new Probe("drone.inbound.mailbox.depth", null, "VALUE");
+    static final Probe MAILBOX_OLDEST = new Probe("drone.inbound.mailbox.oldest.seconds", null, "VALUE");
+
+    /**
+     * Counter so sánh trước/sau lần chạy
+     */
+    static final List<Probe> RUN_COUNTERS = List.of(GPS_ACCEPTED, GPS_REJECTED, MAILBOX_SHED,
+            GPS_LAG_COUNT, GPS_LAG_TOTAL, CONTROL_LAG_COUNT, CONTROL_LAG_TOTAL);
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    ServerMetrics(String baseUrl, HttpClient httpClient, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return Giá trị theo thứ tự probes; meter chưa được đăng ký (chưa có sự kiện nào) = 0
+     */
+    Map<Probe, Double> snapshot(List<Probe> probes) {
+        Map<Probe, Double> values = new LinkedHashMap<>();
+        for (Probe probe : probes) {
+            values.put(probe, read(probe));
+        }
+        return values;
+    }
+
+    double read(Probe probe) {
+        try {
+            String query = probe.tag() != null ? "?tag=" + probe.tag() : "";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + probe.name() + query))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 404) {
+                return 0;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if (probe.statistic().equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return 0;
+        } catch (Exception e) {
+            System.err.printf("Cannot read server metric %s: %s%n", probe.name(), e.getMessage());
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.programming.droneservice.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.loadgen.FleetSeeder.SeededDrone;
+import com.programming.droneservice.loadgen.LoadMetrics.Control;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Một drone = một STOMP session + một virtual thread chạy vòng giao hàng cho tới hết thời gian test
+ *
+ * Mỗi chuyến: assign-order (HTTP nội bộ) → bay tới điểm giao, gửi /app/drone/update mỗi interval-ms
+ * → lơ lửng tới khi geofence báo ARRIVED → chờ dwell-ms → /app/drone/delivered (chờ COMPLETED)
+ * → /app/drone/return-to-base (chờ DRONE_RETURNING) → bay về, thay pin → chuyến kế tiếp
+ *
+ * Lệnh điều khiển không được xác nhận trong ack-timeout-ms → đếm là mất, drone dừng
+ * (trạng thái phía server không còn khớp để tiếp tục).
+ */
+final class SimulatedDrone extends StompSessionHandlerAdapter implements Runnable {
+
+    private static final int MAX_TRACKED_POSITIONS = 64;
+    private static final double BATTERY_PER_KM = 5.0;   // delivery.battery-consumption-per-km
+    private static final double FULL_BATTERY = 100.0;
+
+    private final SeededDrone drone;
+    private final LoadConfig config;
+    private final WebSocketStompClient stompClient;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LoadMetrics metrics;
+    private final AtomicLong orderIds;
+    private final long deadlineNanos;
+    private final Random random;
+
+    private final BlockingQueue<JsonNode> statusEvents = new LinkedBlockingQueue<>();
+    // Vị trí đã gửi → thời điểm gửi, để khớp với vị trí server broadcast lại
+    private final Map<PositionKey, Long> sentPositions = new LinkedHashMap<>(MAX_TRACKED_POSITIONS, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PositionKey, Long> eldest) {
+            return size() > MAX_TRACKED_POSITIONS;
+        }
+    };
+
+    private volatile boolean sessionLost;
+    private double lat;
+    private double lng;
+    private double battery = FULL_BATTERY;
+    private long nextTickNanos;
+
+    SimulatedDrone(SeededDrone drone, LoadConfig config, WebSocketStompClient stompClient, HttpClient httpClient,
+                   ObjectMapper objectMapper, LoadMetrics metrics, AtomicLong orderIds, long deadlineNanos) {
+        this.drone = drone;
+        this.config = config;
+        this.stompClient = stompClient;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.orderIds = orderIds;
+        this.deadlineNanos = deadlineNanos;
+        this.random = new Random(config.seed() * 31 + drone.droneId());
+        this.lat = drone.homeLat();
+        this.lng = drone.homeLng();
+    }
+
+    @Override
+    public void run() {
+        StompSession session;
+        try {
+            session = stompClient.connectAsync(config.webSocketUri(), null, null, this).get(30, TimeUnit.SECONDS);
+            session.subscribe("/topic/drone/" + drone.droneId(), this);
+            metrics.sessionsConnected.increment();
+        } catch (Exception e) {
+            metrics.sessionsFailed.increment();
+            System.err.printf("Drone %d failed to connect: %s%n", drone.droneId(), e.getMessage());
+            return;
+        }
+        try {
+            nextTickNanos = System.nanoTime();
+            while (running() && trip(session)) {
+                metrics.tripsCompleted.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Gửi trên session đã đóng
+            metrics.sessionsLost.increment();
+            System.err.printf("Drone %d stopped: %s%n", drone.droneId(), e.getMessage());
+            return;
+        }
+        if (session.isConnected()) {
+            session.disconnect();
+        }
+    }
+
+    // ========== STOMP CALLBACKS ==========
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return JsonNode.class;
+    }
+
+    /**
+     * Chạy trên thread của WebSocket client: chỉ ghi nhận, không chặn
+     */
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        JsonNode message = (JsonNode) payload;
+        if (message.has("lat")) {
+            onPosition(message);
+        } else {
+            statusEvents.offer(message);
+        }
+    }
+
+    @Override
+    public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                byte[] payload, Throwable exception) {
+        System.err.printf("Drone %d STOMP error: %s%n", drone.droneId(), exception.getMessage());
+    }
+
+    @Override
+    public void handleTransportError(StompSession session, Throwable exception) {
+        sessionLost = true;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * @return false nếu drone phải dừng (hết giờ, mất session, lệnh không được xác nhận)
+     */
+    private boolean trip(StompSession session) throws InterruptedException {
+        long orderId = orderIds.incrementAndGet();
+        double homeLat = drone.homeLat();
+        double homeLng = drone.homeLng();
+        double[] destination = destination(homeLat, homeLng);
+
+        if (!assignOrder(orderId, destination)) {
+            // Drone chưa sẵn sàng / server quá tải: thử đơn khác ở nhịp sau
+            awaitTick();
+            return true;
+        }
+
+        if (!fly(session, destination[0], destination[1])) {
+            return false;
+        }
+
+        metrics.controlSent(Control.ARRIVED);
+        if (!awaitWhileHovering(session, Control.ARRIVED, "ARRIVED", orderId, config.ackTimeoutMs())) {
+            return false;
+        }
+
+        hover(session, config.dwellMs());
+
+        metrics.controlSent(Control.DELIVERED);
+        session.send("/app/drone/delivered", Map.of("droneId", drone.droneId(), "orderId", orderId));
+        if (!awaitWhileHovering(session, Control.DELIVERED, "COMPLETED", orderId, config.ackTimeoutMs())) {
+            return false;
+        }
+
+        metrics.controlSent(Control.RETURN_TO_BASE);
+        session.send("/app/drone/return-to-base", Map.of("droneId", drone.droneId(), "orderId", orderId));
+        if (!awaitWhileHovering(session, Control.RETURN_TO_BASE, "RETURNING", orderId, config.ackTimeoutMs())) {
+            return false;
+        }
+
+        if (!fly(session, homeLat, homeLng)) {
+            return false;
+        }
+        // Thay pin ở cơ sở, báo lên server trước khi nhận đơn mới
+        battery = FULL_BATTERY;
+        sendGps(session, FlightPath.hover(homeLat, homeLng, random));
+        awaitTick();
+        return true;
+    }
+
+    private boolean assignOrder(long orderId, double[] destination) throws InterruptedException {
+        metrics.controlSent(Control.ASSIGN_ORDER);
+        long start = System.nanoTime();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of(
+                    "droneId", drone.droneId(),
+                    "orderId", orderId,
+                    "destinationLat", destination[0],
+                    "destinationLng", destination[1],
+                    "destinationAddress", "Load test #" + orderId));
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create(config.baseUrl() + "/api/v1/drones/internal/assign-order"))
+                    .timeout(Duration.ofMillis(config.ackTimeoutMs()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 == 2) {
+                metrics.controlAcked(Control.ASSIGN_ORDER, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return true;
+            }
+            System.err.printf("Drone %d: assign-order HTTP %d %s%n", drone.droneId(), response.statusCode(), response.body());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.printf("Drone %d: assign-order failed: %s%n", drone.droneId(), e.getMessage());
+        }
+        metrics.controlLost(Control.ASSIGN_ORDER);
+        return false;
+    }
+
+    /**
+     * Phát lại lộ trình tới (toLat, toLng), mỗi mẫu một nhịp
+     */
+    private boolean fly(StompSession session, double toLat, double toLng) throws InterruptedException {
+        List<FlightPath.Sample> path = FlightPath.plan(lat, lng, toLat, toLng,
+                config.speedKmh(), config.intervalMs(), random);
+        for (FlightPath.Sample sample : path) {
+            if (!running()) {
+                return false;
+            }
+            awaitTick();
+            sendGps(session, sample);
+        }
+        return true;
+    }
+
+    private void hover(StompSession session, long durationMs) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        while (System.nanoTime() < until && running()) {
+            awaitTick();
+            sendGps(session, FlightPath.hover(lat, lng, random));
+        }
+    }
+
+    /**
+     * Lơ lửng (vẫn gửi GPS mỗi nhịp) tới khi nhận event xác nhận của lệnh
+     */
+    private boolean awaitWhileHovering(StompSession session, Control control, String status, long orderId,
+                                       long timeoutMs) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        double hoverLat = lat;
+        double hoverLng = lng;
+        while (System.nanoTime() < deadline) {
+            if (!running()) {
+                return false; // Hết giờ test giữa chừng: không tính là mất
+            }
+            if (pollStatus(status, orderId, Math.min(deadline, nextTickNanos))) {
+                metrics.controlAcked(control, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return true;
+            }
+            if (System.nanoTime() >= nextTickNanos) {
+                awaitTick();
+                sendGps(session, FlightPath.hover(hoverLat, hoverLng, random));
+            }
+        }
+        metrics.controlLost(control);
+        System.err.printf("Drone %d: no %s for order %d within %d ms%n", drone.droneId(), status, orderId, timeoutMs);
+        return false;
+    }
+
+    /**
+     * Chờ event có status/eventType khớp (và đúng orderId nếu event có) tới untilNanos
+     */
+    private boolean pollStatus(String status, long orderId, long untilNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = untilNanos - System.nanoTime()) > 0) {
+            JsonNode event = statusEvents.poll(remaining, TimeUnit.NANOSECONDS);
+            if (event == null) {
+                return false;
+            }
+            boolean statusMatches = status.equals(event.path("status").asText())
+                    || status.equals(event.path("eventType").asText());
+            boolean orderMatches = !event.hasNonNull("orderId") || event.path("orderId").asLong() == orderId;
+            if (statusMatches && orderMatches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendGps(StompSession session, FlightPath.Sample sample) {
+        battery = Math.max(0, battery
+                - FlightPath.distanceMeters(lat, lng, sample.lat(), sample.lng()) / 1000.0 * BATTERY_PER_KM);
+        lat = sample.lat();
+        lng = sample.lng();
+        synchronized (sentPositions) {
+            sentPositions.put(new PositionKey(lat, lng), System.currentTimeMillis());
+        }
+        session.send("/app/drone/update", Map.of(
+                "droneId", drone.droneId(),
+                "lat", lat,
+                "lng", lng,
+                "batteryPercent", battery,
+                "speedKmh", sample.speedKmh(),
+                "altitudeMeters", sample.altitudeMeters()));
+        metrics.gpsSent.increment();
+    }
+
+    private void onPosition(JsonNode position) {
+        long receivedAt = System.currentTimeMillis();
+        Long sentAt;
+        synchronized (sentPositions) {
+            sentAt = sentPositions.remove(new PositionKey(position.path("lat").asDouble(), position.path("lng").asDouble()));
+        }
+        metrics.positionsReceived.increment();
+        if (sentAt != null) {
+            metrics.recordIngest(position.path("timestamp").asLong() - sentAt);
+            metrics.recordBroadcast(receivedAt - sentAt);
+        }
+    }
+
+    /**
+     * Ngủ tới nhịp GPS kế tiếp; bị trễ quá một nhịp thì bắt đầu lại từ hiện tại (không gửi dồn)
+     */
+    private void awaitTick() throws InterruptedException {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.intervalMs());
+        long now = System.nanoTime();
+        if (now - nextTickNanos > intervalNanos) {
+            nextTickNanos = now;
+        }
+        long sleepNanos = nextTickNanos - now;
+        if (sleepNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+        nextTickNanos += intervalNanos;
+    }
+
+    private double[] destination(double fromLat, double fromLng) {
+        double distanceM = (config.minTripKm() + random.nextDouble() * (config.maxTripKm() - config.minTripKm())) * 1000;
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double metersPerDegLat = 111_320.0;
+        return new double[]{
+                fromLat + distanceM * Math.cos(bearing) / metersPerDegLat,
+                fromLng + distanceM * Math.sin(bearing) / (metersPerDegLat * Math.cos(Math.toRadians(fromLat)))
+        };
+    }
+
+    private boolean running() {
+        if (sessionLost) {
+            throw new IllegalStateException("session lost");
+        }
+        return System.nanoTime() < deadlineNanos;
+    }
+
+    private record PositionKey(double lat, double lng) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.dto.DispatchRequestDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
+import com.programming.droneservice.model.GpsPoint;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Dữ liệu giả lập dùng chung cho các benchmark (seed cố định → kết quả lặp lại được)
+ * Toạ độ quanh trung tâm TP.HCM, bán kính vài km như các chuyến giao thật
+ */
+final class BenchmarkData {
+
+    static final double CENTER_LAT = 10.7769;
+    static final double CENTER_LNG = 106.7009;
+    static final double SPAN_DEG = 0.04;   // ~4.4 km
+
+    private BenchmarkData() {
+    }
+
+    static double[] randomLats(int count, long seed) {
+        Random random = new Random(seed);
+        double[] lats = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = CENTER_LAT + (random.nextDouble() - 0.5) * SPAN_DEG;
+        }
+        return lats;
+    }
+
+    static double[] randomLngs(int count, long seed) {
+        Random random = new Random(seed + 1);
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lngs[i] = CENTER_LNG + (random.nextDouble() - 0.5) * SPAN_DEG;
+        }
+        return lngs;
+    }
+
+    /**
+     * Lộ trình một chuyến bay: 1 điểm / 2 giây, ~30 km/h, pin giảm dần
+     */
+    static List<GpsPoint> route(int points) {
+        Random random = new Random(42);
+        List<GpsPoint> route = new ArrayList<>(points);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        double lat = CENTER_LAT;
+        double lng = CENTER_LNG;
+        double battery = 100.0;
+        for (int i = 0; i < points; i++) {
+            route.add(GpsPoint.builder()
+                    .lat(lat)
+                    .lng(lng)
+                    .timestamp(start.plusSeconds(2L * i))
+                    .batteryPercent(Math.round(battery * 10) / 10.0)
+                    .speedKmh(Math.round((28 + random.nextDouble() * 4) * 10) / 10.0)
+                    .build());
+            lat += 0.00012 + (random.nextDouble() - 0.5) * 0.00002;
+            lng += 0.00009 + (random.nextDouble() - 0.5) * 0.00002;
+            battery -= 0.08;
+        }
+        return route;
+    }
+
+    static List<DispatchRequestDto> orders(int count) {
+        double[] lats = randomLats(count, 7);
+        double[] lngs = randomLngs(count, 7);
+        List<DispatchRequestDto> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(DispatchRequestDto.builder()
+                    .orderId((long) i + 1)
+                    .restaurantId("R1")
+                    .destinationLat(lats[i])
+                    .destinationLng(lngs[i])
+                    .payloadKg(1.0)
+                    .build());
+        }
+        return orders;
+    }
+
+    static List<NearbyDroneDto> drones(int count) {
+        double[] lats = randomLats(count, 11);
+        double[] lngs = randomLngs(count, 11);
+        Random random = new Random(13);
+        List<NearbyDroneDto> drones = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            drones.add(NearbyDroneDto.builder()
+                    .droneId((long) i + 1)
+                    .restaurantId("R1")
+                    .lat(lats[i])
+                    .lng(lngs[i])
+                    .batteryPercent(60 + random.nextDouble() * 40)
+                    .maxPayloadKg(2.0)
+                    .build());
+        }
+        return drones;
+    }
+}
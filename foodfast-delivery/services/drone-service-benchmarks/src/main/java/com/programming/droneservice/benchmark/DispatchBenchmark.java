@@ -0,0 +1,66 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.dispatch.DispatchPlanner;
+import com.programming.droneservice.dispatch.HungarianSolver;
+import com.programming.droneservice.dto.DispatchRequestDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Một vòng dispatch: dựng ma trận chi phí đơn × drone và giải Hungarian
+ * (size = số đơn = số drone ứng viên; 1000 ứng với batch lớn nhất cần hỗ trợ)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DispatchBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private DispatchPlanner planner;
+    private List<DispatchRequestDto> orders;
+    private List<NearbyDroneDto> drones;
+    private double[][] cost;
+
+    @Setup
+    public void setup() {
+        // Cùng cấu hình với application.yml (max-distance-km, battery-consumption-per-km, dispatch.battery-weight)
+        planner = new DispatchPlanner(5.0, 5.0, 1.0);
+        orders = BenchmarkData.orders(size);
+        drones = BenchmarkData.drones(size);
+        cost = planner.buildCostMatrix(orders, drones);
+    }
+
+    @Benchmark
+    public double[][] buildCostMatrix() {
+        return planner.buildCostMatrix(orders, drones);
+    }
+
+    @Benchmark
+    public int[] hungarian() {
+        return HungarianSolver.solve(cost);
+    }
+
+    @Benchmark
+    public Map<Long, Long> plan() {
+        return planner.plan(orders, drones);
+    }
+}
@@ -0,0 +1,181 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.fleet.DroneStateMachine;
+import com.programming.droneservice.fleet.DroneTransition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tranh chấp chuyển trạng thái: THREADS thread cùng dispatch vào một nhóm nhỏ drone (H2, PostgreSQL mode)
+ *
+ * Mỗi lần gọi: chọn ngẫu nhiên một drone, thử IDLE → DELIVERING (gán đơn mới);
+ * thắng thì hoàn thành luôn DELIVERING → IDLE, thua thì tính là "lost"
+ * - compareAndSet: DroneStateMachine, mỗi chuyển trạng thái là một UPDATE có điều kiện
+ * - pessimisticLock: cách làm cũ nhưng an toàn: SELECT ... FOR UPDATE, kiểm tra trong Java, rồi UPDATE
+ * Kết quả: ops/s; aux counter assigned/lost. Cuối trial kiểm tra tổng total_deliveries
+ * bằng số lần hoàn thành và không drone nào kẹt ở DELIVERING, vi phạm → benchmark lỗi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(DroneStateMachineBenchmark.THREADS)
+@Fork(1)
+public class DroneStateMachineBenchmark {
+
+    static final int THREADS = 16;
+
+    private static final String[] SCHEMA = {
+            "DROP TABLE IF EXISTS drones",
+            "CREATE TABLE drones (id BIGINT PRIMARY KEY, owner_id VARCHAR(50) NOT NULL, status VARCHAR(20) NOT NULL, "
+                    + "current_order_id BIGINT, battery_percent DOUBLE PRECISION, total_deliveries INT, "
+                    + "is_active BOOLEAN, version BIGINT DEFAULT 0 NOT NULL, updated_at TIMESTAMP)"
+    };
+
+    private static final String SELECT_FOR_UPDATE_SQL =
+            "SELECT status, current_order_id FROM drones WHERE id = ? FOR UPDATE";
+
+    @Param({"4", "64"})
+    private int drones;
+
+    private JdbcConnectionPool dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private DroneStateMachine stateMachine;
+
+    private final AtomicLong nextOrderId = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Worker {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long assigned;
+        public long lost;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            assigned = 0;
+            lost = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = JdbcConnectionPool.create(
+                "jdbc:h2:mem:state;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        dataSource.setMaxConnections(2 * THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        stateMachine = new DroneStateMachine(jdbcTemplate, null, new SimpleMeterRegistry());
+
+        for (String ddl : SCHEMA) {
+            jdbcTemplate.execute(ddl);
+        }
+        for (long id = 1; id <= drones; id++) {
+            jdbcTemplate.update("INSERT INTO drones (id, owner_id, status, battery_percent, total_deliveries, is_active) "
+                    + "VALUES (?, 'owner', 'IDLE', 100, 0, TRUE)", id);
+        }
+        completed.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void verifyAndTearDown() {
+        Long deliveries = jdbcTemplate.queryForObject("SELECT SUM(total_deliveries) FROM drones", Long.class);
+        Integer stuck = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM drones WHERE status <> 'IDLE'", Integer.class);
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.dispose();
+        if (deliveries == null || deliveries != completed.get() || stuck == null || stuck != 0) {
+            throw new IllegalStateException("Lost update: total_deliveries=" + deliveries
+                    + ", completed=" + completed.get() + ", not IDLE=" + stuck);
+        }
+    }
+
+    @Benchmark
+    public void compareAndSet(Worker worker, Outcome outcome) {
+        long droneId = 1 + worker.random.nextInt(drones);
+        long orderId = nextOrderId.incrementAndGet();
+        Boolean won = transactionTemplate.execute(status ->
+                stateMachine.tryApply(droneId, DroneTransition.ASSIGN_ORDER, null, orderId, 0));
+        if (!Boolean.TRUE.equals(won)) {
+            outcome.lost++;
+            return;
+        }
+        outcome.assigned++;
+        Boolean done = transactionTemplate.execute(status ->
+                stateMachine.tryApply(droneId, DroneTransition.COMPLETE_DELIVERY, null, orderId, 0));
+        if (Boolean.TRUE.equals(done)) {
+            completed.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public void pessimisticLock(Worker worker, Outcome outcome) {
+        long droneId = 1 + worker.random.nextInt(drones);
+        long orderId = nextOrderId.incrementAndGet();
+        Boolean won = transactionTemplate.execute(status -> {
+            String current = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE_SQL,
+                    (rs, row) -> rs.getString("status"), droneId);
+            if (!"IDLE".equals(current)) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE drones SET status = 'DELIVERING', current_order_id = ?, "
+                    + "version = version + 1, updated_at = ? WHERE id = ?", orderId, now(), droneId);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(won)) {
+            outcome.lost++;
+            return;
+        }
+        outcome.assigned++;
+        Boolean done = transactionTemplate.execute(status -> {
+            Long currentOrderId = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE_SQL,
+                    (rs, row) -> rs.getObject("current_order_id", Long.class), droneId);
+            if (currentOrderId == null || currentOrderId != orderId) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE drones SET status = 'IDLE', current_order_id = NULL, "
+                    + "total_deliveries = total_deliveries + 1, version = version + 1, updated_at = ? WHERE id = ?",
+                    now(), droneId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(done)) {
+            completed.incrementAndGet();
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
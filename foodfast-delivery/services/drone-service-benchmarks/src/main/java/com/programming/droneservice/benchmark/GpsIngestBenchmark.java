@@ -0,0 +1,190 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.analytics.FleetAnalytics;
+import com.programming.droneservice.dto.DroneGpsUpdateDto;
+import com.programming.droneservice.fleet.FleetStateCache;
+import com.programming.droneservice.fleet.GeofenceMonitor;
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.service.DroneServiceImpl;
+import com.programming.droneservice.spatial.DroneSpatialIndex;
+import com.programming.droneservice.telemetry.FlightStatsTracker;
+import com.programming.droneservice.telemetry.GpsBatchWriter;
+import com.programming.droneservice.telemetry.GpsIngestionBuffer;
+import com.programming.droneservice.telemetry.RoutePointStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đường GPS update thật của DroneServiceImpl.updateDroneGps với H2 (PostgreSQL mode) thay Postgres
+ *
+ * Mỗi invocation: DRONES drone cùng gửi một GPS update (một "tick" của fleet)
+ * - ingest: chỉ phần chạy trên WebSocket thread (cache + enqueue), hàng đợi được xả không ghi DB
+ * - ingestAndFlush: thêm GpsBatchWriter.flush() → UPDATE drones + INSERT route points + thống kê chuyến bay
+ * Kết quả là thời gian trung bình cho mỗi GPS update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GpsIngestBenchmark {
+
+    private static final int DRONES = 1000;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE drones (id BIGINT PRIMARY KEY, current_lat DOUBLE PRECISION, "
+                    + "current_lng DOUBLE PRECISION, battery_percent DOUBLE PRECISION, position_updated_at TIMESTAMP, "
+                    + "updated_at TIMESTAMP)",
+            "CREATE TABLE delivery_logs (id BIGINT PRIMARY KEY, status VARCHAR(20), start_time TIMESTAMP)",
+            "CREATE TABLE delivery_route_points (id BIGINT AUTO_INCREMENT PRIMARY KEY, delivery_log_id BIGINT NOT NULL, "
+                    + "lat DOUBLE PRECISION NOT NULL, lng DOUBLE PRECISION NOT NULL, battery_percent DOUBLE PRECISION, "
+                    + "speed_kmh DOUBLE PRECISION, recorded_at TIMESTAMP NOT NULL)",
+            "CREATE INDEX idx_route_point_log ON delivery_route_points (delivery_log_id, id)"
+    };
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GpsIngestionBuffer buffer;
+    private GpsBatchWriter batchWriter;
+    private DroneServiceImpl droneService;
+
+    private DroneGpsUpdateDto[] updates;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:gps;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String ddl : SCHEMA) {
+            jdbcTemplate.execute(ddl);
+        }
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DroneSpatialIndex spatialIndex = new DroneSpatialIndex(0.01);
+        FleetStateCache fleetStateCache = new FleetStateCache(null, null, spatialIndex, new FleetAnalytics(null, "benchmark"), meterRegistry);
+        RoutePointStore routePointStore = new RoutePointStore(jdbcTemplate, null);
+        FlightStatsTracker flightStatsTracker = new FlightStatsTracker(null, routePointStore, meterRegistry);
+        buffer = new GpsIngestionBuffer(4 * DRONES, meterRegistry);
+        batchWriter = new GpsBatchWriter(buffer, jdbcTemplate, routePointStore, flightStatsTracker,
+                new DataSourceTransactionManager(dataSource), DRONES, meterRegistry);
+
+        GeofenceMonitor geofenceMonitor = new GeofenceMonitor(null, null, event -> { }, meterRegistry,
+                true, 20, 40, 2);
+
+        // Chỉ các dependency của updateDroneGps; repository/Redis không được dùng trên đường này
+        droneService = new DroneServiceImpl(null, null, null, null,
+                buffer, batchWriter, routePointStore, spatialIndex, fleetStateCache, flightStatsTracker,
+                geofenceMonitor, null, null, null, null);
+
+        double[] lats = BenchmarkData.randomLats(DRONES, 3);
+        double[] lngs = BenchmarkData.randomLngs(DRONES, 3);
+        updates = new DroneGpsUpdateDto[DRONES];
+        for (int i = 0; i < DRONES; i++) {
+            long id = i + 1;
+            jdbcTemplate.update("INSERT INTO drones (id, current_lat, current_lng, battery_percent) VALUES (?, ?, ?, 100)",
+                    id, lats[i], lngs[i]);
+            jdbcTemplate.update("INSERT INTO delivery_logs (id, status) VALUES (?, 'PREPARING')", id);
+
+            // Mọi drone đang giao đơn: deliveryLogId = droneId
+            Drone drone = Drone.builder()
+                    .id(id)
+                    .restaurantId("R1")
+                    .ownerId("owner")
+                    .name("Drone " + id)
+                    .status(DroneStatus.DELIVERING)
+                    .currentOrderId(id)
+                    .currentLat(lats[i])
+                    .currentLng(lngs[i])
+                    .build();
+            fleetStateCache.put(drone, id);
+            flightStatsTracker.startAfterCommit(id);
+            // Điểm đến cách ~1 km → geofence được kiểm tra trên mỗi update nhưng không kích hoạt
+            geofenceMonitor.armAfterCommit(drone, DeliveryLog.builder()
+                    .id(id)
+                    .orderId(id)
+                    .destinationLat(lats[i] + 0.01)
+                    .destinationLng(lngs[i])
+                    .build());
+
+            updates[i] = DroneGpsUpdateDto.builder()
+                    .droneId(id)
+                    .lat(lats[i])
+                    .lng(lngs[i])
+                    .batteryPercent(100.0)
+                    .speedKmh(30.0)
+                    .build();
+        }
+    }
+
+    /**
+     * Bảng route points chỉ tăng → dọn mỗi iteration để kích thước bảng không ảnh hưởng kết quả
+     */
+    @Setup(Level.Iteration)
+    public void truncateRoutePoints() {
+        jdbcTemplate.execute("TRUNCATE TABLE delivery_route_points");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DRONES)
+    public int ingest() {
+        moveFleet();
+        for (DroneGpsUpdateDto update : updates) {
+            droneService.updateDroneGps(update);
+        }
+        try (GpsIngestionBuffer.Drained drained = buffer.drain(Integer.MAX_VALUE)) {
+            return drained.samples().size();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DRONES)
+    public void ingestAndFlush() {
+        moveFleet();
+        for (DroneGpsUpdateDto update : updates) {
+            droneService.updateDroneGps(update);
+        }
+        batchWriter.flush();
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Dịch mọi drone ~15 m để không bị gộp như vị trí lặp
+     */
+    private void moveFleet() {
+        tick++;
+        double step = (tick % 2 == 0 ? 1 : -1) * 0.0001;
+        for (DroneGpsUpdateDto update : updates) {
+            update.setLat(update.getLat() + step);
+            update.setLng(update.getLng() + step);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.util.DistanceStrategy;
+import com.programming.droneservice.util.GpsUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GpsUtil: Haversine từng cặp vs batch (Vector API) vs equirectangular, và các phép tính pin/ETA
+ *
+ * So sánh scalar/vector trên cùng máy:
+ *   java -jar target/benchmarks.jar GpsUtilBenchmark
+ *   java -jar target/benchmarks.jar GpsUtilBenchmark -jvmArgsAppend -Dgps.vector.enabled=false
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class GpsUtilBenchmark {
+
+    @Param({"16", "1000"})
+    private int points;
+
+    private double[] lats;
+    private double[] lngs;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        lats = BenchmarkData.randomLats(points, 1);
+        lngs = BenchmarkData.randomLngs(points, 1);
+        out = new double[points];
+        GpsUtil.calculateDistances(BenchmarkData.CENTER_LAT, BenchmarkData.CENTER_LNG, lats, lngs, out, points);
+    }
+
+    // ========== Một điểm → N điểm ==========
+
+    @Benchmark
+    public double[] haversinePerCall() {
+        for (int i = 0; i < points; i++) {
+            out[i] = GpsUtil.calculateDistance(BenchmarkData.CENTER_LAT, BenchmarkData.CENTER_LNG, lats[i], lngs[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] haversineBatch() {
+        GpsUtil.calculateDistances(BenchmarkData.CENTER_LAT, BenchmarkData.CENTER_LNG, lats, lngs, out, points);
+        return out;
+    }
+
+    @Benchmark
+    public double[] equirectangularPerCall() {
+        for (int i = 0; i < points; i++) {
+            out[i] = GpsUtil.calculateFastDistance(BenchmarkData.CENTER_LAT, BenchmarkData.CENTER_LNG, lats[i], lngs[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] equirectangularBatch() {
+        DistanceStrategy.EQUIRECTANGULAR.distancesKm(
+                BenchmarkData.CENTER_LAT, BenchmarkData.CENTER_LNG, lats, lngs, out, points);
+        return out;
+    }
+
+    // ========== Chiều dài lộ trình ==========
+
+    @Benchmark
+    public double pathLengthPerCall() {
+        double total = 0.0;
+        for (int i = 1; i < points; i++) {
+            total += GpsUtil.calculateDistance(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double pathLengthBatch() {
+        return GpsUtil.calculatePathLength(lats, lngs, points);
+    }
+
+    // ========== Pin / ETA (kiểm tra khi gán đơn) ==========
+
+    @Benchmark
+    public void batteryAndEta(Blackhole blackhole) {
+        for (int i = 0; i < points; i++) {
+            double distance = out[i];
+            blackhole.consume(GpsUtil.hasSufficientBattery(80.0, distance, 5.0));
+            blackhole.consume(GpsUtil.calculateETA(distance, 30.0));
+        }
+    }
+}
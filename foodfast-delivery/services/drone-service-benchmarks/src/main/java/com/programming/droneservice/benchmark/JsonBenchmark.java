@@ -0,0 +1,112 @@
+package com.programming.droneservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.programming.droneservice.dto.DroneGpsUpdateDto;
+import com.programming.droneservice.model.GpsPoint;
+import com.programming.droneservice.util.RouteCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialize GPS update qua WebSocket và route của DeliveryLog:
+ * JSON (Jackson, như STOMP message converter / cột JSONB cũ) vs RouteCodec (cột route_data)
+ *
+ * Kích thước route JSON vs RouteCodec được in ra lúc setup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final TypeReference<List<GpsPoint>> ROUTE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"500"})
+    private int routePoints;
+
+    private ObjectMapper objectMapper;
+    private DroneGpsUpdateDto gpsUpdate;
+    private byte[] gpsUpdateJson;
+    private List<GpsPoint> route;
+    private byte[] routeJson;
+    private byte[] routeBinary;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        gpsUpdate = DroneGpsUpdateDto.builder()
+                .droneId(42L)
+                .lat(BenchmarkData.CENTER_LAT)
+                .lng(BenchmarkData.CENTER_LNG)
+                .batteryPercent(87.5)
+                .speedKmh(30.0)
+                .altitudeMeters(50.0)
+                .build();
+        gpsUpdateJson = objectMapper.writeValueAsBytes(gpsUpdate);
+
+        route = BenchmarkData.route(routePoints);
+        routeJson = objectMapper.writeValueAsBytes(route);
+        routeBinary = RouteCodec.encode(route);
+
+        System.out.printf("%nGPS update JSON: %d bytes | route %d points: JSON %d bytes, RouteCodec %d bytes (%.1fx)%n",
+                gpsUpdateJson.length, routePoints, routeJson.length, routeBinary.length,
+                (double) routeJson.length / routeBinary.length);
+        System.out.println("Sample: " + new String(gpsUpdateJson, StandardCharsets.UTF_8));
+    }
+
+    // ========== GPS update (1 message / 2 giây / drone) ==========
+
+    @Benchmark
+    public byte[] gpsUpdateSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(gpsUpdate);
+    }
+
+    @Benchmark
+    public DroneGpsUpdateDto gpsUpdateDeserialize() throws Exception {
+        return objectMapper.readValue(gpsUpdateJson, DroneGpsUpdateDto.class);
+    }
+
+    // ========== Route ==========
+
+    @Benchmark
+    public byte[] routeJsonSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(route);
+    }
+
+    @Benchmark
+    public List<GpsPoint> routeJsonDeserialize() throws Exception {
+        return objectMapper.readValue(routeJson, ROUTE_TYPE);
+    }
+
+    @Benchmark
+    public byte[] routeCodecEncode() {
+        return RouteCodec.encode(route);
+    }
+
+    @Benchmark
+    public List<GpsPoint> routeCodecDecode() {
+        return RouteCodec.decode(routeBinary);
+    }
+}
@@ -0,0 +1,134 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.droneservice.security.JwtPrincipal;
+import com.programming.droneservice.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Xác thực JWT trong JwtAuthenticationFilter (mỗi request REST có Bearer token)
+ *
+ * - legacy: như trước khi có cache: validateToken + extractUserId + extractRole,
+ *   mỗi lần dựng lại key + parser và verify chữ ký (3 lần / request)
+ * - parseOnce: JwtUtil với cache tắt (jwt.cache.max-entries=0): parser dựng sẵn, 1 lần verify / request
+ * - cached / cachedContended: JwtUtil với cache, distinctTokens token luân phiên (hit sau lượt đầu)
+ * Kết quả là thời gian trung bình cho mỗi request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "your-super-secret-jwt-key-change-this-in-production-12345";
+
+    @Param({"1000"})
+    private int distinctTokens;
+
+    private String[] tokens;
+    private JwtUtil parseOnceJwtUtil;
+    private JwtUtil cachedJwtUtil;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        tokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            tokens[i] = Jwts.builder()
+                    .setSubject("owner" + i + "@foodfast.vn")
+                    .claim("id", "3f1c2b7e-0000-4000-8000-" + String.format("%012d", i))
+                    .claim("role", "RESTAURANT")
+                    .claim("email", "owner" + i + "@foodfast.vn")
+                    .setIssuedAt(new Date())
+                    .setExpiration(expiration)
+                    .signWith(key)
+                    .compact();
+        }
+
+        parseOnceJwtUtil = new JwtUtil(SECRET, 0, 900_000, new SimpleMeterRegistry());
+        cachedJwtUtil = new JwtUtil(SECRET, 10_000, 900_000, new SimpleMeterRegistry());
+        System.out.printf("%nToken: %d chars%n", tokens[0].length());
+    }
+
+    @Benchmark
+    public void legacy(Cursor cursor, Blackhole blackhole) {
+        String token = nextToken(cursor);
+        if (legacyValidate(token)) {
+            String userId = legacyParse(token).get("id", String.class);
+            blackhole.consume(userId != null ? userId : legacyParse(token).getSubject());
+            blackhole.consume(legacyParse(token).get("role", String.class));
+        }
+    }
+
+    @Benchmark
+    public JwtPrincipal parseOnce(Cursor cursor) {
+        return parseOnceJwtUtil.verify(nextToken(cursor));
+    }
+
+    @Benchmark
+    public JwtPrincipal cached(Cursor cursor) {
+        return cachedJwtUtil.verify(nextToken(cursor));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public JwtPrincipal cachedContended(Cursor cursor) {
+        return cachedJwtUtil.verify(nextToken(cursor));
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private String nextToken(Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = index + 1 == tokens.length ? 0 : index + 1;
+        return tokens[index];
+    }
+
+    /**
+     * Bản sao JwtUtil.extractAllClaims cũ: key + parser mới cho mỗi lần gọi
+     */
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static boolean legacyValidate(String token) {
+        try {
+            legacyParse(token);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.programming.droneservice.benchmark;
+
+import com.programming.eventstream.KeyOrderedExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thông lượng handler inbound với 10.000 session telemetry đồng thời (KeyOrderedExecutor)
+ *
+ * Mỗi session gửi MESSAGES_PER_SESSION message; handler chặn blockingMicros để giả lập
+ * một round-trip JPA/Redis. So sánh virtual thread với pool platform thread mặc định (16).
+ * Kết quả: ops/s = message/s. Thứ tự trong từng session được kiểm tra, vi phạm → benchmark lỗi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class TelemetrySessionLoadBenchmark {
+
+    private static final int SESSIONS = 10_000;
+    private static final int MESSAGES_PER_SESSION = 2;
+
+    @Param({"virtual", "platform"})
+    private String threads;
+
+    @Param({"2000"})
+    private long blockingMicros;
+
+    private KeyOrderedExecutor executor;
+    private long[] lastSequence;
+    private final AtomicLong orderViolations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new KeyOrderedExecutor("load", "virtual".equals(threads), 16);
+        lastSequence = new long[SESSIONS];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        if (orderViolations.get() > 0) {
+            throw new IllegalStateException(orderViolations.get() + " messages processed out of order");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSIONS * MESSAGES_PER_SESSION)
+    public void telemetrySessions() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(SESSIONS * MESSAGES_PER_SESSION);
+        long base = lastSequence[0];
+        for (int m = 1; m <= MESSAGES_PER_SESSION; m++) {
+            long sequence = base + m;
+            for (int session = 0; session < SESSIONS; session++) {
+                int key = session;
+                executor.execute(key, () -> {
+                    LockSupport.parkNanos(blockingMicros * 1000);
+                    // Chỉ một task của mỗi session chạy tại một thời điểm
+                    if (lastSequence[key] != sequence - 1) {
+                        orderViolations.incrementAndGet();
+                    }
+                    lastSequence[key] = sequence;
+                    done.countDown();
+                });
+            }
+        }
+        done.await();
+    }
+}
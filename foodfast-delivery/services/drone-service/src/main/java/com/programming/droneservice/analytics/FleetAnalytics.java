@@ -0,0 +1,316 @@
+package com.programming.droneservice.analytics;
+
+import com.programming.droneservice.dto.FleetAnalyticsDto;
+import com.programming.droneservice.fleet.DroneState;
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.model.FleetAnalyticsCheckpoint;
+import com.programming.droneservice.repository.FleetAnalyticsCheckpointRepository;
+import com.programming.droneservice.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thống kê fleet được cập nhật dồn theo từng chuyển trạng thái, đọc từ bộ nhớ
+ *
+ * - Số drone theo trạng thái / nhà hàng: FleetStateCache báo mọi thay đổi (previous → state);
+ *   GPS update không đổi trạng thái nên chỉ tốn một phép so sánh
+ * - Chuyến giao xong (completeDelivery, sau commit): số chuyến theo giờ (vòng 7 ngày),
+ *   pin tiêu hao / km, sai số ETA (thời gian bay tới nơi thực tế so với estimatedDurationMinutes)
+ * - snapshot(): trả bản dựng sẵn, chỉ dựng lại khi có thay đổi hoặc sang giờ mới
+ * - Checkpoint định kỳ vào fleet_analytics_instance_checkpoints (một dòng cho mỗi instance-id),
+ *   nạp lại dòng của mình khi khởi động
+ *
+ * Nhiều instance: mỗi completeDelivery chỉ chạy trên một instance nên mỗi instance chỉ đếm chuyến của nó;
+ * snapshot() cộng số liệu của instance này với checkpoint của các instance khác (đọc lại sau mỗi checkpoint)
+ * → mọi replica trả cùng tổng, chậm tối đa analytics.checkpoint-interval-ms với chuyến giao ở instance khác.
+ * websocket.cluster.instance-id phải khác nhau giữa các instance đang chạy (mặc định HOSTNAME).
+ */
+@Component
+@Slf4j
+public class FleetAnalytics {
+
+    private static final int HOURS_KEPT = 24 * 7;
+    private static final int HOURS_REPORTED = 24;
+    private static final long MILLIS_PER_HOUR = Duration.ofHours(1).toMillis();
+    private static final String UNASSIGNED_RESTAURANT = "UNASSIGNED";
+    private static final int STATUS_COUNT = DroneStatus.values().length;
+
+    private final FleetAnalyticsCheckpointRepository checkpointRepository;
+    private final String instanceId;
+
+    // restaurantId → số drone active theo DroneStatus.ordinal()
+    private final Map<String, AtomicIntegerArray> dronesByRestaurant = new ConcurrentHashMap<>();
+
+    // Các tổng giao hàng, ghi dưới lock của this
+    private long totalDeliveries;
+    private double totalDistanceKm;
+    private double totalBatteryConsumed;
+    private double etaErrorSumMinutes;
+    private double etaAbsErrorSumMinutes;
+    private long etaSamples;
+    private final long[] hourKeys = new long[HOURS_KEPT];
+    private final long[] hourCounts = new long[HOURS_KEPT];
+
+    // Tổng checkpoint của các instance khác, thay sau mỗi checkpoint()
+    private volatile Totals others = Totals.EMPTY;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile CachedSnapshot cached;
+
+    public FleetAnalytics(
+            FleetAnalyticsCheckpointRepository checkpointRepository,
+            @Value("${websocket.cluster.instance-id:}") String instanceId
+    ) {
+        this.checkpointRepository = checkpointRepository;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+    }
+
+    /**
+     * Nạp checkpoint gần nhất của instance này + tổng của các instance khác
+     * (số drone theo trạng thái được dựng lại khi FleetStateCache nạp fleet)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        try {
+            refreshOthers();
+        } catch (Exception e) {
+            log.warn("Failed to load fleet analytics of other instances: {}", e.getMessage());
+        }
+        checkpointRepository.findById(instanceId).ifPresent(checkpoint -> {
+            synchronized (this) {
+                totalDeliveries = checkpoint.getTotalDeliveries();
+                totalDistanceKm = checkpoint.getTotalDistanceKm();
+                totalBatteryConsumed = checkpoint.getTotalBatteryConsumed();
+                etaErrorSumMinutes = checkpoint.getEtaErrorSumMinutes();
+                etaAbsErrorSumMinutes = checkpoint.getEtaAbsErrorSumMinutes();
+                etaSamples = checkpoint.getEtaSamples();
+                long currentHour = System.currentTimeMillis() / MILLIS_PER_HOUR;
+                checkpoint.getHourlyDeliveries().forEach((hour, count) -> {
+                    if (currentHour - hour < HOURS_KEPT) {
+                        int slot = (int) (hour % HOURS_KEPT);
+                        hourKeys[slot] = hour;
+                        hourCounts[slot] = count;
+                    }
+                });
+            }
+            version.incrementAndGet();
+            log.info("Fleet analytics restored from checkpoint at {} ({} deliveries)",
+                    checkpoint.getUpdatedAt(), checkpoint.getTotalDeliveries());
+        });
+    }
+
+    /**
+     * Gọi trong FleetStateCache.update (tuần tự theo từng drone)
+     */
+    public void onStateChange(DroneState previous, DroneState state) {
+        if (previous != null && state != null && previous.active() == state.active()
+                && previous.status() == state.status() && Objects.equals(previous.restaurantId(), state.restaurantId())) {
+            return;
+        }
+        if (previous != null && previous.active() && previous.status() != null) {
+            counts(previous.restaurantId()).decrementAndGet(previous.status().ordinal());
+        }
+        if (state != null && state.active() && state.status() != null) {
+            counts(state.restaurantId()).incrementAndGet(state.status().ordinal());
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Ghi nhận chuyến giao xong sau khi transaction completeDelivery commit
+     */
+    public void recordDeliveryAfterCommit(DeliveryLog deliveryLog) {
+        Double distanceKm = deliveryLog.getActualDistanceKm();
+        Double batteryConsumed = deliveryLog.getBatteryConsumedPercent();
+        Integer estimatedMinutes = deliveryLog.getEstimatedDurationMinutes();
+        LocalDateTime arrivedAt = deliveryLog.getArrivalTime() != null ? deliveryLog.getArrivalTime() : deliveryLog.getEndTime();
+        Double actualMinutes = deliveryLog.getStartTime() != null && arrivedAt != null
+                ? Duration.between(deliveryLog.getStartTime(), arrivedAt).toMillis() / 60000.0
+                : null;
+        TransactionUtil.afterCommit(() -> recordDelivery(distanceKm, batteryConsumed, estimatedMinutes, actualMinutes));
+    }
+
+    /**
+     * Bản thống kê dựng sẵn (O(1) khi không có thay đổi)
+     */
+    public FleetAnalyticsDto snapshot() {
+        long currentVersion = version.get();
+        long currentHour = System.currentTimeMillis() / MILLIS_PER_HOUR;
+        CachedSnapshot snapshot = cached;
+        if (snapshot == null || snapshot.version != currentVersion || snapshot.hour != currentHour) {
+            snapshot = new CachedSnapshot(currentVersion, currentHour, build(currentHour));
+            cached = snapshot;
+        }
+        return snapshot.dto;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        FleetAnalyticsCheckpoint checkpoint;
+        synchronized (this) {
+            Map<Long, Long> hourly = new HashMap<>();
+            for (int slot = 0; slot < HOURS_KEPT; slot++) {
+                if (hourCounts[slot] > 0) {
+                    hourly.put(hourKeys[slot], hourCounts[slot]);
+                }
+            }
+            checkpoint = FleetAnalyticsCheckpoint.builder()
+                    .instanceId(instanceId)
+                    .totalDeliveries(totalDeliveries)
+                    .totalDistanceKm(totalDistanceKm)
+                    .totalBatteryConsumed(totalBatteryConsumed)
+                    .etaErrorSumMinutes(etaErrorSumMinutes)
+                    .etaAbsErrorSumMinutes(etaAbsErrorSumMinutes)
+                    .etaSamples(etaSamples)
+                    .hourlyDeliveries(hourly)
+                    .updatedAt(LocalDateTime.now())
+                    .build();
+        }
+        try {
+            checkpointRepository.save(checkpoint);
+            refreshOthers();
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint fleet analytics: {}", e.getMessage());
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void refreshOthers() {
+        long oldestHour = System.currentTimeMillis() / MILLIS_PER_HOUR - HOURS_KEPT + 1;
+        Totals totals = Totals.EMPTY;
+        for (FleetAnalyticsCheckpoint checkpoint : checkpointRepository.findByInstanceIdNot(instanceId)) {
+            totals = totals.plus(checkpoint, oldestHour);
+        }
+        if (!totals.equals(others)) {
+            others = totals;
+            version.incrementAndGet();
+        }
+    }
+
+    private AtomicIntegerArray counts(String restaurantId) {
+        return dronesByRestaurant.computeIfAbsent(restaurantId != null ? restaurantId : UNASSIGNED_RESTAURANT,
+                id -> new AtomicIntegerArray(STATUS_COUNT));
+    }
+
+    private synchronized void recordDelivery(Double distanceKm, Double batteryConsumed,
+                                             Integer estimatedMinutes, Double actualMinutes) {
+        totalDeliveries++;
+        if (distanceKm != null && distanceKm > 0 && batteryConsumed != null) {
+            totalDistanceKm += distanceKm;
+            totalBatteryConsumed += batteryConsumed;
+        }
+        if (estimatedMinutes != null && actualMinutes != null) {
+            double error = actualMinutes - estimatedMinutes;
+            etaErrorSumMinutes += error;
+            etaAbsErrorSumMinutes += Math.abs(error);
+            etaSamples++;
+        }
+        long hour = System.currentTimeMillis() / MILLIS_PER_HOUR;
+        int slot = (int) (hour % HOURS_KEPT);
+        if (hourKeys[slot] != hour) {
+            hourKeys[slot] = hour;
+            hourCounts[slot] = 0;
+        }
+        hourCounts[slot]++;
+        version.incrementAndGet();
+    }
+
+    private synchronized FleetAnalyticsDto build(long currentHour) {
+        Map<String, Map<DroneStatus, Integer>> byRestaurant = new TreeMap<>();
+        Map<DroneStatus, Integer> byStatus = new EnumMap<>(DroneStatus.class);
+        for (DroneStatus status : DroneStatus.values()) {
+            byStatus.put(status, 0);
+        }
+        dronesByRestaurant.forEach((restaurantId, counts) -> {
+            Map<DroneStatus, Integer> restaurantCounts = new EnumMap<>(DroneStatus.class);
+            for (DroneStatus status : DroneStatus.values()) {
+                int count = counts.get(status.ordinal());
+                if (count > 0) {
+                    restaurantCounts.put(status, count);
+                    byStatus.merge(status, count, Integer::sum);
+                }
+            }
+            if (!restaurantCounts.isEmpty()) {
+                byRestaurant.put(restaurantId, restaurantCounts);
+            }
+        });
+
+        Totals remote = others;
+        List<FleetAnalyticsDto.HourlyDeliveries> hourly = new ArrayList<>(HOURS_REPORTED);
+        for (long hour = currentHour - HOURS_REPORTED + 1; hour <= currentHour; hour++) {
+            int slot = (int) (hour % HOURS_KEPT);
+            long count = (hourKeys[slot] == hour ? hourCounts[slot] : 0) + remote.hourly().getOrDefault(hour, 0L);
+            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(hour * MILLIS_PER_HOUR), ZoneId.systemDefault());
+            hourly.add(new FleetAnalyticsDto.HourlyDeliveries(start, count));
+        }
+
+        double distanceKm = totalDistanceKm + remote.distanceKm();
+        double batteryConsumed = totalBatteryConsumed + remote.batteryConsumed();
+        long samples = etaSamples + remote.etaSamples();
+        return FleetAnalyticsDto.builder()
+                .dronesByRestaurant(byRestaurant)
+                .dronesByStatus(byStatus)
+                .totalDeliveries(totalDeliveries + remote.deliveries())
+                .deliveriesPerHour(hourly)
+                .avgBatteryPerKm(distanceKm > 0 ? batteryConsumed / distanceKm : null)
+                .avgEtaErrorMinutes(samples > 0 ? (etaErrorSumMinutes + remote.etaErrorSumMinutes()) / samples : null)
+                .avgAbsEtaErrorMinutes(samples > 0 ? (etaAbsErrorSumMinutes + remote.etaAbsErrorSumMinutes()) / samples : null)
+                .etaSamples(samples)
+                .generatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private record CachedSnapshot(long version, long hour, FleetAnalyticsDto dto) {
+    }
+
+    /**
+     * Tổng cộng dồn các checkpoint (hourly: epoch hour → số chuyến, chỉ các giờ còn trong cửa sổ)
+     */
+    private record Totals(long deliveries, double distanceKm, double batteryConsumed, double etaErrorSumMinutes,
+                          double etaAbsErrorSumMinutes, long etaSamples, Map<Long, Long> hourly) {
+
+        static final Totals EMPTY = new Totals(0, 0, 0, 0, 0, 0, Map.of());
+
+        Totals plus(FleetAnalyticsCheckpoint checkpoint, long oldestHour) {
+            Map<Long, Long> mergedHourly = new HashMap<>(hourly);
+            if (checkpoint.getHourlyDeliveries() != null) {
+                checkpoint.getHourlyDeliveries().forEach((hour, count) -> {
+                    if (hour >= oldestHour) {
+                        mergedHourly.merge(hour, count, Long::sum);
+                    }
+                });
+            }
+            return new Totals(
+                    deliveries + checkpoint.getTotalDeliveries(),
+                    distanceKm + checkpoint.getTotalDistanceKm(),
+                    batteryConsumed + checkpoint.getTotalBatteryConsumed(),
+                    etaErrorSumMinutes + checkpoint.getEtaErrorSumMinutes(),
+                    etaAbsErrorSumMinutes + checkpoint.getEtaAbsErrorSumMinutes(),
+                    etaSamples + checkpoint.getEtaSamples(),
+                    mergedHourly);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.programming.droneservice.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Quản lý partition theo tháng của delivery_logs và lưu trữ chuyến bay cũ
+ *
+ * - Khởi động: bảng thường (do Hibernate tạo) được chuyển một lần sang bảng partition RANGE (created_at),
+ *   PK (id, created_at), id lấy từ sequence delivery_logs_pk_seq (Postgres 16 chưa hỗ trợ identity trên bảng partition)
+ * - Mỗi lần khởi động: tạo các index còn thiếu trên bảng partition (index mới thêm vào PARENT_INDEX_DDL)
+ * - Hằng ngày: tạo trước partition cho months-ahead tháng tới; partition default chỉ hứng dữ liệu lệch giờ
+ * - Partition đã kết thúc quá archive-after-days ngày và không còn chuyến bay đang diễn ra được DETACH,
+ *   chuyển sang delivery_logs_archive (mỗi dòng một JSON nén gzip, route_data giữ nguyên) rồi DROP
+ *
+ * Mọi thao tác DDL chạy dưới advisory lock → an toàn khi nhiều instance cùng khởi động.
+ */
+@Component
+@Slf4j
+public class DeliveryLogPartitionManager {
+
+    private static final long PARTITION_LOCK_ID = 0x7061727469L;
+    private static final String ARCHIVE_TABLE = "delivery_logs_archive";
+
+    private static final String[] ARCHIVE_DDL = {
+            "CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " ("
+                    + "id BIGINT PRIMARY KEY, order_id BIGINT NOT NULL, drone_id BIGINT, status VARCHAR(20) NOT NULL, "
+                    + "created_at TIMESTAMP NOT NULL, archived_at TIMESTAMP NOT NULL, route_data BYTEA, data BYTEA NOT NULL)",
+            // data đã nén gzip → TOAST không nén lại
+            "ALTER TABLE " + ARCHIVE_TABLE + " ALTER COLUMN data SET STORAGE EXTERNAL",
+            "CREATE INDEX IF NOT EXISTS idx_delivery_archive_order ON " + ARCHIVE_TABLE + " (order_id)",
+            "CREATE INDEX IF NOT EXISTS idx_delivery_archive_drone ON " + ARCHIVE_TABLE + " (drone_id, created_at)"
+    };
+
+    // PK/FK giống @Table của DeliveryLog, tạo lại trên bảng partition (chỉ lúc chuyển đổi)
+    private static final String[] PARENT_CONSTRAINT_DDL = {
+            "ALTER TABLE delivery_logs ADD PRIMARY KEY (id, created_at)",
+            "ALTER TABLE delivery_logs ADD CONSTRAINT fk_delivery_log_drone "
+                    + "FOREIGN KEY (drone_id) REFERENCES drones(id) ON DELETE SET NULL"
+    };
+
+    // Index trên bảng partition (Postgres tự tạo trên từng partition); IF NOT EXISTS → chạy lại mỗi lần khởi động
+    private static final String[] PARENT_INDEX_DDL = {
+            "CREATE INDEX IF NOT EXISTS idx_delivery_order ON delivery_logs (order_id)",
+            "CREATE INDEX IF NOT EXISTS idx_delivery_drone ON delivery_logs (drone_id)",
+            "CREATE INDEX IF NOT EXISTS idx_delivery_status ON delivery_logs (status)",
+            "CREATE INDEX IF NOT EXISTS idx_delivery_drone_created ON delivery_logs (drone_id, created_at, id)",
+            // Partial index: chỉ chứa các chuyến bay chờ RouteCompactor → quét batch và đếm không phải duyệt cả bảng
+            "CREATE INDEX IF NOT EXISTS idx_delivery_uncompacted ON delivery_logs (id) "
+                    + "WHERE status = 'COMPLETED' AND route_tolerance_m IS NULL"
+    };
+
+    private static final String ARCHIVE_INSERT_SQL =
+            "INSERT INTO " + ARCHIVE_TABLE + " (id, order_id, drone_id, status, created_at, archived_at, route_data, data) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int archiveAfterDays;
+    private final int archiveBatchSize;
+
+    private final Counter archivedRowsCounter;
+    private final Counter archivedPartitionsCounter;
+
+    public DeliveryLogPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${delivery-log-partitioning.enabled:true}") boolean enabled,
+            @Value("${delivery-log-partitioning.months-ahead:2}") int monthsAhead,
+            @Value("${delivery-log-partitioning.archive-after-days:180}") int archiveAfterDays,
+            @Value("${delivery-log-partitioning.archive-batch-size:500}") int archiveBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.archiveAfterDays = archiveAfterDays;
+        this.archiveBatchSize = archiveBatchSize;
+
+        this.archivedRowsCounter = meterRegistry.counter("drone.delivery.archived.rows");
+        this.archivedPartitionsCounter = meterRegistry.counter("drone.delivery.archived.partitions");
+    }
+
+    /**
+     * Chạy sau khi Hibernate cập nhật schema, trước khi service nhận request
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                for (String ddl : ARCHIVE_DDL) {
+                    jdbcTemplate.execute(ddl);
+                }
+                String relkind = jdbcTemplate.queryForObject(
+                        "SELECT COALESCE((SELECT relkind::text FROM pg_class WHERE oid = to_regclass('delivery_logs')), '')",
+                        String.class);
+                if ("r".equals(relkind)) {
+                    migrateToPartitioned();
+                }
+                ensurePartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead));
+                for (String ddl : PARENT_INDEX_DDL) {
+                    jdbcTemplate.execute(ddl);
+                }
+            });
+        } catch (Exception e) {
+            log.error("❌ Failed to initialize delivery_logs partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${delivery-log-partitioning.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                ensurePartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead));
+            });
+            archiveColdPartitions();
+        } catch (Exception e) {
+            log.error("❌ delivery_logs partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void lock() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + PARTITION_LOCK_ID + ")");
+    }
+
+    /**
+     * Chuyển một lần bảng delivery_logs thường sang bảng partition, giữ nguyên dữ liệu và id
+     */
+    private void migrateToPartitioned() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM delivery_logs", LocalDateTime.class);
+        YearMonth firstMonth = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+        log.info("Migrating delivery_logs to monthly partitions starting {}", firstMonth);
+
+        jdbcTemplate.execute("LOCK TABLE delivery_logs IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("ALTER TABLE delivery_logs RENAME TO delivery_logs_unpartitioned");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS delivery_logs_pk_seq");
+        // LIKE giữ thứ tự cột → INSERT ... SELECT * bên dưới
+        jdbcTemplate.execute("CREATE TABLE delivery_logs (LIKE delivery_logs_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS) "
+                + "PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("ALTER TABLE delivery_logs ALTER COLUMN id SET DEFAULT nextval('delivery_logs_pk_seq')");
+        jdbcTemplate.execute("ALTER SEQUENCE delivery_logs_pk_seq OWNED BY delivery_logs.id");
+
+        ensurePartitions(firstMonth, YearMonth.now().plusMonths(monthsAhead));
+        int rows = jdbcTemplate.update("INSERT INTO delivery_logs SELECT * FROM delivery_logs_unpartitioned");
+        jdbcTemplate.execute("SELECT setval('delivery_logs_pk_seq', COALESCE((SELECT MAX(id) FROM delivery_logs), 0) + 1, false)");
+
+        // Xoá bảng cũ trước: tên PK/index/FK phải được giải phóng (index được tạo lại ở initialize)
+        jdbcTemplate.execute("DROP TABLE delivery_logs_unpartitioned");
+        for (String ddl : PARENT_CONSTRAINT_DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+        log.info("✅ delivery_logs migrated to partitioned table ({} rows)", rows);
+    }
+
+    private void ensurePartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DeliveryLogPartitions.partitionName(month)
+                    + " PARTITION OF delivery_logs FOR VALUES FROM ('" + DeliveryLogPartitions.lowerBound(month)
+                    + "') TO ('" + DeliveryLogPartitions.upperBound(month) + "')");
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DeliveryLogPartitions.DEFAULT_PARTITION
+                + " PARTITION OF delivery_logs DEFAULT");
+    }
+
+    private void archiveColdPartitions() {
+        LocalDate cutoff = LocalDate.now().minusDays(archiveAfterDays);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'delivery_logs'::regclass ORDER BY c.relname", String.class);
+        for (String partition : partitions) {
+            YearMonth month = DeliveryLogPartitions.monthOf(partition);
+            if (month == null || DeliveryLogPartitions.upperBound(month).isAfter(cutoff)) {
+                continue;
+            }
+            Integer rows = transactionTemplate.execute(status -> archivePartition(partition));
+            if (rows != null && rows >= 0) {
+                archivedPartitionsCounter.increment();
+                archivedRowsCounter.increment(rows);
+                log.info("🗄️ Archived partition {} ({} delivery logs)", partition, rows);
+            }
+        }
+    }
+
+    /**
+     * @return số dòng đã chuyển, -1 nếu partition còn chuyến bay chưa kết thúc
+     */
+    private int archivePartition(String partition) {
+        lock();
+        Boolean active = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition
+                + " WHERE status NOT IN ('COMPLETED', 'FAILED', 'CANCELLED'))", Boolean.class);
+        if (Boolean.TRUE.equals(active)) {
+            log.warn("Partition {} still has unfinished flights, not archiving", partition);
+            return -1;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE delivery_logs DETACH PARTITION " + partition);
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(archiveBatchSize);
+        int[] total = {0};
+        jdbcTemplate.query("SELECT id, order_id, drone_id, status, created_at, route_data, "
+                + "(to_jsonb(p) - 'route_data')::text AS data FROM " + partition + " p", rs -> {
+            batch.add(new Object[]{
+                    rs.getLong("id"), rs.getLong("order_id"), rs.getObject("drone_id"), rs.getString("status"),
+                    rs.getTimestamp("created_at"), archivedAt, rs.getBytes("route_data"), gzip(rs.getString("data"))
+            });
+            if (batch.size() == archiveBatchSize) {
+                total[0] += batch.size();
+                jdbcTemplate.batchUpdate(ARCHIVE_INSERT_SQL, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            total[0] += batch.size();
+            jdbcTemplate.batchUpdate(ARCHIVE_INSERT_SQL, batch);
+        }
+
+        // Điểm GPS còn sót của chuyến bay chưa được RouteCompactor gộp
+        jdbcTemplate.update("DELETE FROM delivery_route_points WHERE delivery_log_id IN (SELECT id FROM " + partition + ")");
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        return total[0];
+    }
+
+    private static byte[] gzip(String json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
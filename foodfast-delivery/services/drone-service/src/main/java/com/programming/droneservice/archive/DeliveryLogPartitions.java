@@ -0,0 +1,71 @@
+package com.programming.droneservice.archive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Quy ước partition theo tháng của bảng delivery_logs (RANGE trên created_at)
+ *
+ * - Partition tháng: delivery_logs_pYYYY_MM, FROM (ngày 1 của tháng) TO (ngày 1 tháng sau)
+ * - Partition "nóng": tháng hiện tại và HOT_MONTHS - 1 tháng trước đó; query mặc định của
+ *   DeliveryLogRepository lọc created_at >= hotSince() → Postgres chỉ quét các partition này
+ * - Caller cần cả dữ liệu cũ chưa archive (lịch sử chuyến bay với includeCold) dùng since(true)
+ */
+public final class DeliveryLogPartitions {
+
+    public static final String PARENT_TABLE = "delivery_logs";
+    public static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    public static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+
+    /** Số tháng gần nhất được coi là dữ liệu nóng */
+    public static final int HOT_MONTHS = 2;
+
+    private static final LocalDateTime ALL_PARTITIONS_SINCE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private DeliveryLogPartitions() {
+    }
+
+    /**
+     * Mốc created_at nhỏ nhất của dữ liệu nóng (ngày 1 của tháng đầu tiên, 00:00)
+     */
+    public static LocalDateTime hotSince() {
+        return YearMonth.now().minusMonths(HOT_MONTHS - 1).atDay(1).atStartOfDay();
+    }
+
+    /**
+     * @param includeCold true → mọi partition còn trong bảng (chưa archive), false → chỉ partition nóng
+     */
+    public static LocalDateTime since(boolean includeCold) {
+        return includeCold ? ALL_PARTITIONS_SINCE : hotSince();
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    /**
+     * @return Tháng của partition, null nếu không phải partition tháng (vd. partition default)
+     */
+    public static YearMonth monthOf(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static LocalDate lowerBound(YearMonth month) {
+        return month.atDay(1);
+    }
+
+    public static LocalDate upperBound(YearMonth month) {
+        return month.plusMonths(1).atDay(1);
+    }
+}
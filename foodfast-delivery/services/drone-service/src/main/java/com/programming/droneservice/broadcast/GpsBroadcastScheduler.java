@@ -0,0 +1,127 @@
+package com.programming.droneservice.broadcast;
+
+import com.programming.droneservice.dto.DroneGpsUpdateDto;
+import com.programming.droneservice.dto.DronePositionDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gộp và giới hạn tần suất broadcast vị trí drone qua WebSocket
+ *
+ * - Mỗi topic chỉ giữ vị trí mới nhất; các điểm trung gian bị thay thế trước khi gửi (đếm vào metric)
+ * - Customer/restaurant: /topic/drone/{droneId}, tối đa 1 message mỗi customer-interval-ms
+ * - Admin: /topic/fleet, một message chứa mọi drone đã đổi vị trí, mỗi admin-interval-ms
+ * - Latency = thời gian từ lúc nhận GPS update tới lúc được broadcast
+ */
+@Component
+@Slf4j
+public class GpsBroadcastScheduler {
+
+    public static final String DRONE_TOPIC_PREFIX = "/topic/drone/";
+    public static final String FLEET_TOPIC = "/topic/fleet";
+
+    private final TopicBroadcaster topicBroadcaster;
+
+    private final SubscriberClass customer;
+    private final SubscriberClass admin;
+
+    public GpsBroadcastScheduler(TopicBroadcaster topicBroadcaster, MeterRegistry meterRegistry) {
+        this.topicBroadcaster = topicBroadcaster;
+        this.customer = new SubscriberClass("customer", meterRegistry);
+        this.admin = new SubscriberClass("admin", meterRegistry);
+    }
+
+    /**
+     * Nhận vị trí mới, broadcast ở lần flush kế tiếp của từng loại subscriber
+     */
+    public void submit(DroneGpsUpdateDto dto) {
+        Pending pending = new Pending(DronePositionDto.from(dto, System.currentTimeMillis()), System.nanoTime());
+        customer.offer(dto.getDroneId(), pending);
+        admin.offer(dto.getDroneId(), pending);
+    }
+
+    @Scheduled(fixedRateString = "${websocket.broadcast.customer-interval-ms:1000}")
+    public void flushCustomer() {
+        for (Long droneId : customer.pending.keySet()) {
+            Pending pending = customer.pending.remove(droneId);
+            if (pending == null) {
+                continue;
+            }
+            try {
+                topicBroadcaster.send(DRONE_TOPIC_PREFIX + droneId, pending.position());
+                customer.sent(pending);
+            } catch (Exception e) {
+                log.error("Failed to broadcast position of drone {}: {}", droneId, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${websocket.broadcast.admin-interval-ms:5000}")
+    public void flushAdmin() {
+        List<Pending> batch = new ArrayList<>(admin.pending.size());
+        for (Long droneId : admin.pending.keySet()) {
+            Pending pending = admin.pending.remove(droneId);
+            if (pending != null) {
+                batch.add(pending);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<DronePositionDto> positions = new ArrayList<>(batch.size());
+        batch.forEach(pending -> positions.add(pending.position()));
+        try {
+            topicBroadcaster.send(FLEET_TOPIC, positions);
+            batch.forEach(admin::sent);
+        } catch (Exception e) {
+            log.error("Failed to broadcast fleet positions: {}", e.getMessage());
+        }
+    }
+
+    // ========== PRIVATE CLASSES ==========
+
+    private record Pending(DronePositionDto position, long receivedNanos) {
+    }
+
+    /**
+     * Vị trí đang chờ + metric của một loại subscriber
+     */
+    private static final class SubscriberClass {
+
+        private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+        private final Counter coalescedCounter;
+        private final Counter sentCounter;
+        private final Timer latencyTimer;
+
+        SubscriberClass(String name, MeterRegistry meterRegistry) {
+            this.coalescedCounter = meterRegistry.counter("drone.ws.broadcast.coalesced", "class", name);
+            this.sentCounter = meterRegistry.counter("drone.ws.broadcast.sent", "class", name);
+            this.latencyTimer = Timer.builder("drone.ws.broadcast.latency")
+                    .tag("class", name)
+                    .description("Thời gian từ lúc nhận GPS update tới lúc broadcast")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        void offer(Long droneId, Pending update) {
+            if (pending.put(droneId, update) != null) {
+                coalescedCounter.increment();
+            }
+        }
+
+        void sent(Pending update) {
+            sentCounter.increment();
+            latencyTimer.record(System.nanoTime() - update.receivedNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
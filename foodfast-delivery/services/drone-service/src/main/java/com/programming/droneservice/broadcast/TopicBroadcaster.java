@@ -0,0 +1,240 @@
+package com.programming.droneservice.broadcast;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Điểm gửi duy nhất lên các STOMP topic, hỗ trợ chạy nhiều instance drone-service
+ *
+ * - websocket.cluster.enabled=false (mặc định): gửi thẳng vào simple broker như trước
+ * - websocket.cluster.enabled=true: message của các topic được relay (mặc định /topic/drone/, /topic/order/,
+ *   /topic/fleet) được gửi cho subscriber local rồi PUBLISH lên Redis channel "ws.broadcast:{destination}"
+ *
+ * Lọc theo subscriber local: mỗi instance chỉ SUBSCRIBE Redis channel của các destination đang có
+ * client STOMP kết nối vào chính nó, bỏ SUBSCRIBE khi subscriber cuối cùng rời đi
+ * → Redis chỉ đẩy message tới instance có người nghe.
+ *
+ * Body trên Redis: "{instanceId}\n{json}"; instance bỏ qua message do chính nó publish (đã gửi local).
+ *
+ * Chỉ relay topic; state in-memory theo drone (cache, geofence, thống kê chuyến bay) được đồng bộ riêng
+ * bởi FleetStateSync trên cùng cờ websocket.cluster.enabled.
+ */
+@Component
+@Slf4j
+public class TopicBroadcaster implements MessageListener {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final boolean clusterEnabled;
+    private final String instanceId;
+    private final String channelPrefix;
+    private final List<String> relayPrefixes;
+
+    // sessionId → (subscriptionId → destination), chỉ chứa destination được relay
+    private final Map<String, Map<String, String>> sessions = new HashMap<>();
+    // destination → số subscription local
+    private final Map<String, Integer> localSubscribers = new HashMap<>();
+    // destination → Redis channel đang SUBSCRIBE
+    private final Map<String, ChannelTopic> relayedChannels = new HashMap<>();
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter publishFailedCounter;
+
+    public TopicBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            RedisTemplate<String, Object> redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.cluster.enabled:false}") boolean clusterEnabled,
+            @Value("${websocket.cluster.instance-id:}") String instanceId,
+            @Value("${websocket.cluster.channel-prefix:ws.broadcast:}") String channelPrefix,
+            @Value("${websocket.cluster.relay-prefixes:/topic/drone/,/topic/order/,/topic/fleet}") String[] relayPrefixes
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.clusterEnabled = clusterEnabled;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+        this.channelPrefix = channelPrefix;
+        this.relayPrefixes = List.of(relayPrefixes);
+
+        this.publishedCounter = meterRegistry.counter("drone.ws.cluster.published");
+        this.receivedCounter = meterRegistry.counter("drone.ws.cluster.received");
+        this.publishFailedCounter = meterRegistry.counter("drone.ws.cluster.publish.failed");
+        Gauge.builder("drone.ws.cluster.channels", this, TopicBroadcaster::relayedChannelCount)
+                .description("Số Redis channel instance này đang SUBSCRIBE")
+                .register(meterRegistry);
+
+        if (clusterEnabled) {
+            log.info("Cluster broadcast enabled: instanceId={}, relayed prefixes={}", this.instanceId, this.relayPrefixes);
+        }
+    }
+
+    /**
+     * Gửi payload lên destination cho mọi client, kể cả client kết nối vào instance khác
+     */
+    public void send(String destination, Object payload) {
+        if (!clusterEnabled || !isRelayed(destination)) {
+            messagingTemplate.convertAndSend(destination, payload);
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize broadcast for {}: {}", destination, e.getMessage());
+            return;
+        }
+
+        sendLocal(destination, json);
+        try {
+            redisTemplate.convertAndSend(channelPrefix + destination, instanceId + '\n' + json);
+            publishedCounter.increment();
+        } catch (Exception e) {
+            // Redis lỗi không chặn broadcast local
+            publishFailedCounter.increment();
+            log.warn("Failed to relay {} to other instances: {}", destination, e.getMessage());
+        }
+    }
+
+    /**
+     * Message từ instance khác qua Redis
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('\n');
+        if (separator < 0 || (separator == instanceId.length() && body.startsWith(instanceId))) {
+            return;
+        }
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        sendLocal(channel.substring(channelPrefix.length()), body.substring(separator + 1));
+        receivedCounter.increment();
+    }
+
+    // ========== STOMP SUBSCRIPTION TRACKING ==========
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (!clusterEnabled || destination == null || !isRelayed(destination)) {
+            return;
+        }
+        synchronized (this) {
+            sessions.computeIfAbsent(accessor.getSessionId(), id -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), destination);
+            if (localSubscribers.merge(destination, 1, Integer::sum) == 1) {
+                ChannelTopic topic = new ChannelTopic(channelPrefix + destination);
+                relayedChannels.put(destination, topic);
+                listenerContainer.addMessageListener(this, topic);
+            }
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (!clusterEnabled) {
+            return;
+        }
+        synchronized (this) {
+            Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (subscriptions.isEmpty()) {
+                sessions.remove(accessor.getSessionId());
+            }
+            if (destination != null) {
+                release(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (!clusterEnabled) {
+            return;
+        }
+        synchronized (this) {
+            // Disconnect có thể được phát nhiều lần cho cùng session
+            Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+            if (subscriptions != null) {
+                subscriptions.values().forEach(this::release);
+            }
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void release(String destination) {
+        Integer remaining = localSubscribers.computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            ChannelTopic topic = relayedChannels.remove(destination);
+            if (topic != null) {
+                listenerContainer.removeMessageListener(this, topic);
+            }
+        }
+    }
+
+    /**
+     * Gửi JSON đã serialize sẵn vào simple broker, không serialize lại
+     */
+    private void sendLocal(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination,
+                MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+    }
+
+    private boolean isRelayed(String destination) {
+        for (String prefix : relayPrefixes) {
+            if (destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized int relayedChannelCount() {
+        return relayedChannels.size();
+    }
+}
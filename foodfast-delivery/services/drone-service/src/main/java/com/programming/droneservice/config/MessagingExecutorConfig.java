@@ -0,0 +1,34 @@
+package com.programming.droneservice.config;
+
+import com.programming.eventstream.KeyOrderedExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Executor cho handler của Redis listener
+ *
+ * messaging.virtual-threads=true (mặc định): chạy trên virtual thread Java 21,
+ * false: pool platform thread messaging.platform-threads
+ */
+@Configuration
+public class MessagingExecutorConfig {
+
+    /**
+     * Event drone.events, tuần tự theo droneId
+     */
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor droneEventExecutor(
+            @Value("${messaging.virtual-threads:true}") boolean virtualThreads,
+            @Value("${messaging.platform-threads:16}") int platformThreads,
+            MeterRegistry meterRegistry
+    ) {
+        KeyOrderedExecutor executor = new KeyOrderedExecutor("drone-event", virtualThreads, platformThreads);
+        Gauge.builder("drone.events.active.keys", executor, KeyOrderedExecutor::activeKeys)
+                .description("Số drone đang có event chờ xử lý")
+                .register(meterRegistry);
+        return executor;
+    }
+}
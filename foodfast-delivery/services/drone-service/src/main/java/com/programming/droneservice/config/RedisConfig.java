@@ -1,5 +1,6 @@
 package com.programming.droneservice.config;
 
+import com.programming.droneservice.fleet.FleetStateSync;
 import com.programming.droneservice.listener.DroneEventListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,7 +27,8 @@ public class RedisConfig {
     @Bean
     public RedisMessageListenerContainer container(
             RedisConnectionFactory connectionFactory,
-            DroneEventListener droneEventListener
+            DroneEventListener droneEventListener,
+            FleetStateSync fleetStateSync
     ) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
@@ -34,6 +36,11 @@ public class RedisConfig {
         // ⭐️ Lắng nghe channel "drone.events"
         container.addMessageListener(droneEventListener, new PatternTopic("drone.events"));
         
+        // Nhiều instance: chuyển trạng thái drone ở instance khác → nạp lại state in-memory
+        if (fleetStateSync.isEnabled()) {
+            container.addMessageListener(fleetStateSync, fleetStateSync.topic());
+        }
+        
         return container;
     }
 }
@@ -1,7 +1,12 @@
 package com.programming.droneservice.config;
 
+import com.programming.droneservice.telemetry.DroneInboundMailbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -13,11 +18,35 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * 1. Drone (simulator) kết nối WebSocket và gửi GPS updates lên /app/drone/update
  * 2. Server nhận và broadcast lên /topic/order/{orderId}
  * 3. Customer/Restaurant subscribe /topic/order/{orderId} để nhận updates
+ *
+ * Vị trí GPS không gửi ngay mà qua GpsBroadcastScheduler (gộp + giới hạn tần suất):
+ * - /topic/drone/{droneId}: vị trí mới nhất, tối đa 1 lần mỗi websocket.broadcast.customer-interval-ms
+ * - /topic/fleet: danh sách vị trí của mọi drone đã di chuyển, mỗi websocket.broadcast.admin-interval-ms
+ *
+ * Chạy nhiều instance: bật websocket.cluster.enabled, TopicBroadcaster relay các topic qua Redis
+ *
+ * clientInboundChannel chạy trên virtual thread (messaging.virtual-threads), tối đa
+ * messaging.inbound-concurrency message cùng lúc; message của cùng một session giữ đúng thứ tự nhận
+ *
+ * Message /app/drone/** không vào executor của channel mà qua DroneInboundMailbox (hộp thư theo drone,
+ * GPS giới hạn messaging.drone-mailbox.gps-capacity, lệnh điều khiển không bị bỏ)
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private final DroneInboundMailbox droneInboundMailbox;
+    
+    @Value("${messaging.virtual-threads:true}")
+    private boolean virtualThreads;
+    
+    @Value("${messaging.inbound-concurrency:256}")
+    private int inboundConcurrency;
+    
+    @Value("${messaging.drone-mailbox.enabled:true}")
+    private boolean droneMailboxEnabled;
+    
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Kênh broadcast công khai (client subscribe)
@@ -33,5 +62,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*") // Allow all origins (including Node.js simulator)
                 .withSockJS(); // Fallback cho browser không hỗ trợ WebSocket
+        
+        // Message của một session (một drone) được xử lý lần lượt dù inbound channel chạy song song
+        registry.setPreserveReceiveOrder(true);
+    }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("stomp-inbound-");
+        executor.setCorePoolSize(inboundConcurrency);
+        executor.setMaxPoolSize(inboundConcurrency);
+        executor.setAllowCoreThreadTimeOut(true);
+        if (virtualThreads) {
+            // Handler chặn (JPA khi arrived/delivered) không giữ platform thread
+            executor.setThreadFactory(Thread.ofVirtual().name("stomp-inbound-", 0).factory());
+        }
+        registration.taskExecutor(executor);
+        
+        if (droneMailboxEnabled) {
+            // Chạy trong preSend, trước khi message được xếp vào executor ở trên
+            registration.interceptors(droneInboundMailbox);
+        }
     }
 }
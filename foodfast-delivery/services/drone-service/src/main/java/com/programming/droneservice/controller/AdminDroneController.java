@@ -1,10 +1,20 @@
 package com.programming.droneservice.controller;
 
+import com.programming.droneservice.analytics.FleetAnalytics;
 import com.programming.droneservice.dto.ApiResponseDto;
+import com.programming.droneservice.dto.CursorPageDto;
+import com.programming.droneservice.dto.DeliveryLogSummaryDto;
+import com.programming.droneservice.dto.DroneRequestSummaryDto;
+import com.programming.droneservice.dto.DroneSummaryDto;
+import com.programming.droneservice.dto.FleetAnalyticsDto;
 import com.programming.droneservice.dto.ProcessRequestDto;
-import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.dto.RouteCompactionReportDto;
+import com.programming.droneservice.model.DeliveryStatus;
 import com.programming.droneservice.model.DroneRegistrationRequest;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.model.RequestType;
 import com.programming.droneservice.service.DroneService;
+import com.programming.droneservice.telemetry.RouteCompactor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,8 +23,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controller cho Admin (ROLE_ADMIN)
  * Duyệt request đăng ký drone, quản lý toàn bộ drone
@@ -26,14 +34,22 @@ import java.util.List;
 public class AdminDroneController {
     
     private final DroneService droneService;
+    private final RouteCompactor routeCompactor;
+    private final FleetAnalytics fleetAnalytics;
     
     /**
-     * Lấy tất cả request pending
+     * Lấy request pending (cũ nhất ở trang cuối), phân trang keyset
      */
     @GetMapping("/requests/pending")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponseDto<List<DroneRegistrationRequest>>> getPendingRequests() {
-        List<DroneRegistrationRequest> requests = droneService.getPendingRequests();
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DroneRequestSummaryDto>>> getPendingRequests(
+            @RequestParam(required = false) String restaurantId,
+            @RequestParam(required = false) RequestType requestType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        CursorPageDto<DroneRequestSummaryDto> requests =
+                droneService.getPendingRequests(restaurantId, requestType, cursor, limit);
         return ResponseEntity.ok(ApiResponseDto.success("Pending requests retrieved", requests));
     }
     
@@ -73,12 +89,68 @@ public class AdminDroneController {
     }
     
     /**
-     * Xem tất cả drone trong hệ thống
+     * Xem drone trong hệ thống (lọc theo nhà hàng / trạng thái / active), phân trang keyset
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponseDto<List<Drone>>> getAllDrones() {
-        List<Drone> drones = droneService.getAllDrones();
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DroneSummaryDto>>> getAllDrones(
+            @RequestParam(required = false) String restaurantId,
+            @RequestParam(required = false) DroneStatus status,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        CursorPageDto<DroneSummaryDto> drones = droneService.getAllDrones(restaurantId, status, active, cursor, limit);
         return ResponseEntity.ok(ApiResponseDto.success("All drones retrieved", drones));
     }
+    
+    /**
+     * Lịch sử chuyến bay của một drone bất kỳ (không kèm lộ trình), phân trang keyset
+     * Mặc định chỉ 2 tháng gần nhất (partition nóng); includeCold=true → cả chuyến bay cũ chưa archive
+     */
+    @GetMapping("/{droneId}/deliveries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DeliveryLogSummaryDto>>> getDeliveryHistory(
+            @PathVariable Long droneId,
+            @RequestParam(required = false) DeliveryStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "false") Boolean includeCold
+    ) {
+        CursorPageDto<DeliveryLogSummaryDto> deliveries =
+                droneService.getDeliveryHistory(droneId, null, status, cursor, limit, includeCold);
+        return ResponseEntity.ok(ApiResponseDto.success("Delivery history retrieved", deliveries));
+    }
+    
+    /**
+     * Thống kê toàn fleet (drone theo trạng thái/nhà hàng, số chuyến theo giờ, pin/km, sai số ETA)
+     * Đọc từ bộ nhớ, không truy vấn database
+     */
+    @GetMapping("/analytics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDto<FleetAnalyticsDto>> getFleetAnalytics() {
+        return ResponseEntity.ok(ApiResponseDto.success("Fleet analytics retrieved", fleetAnalytics.snapshot()));
+    }
+    
+    /**
+     * Chạy ngay một lượt rút gọn lộ trình các chuyến bay đã hoàn thành (chạy nền)
+     */
+    @PostMapping("/routes/compaction")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDto<Void>> startRouteCompaction() {
+        if (!routeCompactor.startAsync()) {
+            return ResponseEntity.ok(ApiResponseDto.success("Route compaction is already running", null));
+        }
+        return ResponseEntity.accepted().body(ApiResponseDto.success("Route compaction started", null));
+    }
+    
+    /**
+     * Báo cáo lượt rút gọn lộ trình gần nhất (số điểm, số byte tiết kiệm được)
+     */
+    @GetMapping("/routes/compaction")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponseDto<RouteCompactionReportDto>> getRouteCompactionReport() {
+        return ResponseEntity.ok(ApiResponseDto.success("Route compaction report retrieved",
+                routeCompactor.getLastReport()));
+    }
 }
@@ -1,12 +1,13 @@
 package com.programming.droneservice.controller;
 
+import com.programming.droneservice.broadcast.GpsBroadcastScheduler;
+import com.programming.droneservice.broadcast.TopicBroadcaster;
 import com.programming.droneservice.dto.DroneGpsUpdateDto;
 import com.programming.droneservice.service.DroneService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
 import java.util.HashMap;
@@ -22,7 +23,8 @@ import java.util.Map;
 public class DroneWebSocketController {
     
     private final DroneService droneService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final TopicBroadcaster topicBroadcaster;
+    private final GpsBroadcastScheduler gpsBroadcastScheduler;
     
     /**
      * Nhận GPS update từ drone
@@ -39,22 +41,10 @@ public class DroneWebSocketController {
             // Lưu vào database
             droneService.updateDroneGps(dto);
             
-            // Lấy orderId để biết gửi lên topic nào
-            // (Giả sử drone đang giao đơn hàng, ta cần query orderId)
-            // Để đơn giản, broadcast lên topic chung của drone
+            // Broadcast qua scheduler: gộp theo drone, gửi theo nhịp của từng loại subscriber
+            gpsBroadcastScheduler.submit(dto);
             
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("droneId", dto.getDroneId());
-            payload.put("lat", dto.getLat());
-            payload.put("lng", dto.getLng());
-            payload.put("batteryPercent", dto.getBatteryPercent());
-            payload.put("speedKmh", dto.getSpeedKmh());
-            payload.put("timestamp", System.currentTimeMillis());
-            
-            // Broadcast lên topic /topic/drone/{droneId}
-            messagingTemplate.convertAndSend("/topic/drone/" + dto.getDroneId(), payload);
-            
-            log.debug("Broadcasted GPS update to /topic/drone/{}", dto.getDroneId());
+            log.debug("Queued GPS broadcast for drone {}", dto.getDroneId());
             
         } catch (Exception e) {
             log.error("Error handling GPS update from drone {}: {}", dto.getDroneId(), e.getMessage());
@@ -77,7 +67,7 @@ public class DroneWebSocketController {
             response.put("droneId", droneId);
             response.put("message", "Drone has arrived at destination");
             
-            messagingTemplate.convertAndSend("/topic/drone/" + droneId, response);
+            topicBroadcaster.send("/topic/drone/" + droneId, response);
             
             log.info("Drone {} marked as arrived", droneId);
             
@@ -104,8 +94,8 @@ public class DroneWebSocketController {
             response.put("orderId", orderId);
             response.put("message", "Delivery completed successfully");
             
-            messagingTemplate.convertAndSend("/topic/drone/" + droneId, response);
-            messagingTemplate.convertAndSend("/topic/order/" + orderId, response);
+            topicBroadcaster.send("/topic/drone/" + droneId, response);
+            topicBroadcaster.send("/topic/order/" + orderId, response);
             
             log.info("Delivery completed: droneId={}, orderId={}", droneId, orderId);
             
@@ -133,7 +123,7 @@ public class DroneWebSocketController {
             response.put("status", "RETURNING");
             response.put("orderId", orderId);
 
-            messagingTemplate.convertAndSend("/topic/drone/" + droneId, response);
+            topicBroadcaster.send("/topic/drone/" + droneId, response);
             log.info("✅ Broadcasted drone return status");
         } catch (Exception e) {
             log.error("Error handling drone return event: {}", e.getMessage());
@@ -1,7 +1,11 @@
 package com.programming.droneservice.controller;
 
 import com.programming.droneservice.dto.ApiResponseDto;
+import com.programming.droneservice.dispatch.DispatchEngine;
 import com.programming.droneservice.dto.AssignOrderRequestDto;
+import com.programming.droneservice.dto.DispatchRequestDto;
+import com.programming.droneservice.dto.FlightStatsDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
 import com.programming.droneservice.model.DeliveryLog;
 import com.programming.droneservice.model.Drone;
 import com.programming.droneservice.service.DroneService;
@@ -11,6 +15,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Controller cho Internal APIs
  * Không cần authentication (gọi từ order-service qua Feign)
@@ -22,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 public class InternalDroneController {
     
     private final DroneService droneService;
+    private final DispatchEngine dispatchEngine;
     
     /**
      * Gán đơn hàng cho drone
@@ -34,6 +41,47 @@ public class InternalDroneController {
         return ResponseEntity.ok(ApiResponseDto.success("Order assigned to drone", drone));
     }
     
+    /**
+     * Đưa đơn hàng vào hàng chờ dispatch tự động
+     * DispatchEngine sẽ chọn drone và publish DRONE_ASSIGNED khi gán xong
+     */
+    @PostMapping("/dispatch/requests")
+    public ResponseEntity<ApiResponseDto<Void>> requestDispatch(@Valid @RequestBody DispatchRequestDto dto) {
+        log.info("Received dispatch request: orderId={}, restaurantId={}", dto.getOrderId(), dto.getRestaurantId());
+        dispatchEngine.submit(dto);
+        return ResponseEntity.ok(ApiResponseDto.success("Order queued for dispatch", null));
+    }
+    
+    /**
+     * Hủy đơn khỏi hàng chờ dispatch (nếu chưa được gán)
+     */
+    @DeleteMapping("/dispatch/requests/{orderId}")
+    public ResponseEntity<ApiResponseDto<Void>> cancelDispatch(@PathVariable Long orderId) {
+        if (!dispatchEngine.cancel(orderId)) {
+            return ResponseEntity.status(404).body(ApiResponseDto.error("Order is not pending dispatch"));
+        }
+        return ResponseEntity.ok(ApiResponseDto.success("Dispatch request cancelled", null));
+    }
+    
+    /**
+     * Tìm k drone IDLE gần điểm giao nhất (trong bán kính radiusKm, pin ≥ minBattery)
+     * Đọc từ spatial index in-memory, không quét bảng drones
+     */
+    @GetMapping("/drones/nearest")
+    public ResponseEntity<ApiResponseDto<List<NearbyDroneDto>>> findNearestDrones(
+            @RequestParam Double lat,
+            @RequestParam Double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false, defaultValue = "80.0") Double minBattery,
+            @RequestParam(required = false, defaultValue = "5") Integer limit,
+            @RequestParam(required = false) String restaurantId
+    ) {
+        List<NearbyDroneDto> drones = droneService.findNearestAvailableDrones(
+                lat, lng, radiusKm, minBattery, limit, restaurantId
+        );
+        return ResponseEntity.ok(ApiResponseDto.success("Nearest drones retrieved", drones));
+    }
+    
     /**
      * Lấy delivery log theo orderId
      * Để customer/restaurant theo dõi tiến trình
@@ -44,6 +92,16 @@ public class InternalDroneController {
         return ResponseEntity.ok(ApiResponseDto.success("Delivery log retrieved", log));
     }
     
+    /**
+     * Thống kê chuyến bay theo orderId (quãng đường, tốc độ, độ dốc pin, thời gian bay)
+     * Đang giao: đọc từ bộ nhớ, không duyệt lại route
+     */
+    @GetMapping("/delivery-logs/order/{orderId}/stats")
+    public ResponseEntity<ApiResponseDto<FlightStatsDto>> getFlightStats(@PathVariable Long orderId) {
+        FlightStatsDto stats = droneService.getFlightStats(orderId);
+        return ResponseEntity.ok(ApiResponseDto.success("Flight stats retrieved", stats));
+    }
+    
     /**
      * Đánh dấu drone đã đến nơi
      */
@@ -1,9 +1,17 @@
 package com.programming.droneservice.controller;
 
 import com.programming.droneservice.dto.ApiResponseDto;
+import com.programming.droneservice.dto.CursorPageDto;
+import com.programming.droneservice.dto.DeliveryLogSummaryDto;
 import com.programming.droneservice.dto.DroneRegistrationRequestDto;
+import com.programming.droneservice.dto.DroneRequestSummaryDto;
+import com.programming.droneservice.dto.DroneSummaryDto;
+import com.programming.droneservice.model.DeliveryStatus;
 import com.programming.droneservice.model.Drone;
 import com.programming.droneservice.model.DroneRegistrationRequest;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.model.RequestStatus;
+import com.programming.droneservice.model.RequestType;
 import com.programming.droneservice.security.JwtUtil;
 import com.programming.droneservice.service.DroneService;
 import jakarta.validation.Valid;
@@ -30,16 +38,21 @@ public class RestaurantDroneController {
     private final JwtUtil jwtUtil;
     
     /**
-     * Lấy tất cả drone của nhà hàng mình
+     * Lấy drone của nhà hàng mình (phân trang keyset: gửi lại nextCursor qua ?cursor= để lấy trang sau)
      */
     @GetMapping("/my-restaurant")
     @PreAuthorize("hasRole('RESTAURANT')")
-    public ResponseEntity<ApiResponseDto<List<Drone>>> getMyDrones(Authentication auth) {
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DroneSummaryDto>>> getMyDrones(
+            @RequestParam(required = false) DroneStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication auth
+    ) {
         if (auth == null || auth.getName() == null) {
             throw new RuntimeException("Authentication required. Please login as RESTAURANT.");
         }
         String ownerId = auth.getName(); // userId từ JWT
-        List<Drone> drones = droneService.getMyDrones(ownerId);
+        CursorPageDto<DroneSummaryDto> drones = droneService.getMyDrones(ownerId, status, cursor, limit);
         return ResponseEntity.ok(ApiResponseDto.success("Drones retrieved successfully", drones));
     }
     
@@ -49,9 +62,10 @@ public class RestaurantDroneController {
      */
     @GetMapping("/my-restaurant/available")
     @PreAuthorize("hasRole('RESTAURANT')")
-    public ResponseEntity<ApiResponseDto<List<Drone>>> getAvailableDrones(
+    public ResponseEntity<ApiResponseDto<List<DroneSummaryDto>>> getAvailableDrones(
             @RequestParam String restaurantId,
             @RequestParam(required = false, defaultValue = "80.0") Double minBattery,
+            @RequestParam(required = false) Integer limit,
             Authentication auth
     ) {
         if (auth == null || auth.getName() == null) {
@@ -60,19 +74,35 @@ public class RestaurantDroneController {
         String ownerId = auth.getName();
         
         // Kiểm tra xem restaurantId có phải của ownerId này không
-        List<Drone> myDrones = droneService.getMyDrones(ownerId);
-        boolean ownsRestaurant = myDrones.stream()
-                .anyMatch(d -> d.getRestaurantId().equals(restaurantId));
-        
-        if (!ownsRestaurant) {
+        if (!droneService.ownsRestaurant(ownerId, restaurantId)) {
             return ResponseEntity.status(403)
                     .body(ApiResponseDto.error("You don't own this restaurant"));
         }
         
-        List<Drone> availableDrones = droneService.getAvailableDrones(restaurantId, minBattery);
+        List<DroneSummaryDto> availableDrones = droneService.getAvailableDrones(restaurantId, minBattery, limit);
         return ResponseEntity.ok(ApiResponseDto.success("Available drones retrieved", availableDrones));
     }
     
+    /**
+     * Lịch sử chuyến bay của drone (không kèm lộ trình), phân trang keyset
+     * Mặc định chỉ 2 tháng gần nhất (partition nóng); includeCold=true → cả chuyến bay cũ chưa archive
+     */
+    @GetMapping("/{droneId}/deliveries")
+    @PreAuthorize("hasRole('RESTAURANT')")
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DeliveryLogSummaryDto>>> getDeliveryHistory(
+            @PathVariable Long droneId,
+            @RequestParam(required = false) DeliveryStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "false") Boolean includeCold,
+            Authentication auth
+    ) {
+        String ownerId = auth.getName();
+        CursorPageDto<DeliveryLogSummaryDto> deliveries =
+                droneService.getDeliveryHistory(droneId, ownerId, status, cursor, limit, includeCold);
+        return ResponseEntity.ok(ApiResponseDto.success("Delivery history retrieved", deliveries));
+    }
+    
     /**
      * Đánh dấu drone đang bảo trì
      */
@@ -143,12 +173,16 @@ public class RestaurantDroneController {
     }
     
     /**
-     * Xem lịch sử request của nhà hàng
+     * Xem lịch sử request của nhà hàng, phân trang keyset
      */
     @GetMapping("/registration-requests/my-restaurant")
     @PreAuthorize("hasRole('RESTAURANT')")
-    public ResponseEntity<ApiResponseDto<List<DroneRegistrationRequest>>> getMyRequests(
+    public ResponseEntity<ApiResponseDto<CursorPageDto<DroneRequestSummaryDto>>> getMyRequests(
             @RequestParam String restaurantId,
+            @RequestParam(required = false) RequestStatus status,
+            @RequestParam(required = false) RequestType requestType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication auth
     ) {
         if (auth == null || auth.getName() == null) {
@@ -156,17 +190,14 @@ public class RestaurantDroneController {
         }
         String ownerId = auth.getName();
         
-        // Verify ownership
-        List<Drone> myDrones = droneService.getMyDrones(ownerId);
-        boolean ownsRestaurant = myDrones.stream()
-                .anyMatch(d -> d.getRestaurantId().equals(restaurantId));
-        
-        if (!ownsRestaurant && !myDrones.isEmpty()) {
+        // Verify ownership (nhà hàng chưa có drone nào vẫn xem được request của mình)
+        if (!droneService.ownsRestaurant(ownerId, restaurantId) && droneService.hasDrones(ownerId)) {
             return ResponseEntity.status(403)
                     .body(ApiResponseDto.error("You don't own this restaurant"));
         }
         
-        List<DroneRegistrationRequest> requests = droneService.getMyRequests(restaurantId);
+        CursorPageDto<DroneRequestSummaryDto> requests =
+                droneService.getMyRequests(restaurantId, status, requestType, cursor, limit);
         return ResponseEntity.ok(ApiResponseDto.success("Requests retrieved", requests));
     }
 }
@@ -0,0 +1,266 @@
+package com.programming.droneservice.dispatch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.dto.AssignOrderRequestDto;
+import com.programming.droneservice.dto.DispatchRequestDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.service.DroneService;
+import com.programming.droneservice.spatial.DroneSpatialIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Dispatch tự động: gán các đơn đang chờ cho drone theo micro-batch
+ *
+ * Hàng chờ nằm trong Redis (không mất khi restart, dùng chung giữa các instance):
+ * - ZSET "drone.dispatch.pending": member = orderId, score = orderId
+ * - HASH "drone.dispatch.requests": orderId → DispatchRequestDto (JSON)
+ * Mỗi vòng chỉ một instance chạy (lock "drone.dispatch.lock", SET NX PX) → hai instance không lập kế hoạch
+ * trên cùng các drone / cùng các đơn
+ *
+ * FLOW mỗi vòng:
+ * 1. Lấy tối đa batchSize đơn chờ lâu nhất (orderId nhỏ nhất trước)
+ * 2. Ứng viên: k drone IDLE gần điểm giao nhất của mỗi đơn (DroneSpatialIndex)
+ * 3. DispatchPlanner giải bài toán gán tối ưu trên ma trận chi phí
+ * 4. Commit từng cặp qua DroneService.dispatchOrder: gán drone + DRONE_ASSIGNED vào outbox ("delivery.events",
+ *    order-service chuyển đơn sang SHIPPED) trong cùng một transaction, xong mới bỏ đơn khỏi hàng chờ;
+ *    cặp bị từ chối (drone vừa bận, lỗi ghi outbox) giữ đơn lại cho vòng sau
+ *
+ * Mỗi cặp một transaction ngắn (không gộp cả vòng): một drone vừa bị gán tay / pin tụt chỉ làm hỏng cặp đó
+ * thay vì rollback cả vòng, và không giữ connection suốt vòng.
+ *
+ * Instance dừng sau khi dispatchOrder commit nhưng trước khi bỏ đơn khỏi hàng chờ: delivery log và DRONE_ASSIGNED
+ * đã commit cùng nhau, vòng sau thấy delivery log → chỉ bỏ đơn khỏi hàng chờ (không gán lần hai, không mất event).
+ * Đơn được gán tay (assign-order từ order-service) cũng bị bỏ theo cách này; order-service tự cập nhật đơn đó.
+ */
+@Component
+@Slf4j
+public class DispatchEngine {
+
+    static final String PENDING_KEY = "drone.dispatch.pending";
+    static final String REQUESTS_KEY = "drone.dispatch.requests";
+    static final String LOCK_KEY = "drone.dispatch.lock";
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private final DroneService droneService;
+    private final DroneSpatialIndex droneSpatialIndex;
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final DispatchPlanner planner;
+
+    private final String lockOwner = UUID.randomUUID().toString();
+
+    private final double maxDistanceKm;
+    private final double minBattery;
+    private final int batchSize;
+    private final int candidatesPerOrder;
+    private final long lockMs;
+
+    private final Timer roundTimer;
+    private final Counter assignedCounter;
+    private final Counter rejectedCounter;
+
+    public DispatchEngine(
+            DroneService droneService,
+            DroneSpatialIndex droneSpatialIndex,
+            DeliveryLogRepository deliveryLogRepository,
+            RedisTemplate<String, Object> redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${delivery.max-distance-km}") double maxDistanceKm,
+            @Value("${delivery.battery-consumption-per-km}") double batteryConsumptionPerKm,
+            @Value("${dispatch.battery-weight:1.0}") double batteryWeight,
+            @Value("${dispatch.min-battery:20.0}") double minBattery,
+            @Value("${dispatch.batch-size:200}") int batchSize,
+            @Value("${dispatch.candidates-per-order:10}") int candidatesPerOrder,
+            @Value("${dispatch.lock-ms:30000}") long lockMs
+    ) {
+        this.droneService = droneService;
+        this.droneSpatialIndex = droneSpatialIndex;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.planner = new DispatchPlanner(maxDistanceKm, batteryConsumptionPerKm, batteryWeight);
+        this.maxDistanceKm = maxDistanceKm;
+        this.minBattery = minBattery;
+        this.batchSize = batchSize;
+        this.candidatesPerOrder = candidatesPerOrder;
+        this.lockMs = lockMs;
+
+        this.roundTimer = meterRegistry.timer("drone.dispatch.round");
+        this.assignedCounter = meterRegistry.counter("drone.dispatch.assigned");
+        this.rejectedCounter = meterRegistry.counter("drone.dispatch.rejected");
+        Gauge.builder("drone.dispatch.pending", this, DispatchEngine::pendingCount)
+                .description("Số đơn đang chờ dispatch tự động")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đưa đơn vào hàng chờ (gửi lại cùng orderId sẽ ghi đè)
+     */
+    public void submit(DispatchRequestDto request) {
+        String orderId = request.getOrderId().toString();
+        try {
+            redisTemplate.opsForHash().put(REQUESTS_KEY, orderId, objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize dispatch request", e);
+        }
+        redisTemplate.opsForZSet().add(PENDING_KEY, orderId, request.getOrderId());
+        log.info("Order {} queued for auto dispatch ({} pending)", request.getOrderId(), pendingCount());
+    }
+
+    public boolean cancel(Long orderId) {
+        Long removed = redisTemplate.opsForZSet().remove(PENDING_KEY, orderId.toString());
+        redisTemplate.opsForHash().delete(REQUESTS_KEY, orderId.toString());
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * Số đơn đang chờ (-1 nếu Redis không trả lời)
+     */
+    public long pendingCount() {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(PENDING_KEY);
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.interval-ms:2000}")
+    public void scheduledRound() {
+        try {
+            if (pendingCount() <= 0) {
+                return;
+            }
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, lockOwner, Duration.ofMillis(lockMs));
+            if (!Boolean.TRUE.equals(locked)) {
+                return; // Instance khác đang chạy vòng này
+            }
+            try {
+                roundTimer.record(this::runRound);
+            } finally {
+                redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(LOCK_KEY), lockOwner);
+            }
+        } catch (Exception e) {
+            log.error("Dispatch round failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chạy một vòng dispatch
+     * @return Số đơn đã được gán
+     */
+    public synchronized int runRound() {
+        List<DispatchRequestDto> orders = loadPending();
+
+        // Hợp các ứng viên của mọi đơn thành các cột của ma trận chi phí
+        Map<Long, NearbyDroneDto> candidates = new LinkedHashMap<>();
+        for (DispatchRequestDto order : orders) {
+            for (NearbyDroneDto drone : droneSpatialIndex.findNearestIdle(
+                    order.getDestinationLat(), order.getDestinationLng(),
+                    maxDistanceKm, minBattery, candidatesPerOrder, order.getRestaurantId())) {
+                candidates.putIfAbsent(drone.getDroneId(), drone);
+            }
+        }
+
+        Map<Long, Long> plan = planner.plan(orders, new ArrayList<>(candidates.values()));
+        Map<Long, DispatchRequestDto> ordersById = new HashMap<>();
+        orders.forEach(order -> ordersById.put(order.getOrderId(), order));
+
+        int assigned = 0;
+        for (Map.Entry<Long, Long> entry : plan.entrySet()) {
+            if (commit(ordersById.get(entry.getKey()), entry.getValue())) {
+                assigned++;
+            }
+        }
+        log.info("Dispatch round: {} orders, {} candidate drones, {} assigned, {} still pending",
+                orders.size(), candidates.size(), assigned, pendingCount());
+        return assigned;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Tối đa batchSize đơn có orderId nhỏ nhất; entry thiếu / hỏng JSON bị bỏ khỏi hàng chờ
+     */
+    private List<DispatchRequestDto> loadPending() {
+        Set<Object> orderIds = redisTemplate.opsForZSet().range(PENDING_KEY, 0, batchSize - 1L);
+        if (orderIds == null || orderIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> keys = new ArrayList<>(orderIds);
+        List<Object> values = redisTemplate.opsForHash().multiGet(REQUESTS_KEY, keys);
+        List<DispatchRequestDto> orders = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Object json = values.get(i);
+            try {
+                if (json != null) {
+                    orders.add(objectMapper.readValue(json.toString(), DispatchRequestDto.class));
+                    continue;
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Dropping unreadable dispatch request for order {}: {}", keys.get(i), e.getMessage());
+            }
+            remove(keys.get(i).toString());
+        }
+        return orders;
+    }
+
+    private void remove(String orderId) {
+        redisTemplate.opsForZSet().remove(PENDING_KEY, orderId);
+        redisTemplate.opsForHash().delete(REQUESTS_KEY, orderId);
+    }
+
+    private boolean commit(DispatchRequestDto order, Long droneId) {
+        if (deliveryLogRepository.existsByOrderId(order.getOrderId())) {
+            // Đã được gán (vòng trước dừng giữa chừng hoặc nhà hàng gán tay) → không gán lần hai
+            log.warn("Order {} already has a delivery, removing it from dispatch queue", order.getOrderId());
+            remove(order.getOrderId().toString());
+            return false;
+        }
+        try {
+            droneService.dispatchOrder(AssignOrderRequestDto.builder()
+                    .droneId(droneId)
+                    .orderId(order.getOrderId())
+                    .destinationLat(order.getDestinationLat())
+                    .destinationLng(order.getDestinationLng())
+                    .destinationAddress(order.getDestinationAddress())
+                    .build());
+            remove(order.getOrderId().toString());
+            assignedCounter.increment();
+            return true;
+        } catch (Exception e) {
+            // Drone đã bị gán ở nơi khác giữa lúc lập kế hoạch và commit (hoặc outbox lỗi, đã rollback) → thử lại vòng sau
+            rejectedCounter.increment();
+            log.warn("Dispatch of order {} to drone {} rejected: {}", order.getOrderId(), droneId, e.getMessage());
+            return false;
+        }
+    }
+}
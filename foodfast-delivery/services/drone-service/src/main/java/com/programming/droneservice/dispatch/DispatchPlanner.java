@@ -0,0 +1,97 @@
+package com.programming.droneservice.dispatch;
+
+import com.programming.droneservice.dto.DispatchRequestDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
+import com.programming.droneservice.util.DistanceStrategy;
+import com.programming.droneservice.util.GpsUtil;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lập kế hoạch gán đơn hàng ↔ drone cho một micro-batch
+ *
+ * Chi phí một cặp (đơn i, drone j):
+ *   distanceKm + batteryWeight × (100 − pin còn lại sau chuyến) / 100
+ * Cặp không khả thi (khác nhà hàng, quá tầm bay, không đủ pin theo GpsUtil.hasSufficientBattery,
+ * vượt tải trọng) nhận chi phí INFEASIBLE và không bao giờ được chọn.
+ */
+public class DispatchPlanner {
+
+    public static final double INFEASIBLE = 1e9;
+
+    private final double maxDistanceKm;
+    private final double batteryConsumptionPerKm;
+    private final double batteryWeight;
+
+    public DispatchPlanner(double maxDistanceKm, double batteryConsumptionPerKm, double batteryWeight) {
+        this.maxDistanceKm = maxDistanceKm;
+        this.batteryConsumptionPerKm = batteryConsumptionPerKm;
+        this.batteryWeight = batteryWeight;
+    }
+
+    /**
+     * Gán tối ưu cho cả batch
+     *
+     * @return orderId → droneId (chỉ các cặp khả thi)
+     */
+    public Map<Long, Long> plan(List<DispatchRequestDto> orders, List<NearbyDroneDto> drones) {
+        Map<Long, Long> assignments = new LinkedHashMap<>();
+        if (orders.isEmpty() || drones.isEmpty()) {
+            return assignments;
+        }
+        double[][] cost = buildCostMatrix(orders, drones);
+        int[] assignment = HungarianSolver.solve(cost);
+        for (int i = 0; i < assignment.length; i++) {
+            int j = assignment[i];
+            if (j >= 0 && cost[i][j] < INFEASIBLE) {
+                assignments.put(orders.get(i).getOrderId(), drones.get(j).getDroneId());
+            }
+        }
+        return assignments;
+    }
+
+    public double[][] buildCostMatrix(List<DispatchRequestDto> orders, List<NearbyDroneDto> drones) {
+        int m = drones.size();
+        double[] droneLats = new double[m];
+        double[] droneLngs = new double[m];
+        for (int j = 0; j < m; j++) {
+            NearbyDroneDto drone = drones.get(j);
+            // Drone chưa có vị trí → NaN, pairCost trả về INFEASIBLE trước khi dùng khoảng cách
+            droneLats[j] = drone.getLat() != null ? drone.getLat() : Double.NaN;
+            droneLngs[j] = drone.getLng() != null ? drone.getLng() : Double.NaN;
+        }
+
+        double[][] cost = new double[orders.size()][m];
+        double[] distances = new double[m];
+        for (int i = 0; i < orders.size(); i++) {
+            DispatchRequestDto order = orders.get(i);
+            // Cả hàng khoảng cách tính một lần (batch/SIMD); ứng viên nằm trong tầm bay → đủ điều kiện đo nhanh
+            DistanceStrategy.forSpan(maxDistanceKm, order.getDestinationLat()).distancesKm(
+                    order.getDestinationLat(), order.getDestinationLng(), droneLats, droneLngs, distances, m);
+            for (int j = 0; j < m; j++) {
+                cost[i][j] = pairCost(order, drones.get(j), distances[j]);
+            }
+        }
+        return cost;
+    }
+
+    private double pairCost(DispatchRequestDto order, NearbyDroneDto drone, double distance) {
+        if (!order.getRestaurantId().equals(drone.getRestaurantId())
+                || drone.getLat() == null || drone.getLng() == null || drone.getBatteryPercent() == null) {
+            return INFEASIBLE;
+        }
+        if (order.getPayloadKg() != null && drone.getMaxPayloadKg() != null
+                && order.getPayloadKg() > drone.getMaxPayloadKg()) {
+            return INFEASIBLE;
+        }
+        if (distance > maxDistanceKm
+                || !GpsUtil.hasSufficientBattery(drone.getBatteryPercent(), distance, batteryConsumptionPerKm)) {
+            return INFEASIBLE;
+        }
+        double remainingBattery = drone.getBatteryPercent()
+                - GpsUtil.calculateBatteryConsumption(distance, batteryConsumptionPerKm);
+        return distance + batteryWeight * (100.0 - remainingBattery) / 100.0;
+    }
+}
@@ -0,0 +1,120 @@
+package com.programming.droneservice.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Giải bài toán gán tối ưu (min-cost assignment) bằng thuật toán Hungarian, O(n² · m)
+ *
+ * Hàng = đơn hàng, cột = drone. Ma trận có thể không vuông:
+ * mỗi hàng được gán tối đa một cột và ngược lại.
+ */
+public final class HungarianSolver {
+
+    private HungarianSolver() {
+    }
+
+    /**
+     * @param cost cost[i][j] = chi phí gán hàng i cho cột j
+     * @return assignment[i] = cột được gán cho hàng i, -1 nếu không được gán
+     */
+    public static int[] solve(double[][] cost) {
+        int n = cost.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int m = cost[0].length;
+        if (m == 0) {
+            int[] none = new int[n];
+            Arrays.fill(none, -1);
+            return none;
+        }
+        if (n > m) {
+            // Thuật toán yêu cầu số hàng ≤ số cột → giải trên ma trận chuyển vị
+            int[] transposed = solveRowsLeqCols(transpose(cost), m, n);
+            int[] result = new int[n];
+            Arrays.fill(result, -1);
+            for (int j = 0; j < m; j++) {
+                if (transposed[j] >= 0) {
+                    result[transposed[j]] = j;
+                }
+            }
+            return result;
+        }
+        return solveRowsLeqCols(cost, n, m);
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static int[] solveRowsLeqCols(double[][] cost, int n, int m) {
+        // Thế vị u (hàng), v (cột); p[j] = hàng đang giữ cột j (1-indexed, 0 = trống)
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                double[] row = cost[i0 - 1];
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double cur = row[j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            // Đảo đường tăng
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[n];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                assignment[p[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+
+    private static double[][] transpose(double[][] cost) {
+        int n = cost.length;
+        int m = cost[0].length;
+        double[][] t = new double[m][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                t[j][i] = cost[i][j];
+            }
+        }
+        return t;
+    }
+}
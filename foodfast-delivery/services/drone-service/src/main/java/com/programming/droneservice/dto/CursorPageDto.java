@@ -0,0 +1,33 @@
+package com.programming.droneservice.dto;
+
+import com.programming.droneservice.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Một trang kết quả phân trang keyset (KeysetCursor)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;      // Gửi lại qua ?cursor= để lấy trang sau, null = hết dữ liệu
+    private Boolean hasMore;
+
+    /**
+     * @param rows Kết quả query với limit + 1 dòng (dòng thừa chỉ để biết còn trang sau hay không)
+     */
+    public static <T> CursorPageDto<T> of(List<T> rows, int limit, Function<T, KeysetCursor> keyOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? keyOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new CursorPageDto<>(items, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,32 @@
+package com.programming.droneservice.dto;
+
+import com.programming.droneservice.model.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chuyến bay trong lịch sử giao hàng của drone (projection, không kèm lộ trình)
+ * Lộ trình đầy đủ xem qua getFlightStats / getDeliveryLogByOrderId
+ * ⭐️ Thứ tự field = thứ tự tham số trong "SELECT new" của DeliveryLogRepository
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryLogSummaryDto {
+    private Long id;
+    private Long orderId;
+    private DeliveryStatus status;
+    private String destinationAddress;
+    private Double estimatedDistanceKm;
+    private Double actualDistanceKm;
+    private Double batteryConsumedPercent;
+    private LocalDateTime startTime;
+    private LocalDateTime arrivalTime;
+    private LocalDateTime endTime;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.programming.droneservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO để order-service đưa đơn hàng vào hàng chờ dispatch tự động
+ * (DispatchEngine sẽ tự chọn drone thay vì nhà hàng chọn tay)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchRequestDto {
+    
+    @NotNull(message = "Order ID is required")
+    private Long orderId;
+    
+    @NotBlank(message = "Restaurant ID is required")
+    private String restaurantId;
+    
+    @NotNull(message = "Destination latitude is required")
+    private Double destinationLat;
+    
+    @NotNull(message = "Destination longitude is required")
+    private Double destinationLng;
+    
+    private String destinationAddress;
+    
+    private Double payloadKg; // Khối lượng đơn hàng (null = không kiểm tra tải trọng)
+}
@@ -0,0 +1,33 @@
+package com.programming.droneservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vị trí drone broadcast lên WebSocket (/topic/drone/{droneId}, /topic/fleet)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DronePositionDto {
+    private Long droneId;
+    private Double lat;
+    private Double lng;
+    private Double batteryPercent;
+    private Double speedKmh;
+    private Long timestamp; // Epoch millis lúc server nhận update
+
+    public static DronePositionDto from(DroneGpsUpdateDto dto, long receivedAt) {
+        return DronePositionDto.builder()
+                .droneId(dto.getDroneId())
+                .lat(dto.getLat())
+                .lng(dto.getLng())
+                .batteryPercent(dto.getBatteryPercent())
+                .speedKmh(dto.getSpeedKmh())
+                .timestamp(receivedAt)
+                .build();
+    }
+}
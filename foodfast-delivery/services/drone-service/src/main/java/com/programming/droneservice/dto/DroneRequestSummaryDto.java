@@ -0,0 +1,38 @@
+package com.programming.droneservice.dto;
+
+import com.programming.droneservice.model.RequestStatus;
+import com.programming.droneservice.model.RequestType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Request đăng ký/xóa drone trong các API danh sách (projection)
+ * ⭐️ Thứ tự field = thứ tự tham số trong "SELECT new" của DroneRegistrationRequestRepository
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DroneRequestSummaryDto {
+    private Long id;
+    private String restaurantId;
+    private String ownerId;
+    private String restaurantName;
+    private RequestType requestType;
+    private RequestStatus status;
+    private String droneName;
+    private String droneModel;
+    private Double maxPayloadKg;
+    private Double maxSpeedKmh;
+    private Double homeLat;
+    private Double homeLng;
+    private Long droneId;
+    private String reason;
+    private String adminNote;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,35 @@
+package com.programming.droneservice.dto;
+
+import com.programming.droneservice.model.DroneStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Drone trong các API danh sách (projection, query chọn đúng các cột này)
+ * ⭐️ Thứ tự field = thứ tự tham số trong "SELECT new" của DroneRepository
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DroneSummaryDto {
+    private Long id;
+    private String restaurantId;
+    private String name;
+    private DroneStatus status;
+    private Double batteryPercent;
+    private Double currentLat;
+    private Double currentLng;
+    private Double homeLat;
+    private Double homeLng;
+    private Double maxPayloadKg;
+    private Double maxSpeedKmh;
+    private Long currentOrderId;
+    private Integer totalDeliveries;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+}
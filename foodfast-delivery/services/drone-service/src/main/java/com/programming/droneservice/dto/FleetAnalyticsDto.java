@@ -0,0 +1,38 @@
+package com.programming.droneservice.dto;
+
+import com.programming.droneservice.model.DroneStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thống kê toàn fleet cho admin (FleetAnalytics, tính dồn theo từng chuyển trạng thái)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetAnalyticsDto {
+    private Map<String, Map<DroneStatus, Integer>> dronesByRestaurant;   // Chỉ drone đang active
+    private Map<DroneStatus, Integer> dronesByStatus;
+    private Long totalDeliveries;
+    private List<HourlyDeliveries> deliveriesPerHour;                   // 24 giờ gần nhất, cũ → mới
+    private Double avgBatteryPerKm;                                     // % pin / km
+    private Double avgEtaErrorMinutes;                                  // Dương = tới muộn hơn dự kiến
+    private Double avgAbsEtaErrorMinutes;
+    private Long etaSamples;
+    private LocalDateTime generatedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HourlyDeliveries {
+        private LocalDateTime hour;
+        private Long deliveries;
+    }
+}
@@ -0,0 +1,26 @@
+package com.programming.droneservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thống kê chuyến bay (live trong lúc giao hoặc sau khi hoàn thành)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightStatsDto {
+    private Long deliveryLogId;
+    private Long orderId;
+    private Long pointCount;
+    private Double distanceKm;                      // Quãng đường đã bay
+    private Double maxSpeedKmh;
+    private Double avgSpeedKmh;
+    private Double startBatteryPercent;
+    private Double currentBatteryPercent;
+    private Double batterySlopePercentPerMinute;    // Âm = pin đang giảm
+    private Long flightTimeSeconds;                 // Từ điểm GPS đầu tiên tới điểm gần nhất
+}
@@ -0,0 +1,23 @@
+package com.programming.droneservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Kết quả truy vấn drone gần nhất (từ DroneSpatialIndex)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyDroneDto {
+    private Long droneId;
+    private String restaurantId;
+    private Double lat;
+    private Double lng;
+    private Double batteryPercent;
+    private Double maxPayloadKg;
+    private Double distanceKm; // Khoảng cách tới điểm truy vấn
+}
@@ -0,0 +1,29 @@
+package com.programming.droneservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kết quả một lần chạy RouteCompactor
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteCompactionReportDto {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;               // null = đang chạy
+    private Double toleranceMeters;
+    private Long logsCompacted;
+    private Long logsFailed;                        // Route không giải mã được, giữ nguyên
+    private Long pointsBefore;
+    private Long pointsAfter;
+    private Long bytesBefore;                       // route_data, hoặc JSON của route chưa nén
+    private Long bytesAfter;
+    private Long bytesSaved;
+    private Long remaining;                         // Chuyến bay còn chờ rút gọn khi lần chạy kết thúc
+}
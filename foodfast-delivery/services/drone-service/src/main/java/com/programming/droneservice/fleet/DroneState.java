@@ -0,0 +1,77 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.dto.NearbyDroneDto;
+import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.model.DroneStatus;
+
+import java.time.ZoneId;
+
+/**
+ * Ảnh chụp bất biến trạng thái live của một drone (xem FleetStateCache)
+ *
+ * @param deliveryLogId Chuyến bay đang diễn ra của currentOrderId (null nếu không giao đơn)
+ * @param positionUpdatedAt Epoch millis lúc nhận mẫu GPS của lat/lng (0 = chưa có GPS nào)
+ */
+public record DroneState(
+        Long droneId,
+        String restaurantId,
+        DroneStatus status,
+        boolean active,
+        Double lat,
+        Double lng,
+        Double batteryPercent,
+        Double maxPayloadKg,
+        Long currentOrderId,
+        Long deliveryLogId,
+        long positionUpdatedAt
+) {
+
+    public static DroneState of(Drone drone, Long deliveryLogId) {
+        // Vị trí chưa từng được GPS cập nhật (toạ độ home lúc duyệt) → cũ hơn mọi vị trí trong cache
+        long positionUpdatedAt = drone.getPositionUpdatedAt() != null
+                ? drone.getPositionUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0;
+        return new DroneState(
+                drone.getId(),
+                drone.getRestaurantId(),
+                drone.getStatus(),
+                Boolean.TRUE.equals(drone.getIsActive()),
+                drone.getCurrentLat(),
+                drone.getCurrentLng(),
+                drone.getBatteryPercent(),
+                drone.getMaxPayloadKg(),
+                drone.getCurrentOrderId(),
+                drone.getCurrentOrderId() != null ? deliveryLogId : null,
+                positionUpdatedAt
+        );
+    }
+
+    public DroneState withPosition(double newLat, double newLng, Double newBattery, long timestamp) {
+        return new DroneState(droneId, restaurantId, status, active, newLat, newLng,
+                newBattery != null ? newBattery : batteryPercent, maxPayloadKg,
+                currentOrderId, deliveryLogId, timestamp);
+    }
+
+    public boolean hasPosition() {
+        return lat != null && lng != null;
+    }
+
+    public boolean isAvailable(double minBattery, String restaurantFilter) {
+        return active
+                && status == DroneStatus.IDLE
+                && batteryPercent != null && batteryPercent >= minBattery
+                && (restaurantFilter == null || restaurantFilter.equals(restaurantId));
+    }
+
+    public NearbyDroneDto toNearby(double distanceKm) {
+        return NearbyDroneDto.builder()
+                .droneId(droneId)
+                .restaurantId(restaurantId)
+                .lat(lat)
+                .lng(lng)
+                .batteryPercent(batteryPercent)
+                .maxPayloadKg(maxPayloadKg)
+                .distanceKm(distanceKm)
+                .build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.exception.BadRequestException;
+import com.programming.droneservice.exception.ResourceNotFoundException;
+import com.programming.droneservice.model.Drone;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Chuyển trạng thái drone bằng compare-and-set trên Postgres
+ *
+ * - Mỗi chuyển trạng thái là MỘT câu UPDATE ... WHERE id = ? AND status IN (nguồn) [AND guard...],
+ *   dựng sẵn từ bảng DroneTransition; 0 dòng = thua race hoặc sai trạng thái
+ * - Không đọc trước rồi save cả entity → không cần SELECT FOR UPDATE, hai lượt dispatch
+ *   cùng nhắm một drone thì đúng một lượt thắng
+ * - version tăng 1 ở mỗi chuyển trạng thái (và ở mỗi lần Hibernate save entity, @Version)
+ *
+ * Chạy trong transaction của caller (JdbcTemplate dùng chung connection với JPA).
+ */
+@Component
+@Slf4j
+public class DroneStateMachine {
+
+    private static final String OWNER_SQL = "SELECT owner_id FROM drones WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    private final Map<DroneTransition, String> updateSql = new EnumMap<>(DroneTransition.class);
+    private final Map<DroneTransition, Counter> appliedCounters = new EnumMap<>(DroneTransition.class);
+    private final Map<DroneTransition, Counter> rejectedCounters = new EnumMap<>(DroneTransition.class);
+
+    public DroneStateMachine(JdbcTemplate jdbcTemplate, EntityManager entityManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        for (DroneTransition transition : DroneTransition.values()) {
+            updateSql.put(transition, buildUpdateSql(transition));
+            appliedCounters.put(transition, meterRegistry.counter("drone.state.transition",
+                    "transition", transition.name(), "outcome", "applied"));
+            rejectedCounters.put(transition, meterRegistry.counter("drone.state.transition",
+                    "transition", transition.name(), "outcome", "rejected"));
+        }
+    }
+
+    /**
+     * Thực hiện chuyển trạng thái, thất bại → exception như các API cũ
+     *
+     * @param ownerId chỉ dùng khi transition có Guard.OWNER
+     * @param orderId dùng khi có Effect.SET_ORDER / Guard.CURRENT_ORDER
+     * @return Entity drone đã nạp lại sau UPDATE
+     * @throws ResourceNotFoundException nếu drone không tồn tại
+     * @throws BadRequestException nếu drone không thoả điều kiện chuyển
+     */
+    public Drone apply(Long droneId, DroneTransition transition, String ownerId, Long orderId, double batteryConsumed) {
+        if (!tryApply(droneId, transition, ownerId, orderId, batteryConsumed)) {
+            throw rejection(droneId, transition, ownerId);
+        }
+        // Entity có thể đã nằm trong persistence context với trạng thái cũ → nạp lại
+        Drone drone = entityManager.find(Drone.class, droneId);
+        entityManager.refresh(drone);
+        return drone;
+    }
+
+    /**
+     * Một câu UPDATE có điều kiện
+     * @return false nếu không có dòng nào thoả (sai trạng thái, thua race, sai chủ, sai đơn)
+     */
+    public boolean tryApply(Long droneId, DroneTransition transition, String ownerId, Long orderId,
+                            double batteryConsumed) {
+        List<Object> args = new ArrayList<>(6);
+        args.add(transition.target().name());
+        if (transition.has(DroneTransition.Effect.SET_ORDER)) {
+            args.add(requireOrder(transition, orderId));
+        }
+        if (transition.has(DroneTransition.Effect.RECORD_DELIVERY)) {
+            args.add(batteryConsumed);
+        }
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.add(droneId);
+        if (transition.has(DroneTransition.Guard.OWNER)) {
+            if (ownerId == null) {
+                throw new IllegalArgumentException(transition + " requires ownerId");
+            }
+            args.add(ownerId);
+        }
+        if (transition.has(DroneTransition.Guard.CURRENT_ORDER)) {
+            args.add(requireOrder(transition, orderId));
+        }
+
+        boolean applied = jdbcTemplate.update(updateSql.get(transition), args.toArray()) == 1;
+        (applied ? appliedCounters : rejectedCounters).get(transition).increment();
+        if (applied) {
+            log.debug("Drone {} {} → {}", droneId, transition, transition.target());
+        }
+        return applied;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static String buildUpdateSql(DroneTransition transition) {
+        StringBuilder sql = new StringBuilder("UPDATE drones SET status = ?");
+        if (transition.has(DroneTransition.Effect.SET_ORDER)) {
+            sql.append(", current_order_id = ?");
+        }
+        if (transition.has(DroneTransition.Effect.CLEAR_ORDER)) {
+            sql.append(", current_order_id = NULL");
+        }
+        if (transition.has(DroneTransition.Effect.RECORD_DELIVERY)) {
+            sql.append(", total_deliveries = COALESCE(total_deliveries, 0) + 1")
+                    .append(", battery_percent = GREATEST(0, battery_percent - ?)");
+        }
+        sql.append(", version = version + 1, updated_at = ? WHERE id = ? AND status IN (")
+                .append(transition.sources().stream()
+                        .map(status -> "'" + status.name() + "'")
+                        .collect(Collectors.joining(", ")))
+                .append(")");
+        if (transition.has(DroneTransition.Guard.ACTIVE)) {
+            sql.append(" AND is_active = TRUE");
+        }
+        if (transition.has(DroneTransition.Guard.OWNER)) {
+            sql.append(" AND owner_id = ?");
+        }
+        if (transition.has(DroneTransition.Guard.CURRENT_ORDER)) {
+            sql.append(" AND current_order_id = ?");
+        }
+        return sql.toString();
+    }
+
+    private static Long requireOrder(DroneTransition transition, Long orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException(transition + " requires orderId");
+        }
+        return orderId;
+    }
+
+    /**
+     * Chỉ chạy khi UPDATE trượt: đọc lại để trả đúng lỗi cho client
+     */
+    private RuntimeException rejection(Long droneId, DroneTransition transition, String ownerId) {
+        List<String> owners = jdbcTemplate.queryForList(OWNER_SQL, String.class, droneId);
+        if (owners.isEmpty()) {
+            return new ResourceNotFoundException("Drone not found");
+        }
+        if (transition.has(DroneTransition.Guard.OWNER) && !owners.get(0).equals(ownerId)) {
+            return new BadRequestException("You don't own this drone");
+        }
+        return new BadRequestException(transition.rejectMessage());
+    }
+}
@@ -0,0 +1,85 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.model.DroneStatus;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static com.programming.droneservice.model.DroneStatus.*;
+
+/**
+ * Bảng chuyển trạng thái của drone (DroneStateMachine)
+ *
+ * Mỗi dòng: trạng thái đích, các trạng thái nguồn hợp lệ, điều kiện thêm (guard) và
+ * các cột đổi kèm (effect). DroneStateMachine dựng từ đó một câu UPDATE có điều kiện duy nhất.
+ */
+public enum DroneTransition {
+
+    //                 đích         guards                                   effects                                  nguồn
+    ASSIGN_ORDER(      DELIVERING,  EnumSet.of(Guard.ACTIVE),                 EnumSet.of(Effect.SET_ORDER),             "Drone is not available",
+                       IDLE),
+    START_MAINTENANCE( MAINTENANCE, EnumSet.of(Guard.OWNER),                  EnumSet.noneOf(Effect.class),             "Cannot mark drone as maintenance while delivering",
+                       IDLE, RETURNING, CHARGING, MAINTENANCE),
+    FINISH_MAINTENANCE(IDLE,        EnumSet.of(Guard.OWNER),                  EnumSet.of(Effect.CLEAR_ORDER),           "Drone is not in maintenance mode",
+                       MAINTENANCE),
+    COMPLETE_DELIVERY( IDLE,        EnumSet.of(Guard.CURRENT_ORDER),          EnumSet.of(Effect.CLEAR_ORDER, Effect.RECORD_DELIVERY), "Drone is not delivering this order",
+                       DELIVERING),
+    RETURN_TO_BASE(    IDLE,        EnumSet.noneOf(Guard.class),              EnumSet.of(Effect.CLEAR_ORDER),           "Drone is not in RETURNING status",
+                       RETURNING);
+
+    /**
+     * Điều kiện thêm trong WHERE (ngoài id và trạng thái nguồn)
+     */
+    public enum Guard {
+        ACTIVE,          // is_active = true
+        OWNER,           // owner_id = ownerId (request từ nhà hàng)
+        CURRENT_ORDER    // current_order_id = orderId (không hoàn thành nhầm/hai lần một đơn)
+    }
+
+    /**
+     * Cột đổi kèm trạng thái
+     */
+    public enum Effect {
+        SET_ORDER,       // current_order_id = orderId
+        CLEAR_ORDER,     // current_order_id = NULL
+        RECORD_DELIVERY  // total_deliveries + 1, battery_percent - batteryConsumed
+    }
+
+    private final DroneStatus target;
+    private final Set<Guard> guards;
+    private final Set<Effect> effects;
+    private final String rejectMessage;
+    private final Set<DroneStatus> sources;
+
+    DroneTransition(DroneStatus target, Set<Guard> guards, Set<Effect> effects, String rejectMessage,
+                    DroneStatus... sources) {
+        this.target = target;
+        this.guards = guards;
+        this.effects = effects;
+        this.rejectMessage = rejectMessage;
+        this.sources = EnumSet.of(sources[0], sources);
+    }
+
+    public DroneStatus target() {
+        return target;
+    }
+
+    public Set<DroneStatus> sources() {
+        return sources;
+    }
+
+    public boolean has(Guard guard) {
+        return guards.contains(guard);
+    }
+
+    public boolean has(Effect effect) {
+        return effects.contains(effect);
+    }
+
+    /**
+     * Thông báo lỗi khi drone tồn tại nhưng không thoả điều kiện chuyển
+     */
+    public String rejectMessage() {
+        return rejectMessage;
+    }
+}
@@ -0,0 +1,199 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.analytics.FleetAnalytics;
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.DeliveryStatus;
+import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.repository.DroneRepository;
+import com.programming.droneservice.spatial.DroneSpatialIndex;
+import com.programming.droneservice.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache trạng thái live của toàn bộ fleet, keyed by droneId
+ *
+ * - Nạp một lần khi service khởi động (drones + chuyến bay đang diễn ra)
+ * - GPS update chỉ đọc/ghi cache, không đọc Postgres
+ * - Mọi chuyển trạng thái trong DroneServiceImpl cập nhật cache sau khi transaction commit
+ * - Mỗi thay đổi được chuyển tiếp sang DroneSpatialIndex và FleetAnalytics
+ */
+@Component
+@Slf4j
+public class FleetStateCache {
+
+    private static final List<DeliveryStatus> ACTIVE_FLIGHT_STATUSES =
+            List.of(DeliveryStatus.PREPARING, DeliveryStatus.IN_FLIGHT, DeliveryStatus.ARRIVED);
+
+    private final DroneRepository droneRepository;
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final DroneSpatialIndex droneSpatialIndex;
+    private final FleetAnalytics fleetAnalytics;
+
+    private final Map<Long, DroneState> states = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public FleetStateCache(
+            DroneRepository droneRepository,
+            DeliveryLogRepository deliveryLogRepository,
+            DroneSpatialIndex droneSpatialIndex,
+            FleetAnalytics fleetAnalytics,
+            MeterRegistry meterRegistry
+    ) {
+        this.droneRepository = droneRepository;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.droneSpatialIndex = droneSpatialIndex;
+        this.fleetAnalytics = fleetAnalytics;
+
+        this.hitCounter = meterRegistry.counter("drone.fleet.cache.hit");
+        this.missCounter = meterRegistry.counter("drone.fleet.cache.miss");
+        Gauge.builder("drone.fleet.cache.size", states, Map::size)
+                .description("Số drone trong fleet state cache")
+                .register(meterRegistry);
+        Gauge.builder("drone.fleet.cache.staleness.max.seconds", this, FleetStateCache::maxDeliveringStalenessSeconds)
+                .description("Thời gian lâu nhất chưa nhận vị trí mới của một drone đang giao hàng")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nạp toàn bộ drone khi service khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        Map<Long, Long> deliveryLogIdByOrder = new HashMap<>();
+        for (DeliveryLog deliveryLog : deliveryLogRepository.findRecentByStatusIn(ACTIVE_FLIGHT_STATUSES)) {
+            deliveryLogIdByOrder.put(deliveryLog.getOrderId(), deliveryLog.getId());
+        }
+        List<Drone> drones = droneRepository.findAll();
+        for (Drone drone : drones) {
+            put(drone, deliveryLogIdByOrder.get(drone.getCurrentOrderId()));
+        }
+        log.info("Fleet state cache loaded with {} drones ({} active flights)",
+                drones.size(), deliveryLogIdByOrder.size());
+    }
+
+    /**
+     * Đọc trạng thái từ cache, không bao giờ chạm database (GPS hot path)
+     * @return null nếu drone không có trong cache
+     */
+    public DroneState get(Long droneId) {
+        DroneState state = states.get(droneId);
+        (state != null ? hitCounter : missCounter).increment();
+        return state;
+    }
+
+    /**
+     * Đọc trạng thái, miss → nạp từ database và đưa vào cache
+     * @return null nếu drone không tồn tại
+     */
+    public DroneState getOrLoad(Long droneId) {
+        DroneState state = get(droneId);
+        if (state != null) {
+            return state;
+        }
+        Drone drone = droneRepository.findById(droneId).orElse(null);
+        if (drone == null) {
+            return null;
+        }
+        Long deliveryLogId = drone.getCurrentOrderId() == null ? null
+                : deliveryLogRepository.findByOrderId(drone.getCurrentOrderId()).map(DeliveryLog::getId).orElse(null);
+        return put(drone, deliveryLogId);
+    }
+
+    /**
+     * Cập nhật vị trí từ GPS update (không đổi trạng thái)
+     * @return Trạng thái mới, null nếu drone không có trong cache (caller nạp bằng getOrLoad rồi gọi lại)
+     */
+    public DroneState updatePosition(Long droneId, double lat, double lng, Double batteryPercent) {
+        long now = System.currentTimeMillis();
+        DroneState state = update(droneId,
+                previous -> previous == null ? null : previous.withPosition(lat, lng, batteryPercent, now));
+        (state != null ? hitCounter : missCounter).increment();
+        return state;
+    }
+
+    /**
+     * Ghi nhận chuyển trạng thái sau khi transaction hiện tại commit
+     * (rollback → cache không bị lệch so với database)
+     * Giữ deliveryLogId đã cache nếu drone vẫn giao cùng đơn
+     */
+    public void putAfterCommit(Drone drone) {
+        TransactionUtil.afterCommit(() -> update(drone.getId(), previous -> merge(previous, drone,
+                previous != null && drone.getCurrentOrderId() != null
+                        && drone.getCurrentOrderId().equals(previous.currentOrderId())
+                        ? previous.deliveryLogId() : null)));
+    }
+
+    /**
+     * Như putAfterCommit(Drone) nhưng gắn chuyến bay mới (assignOrder)
+     */
+    public void putAfterCommit(Drone drone, Long deliveryLogId) {
+        TransactionUtil.afterCommit(() -> update(drone.getId(), previous -> merge(previous, drone, deliveryLogId)));
+    }
+
+    public DroneState put(Drone drone, Long deliveryLogId) {
+        return update(drone.getId(), previous -> merge(previous, drone, deliveryLogId));
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Chạy trong compute() nên GPS update và chuyển trạng thái cùng drone không ghi đè lẫn nhau
+     */
+    private DroneState update(Long droneId, UnaryOperator<DroneState> updater) {
+        return states.compute(droneId, (id, previous) -> {
+            DroneState state = updater.apply(previous);
+            droneSpatialIndex.move(previous, state);
+            fleetAnalytics.onStateChange(previous, state);
+            return state;
+        });
+    }
+
+    /**
+     * Trạng thái lấy từ entity; vị trí trong cache được giữ nếu mẫu GPS của nó mới hơn
+     * (entity chỉ có vị trí của lần flush GPS gần nhất, so theo position_updated_at chứ không theo updated_at
+     * vì mọi chuyển trạng thái đều đặt updated_at = now)
+     * Pin luôn lấy từ entity: là mẫu đã flush hoặc đã trừ phần tiêu hao của chuyến giao (COMPLETE_DELIVERY)
+     */
+    private static DroneState merge(DroneState previous, Drone drone, Long deliveryLogId) {
+        DroneState state = DroneState.of(drone, deliveryLogId);
+        if (previous != null && previous.hasPosition() && previous.positionUpdatedAt() >= state.positionUpdatedAt()) {
+            return new DroneState(state.droneId(), state.restaurantId(), state.status(), state.active(),
+                    previous.lat(), previous.lng(), state.batteryPercent(), state.maxPayloadKg(),
+                    state.currentOrderId(), state.deliveryLogId(), previous.positionUpdatedAt());
+        }
+        return state;
+    }
+
+    private double maxDeliveringStalenessSeconds() {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (DroneState state : states.values()) {
+            // positionUpdatedAt = 0: chưa nhận GPS nào kể từ khi duyệt
+            if (state.status() == DroneStatus.DELIVERING && state.positionUpdatedAt() > 0
+                    && state.positionUpdatedAt() < oldest) {
+                oldest = state.positionUpdatedAt();
+            }
+        }
+        return (now - oldest) / 1000.0;
+    }
+}
@@ -0,0 +1,166 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.repository.DroneRepository;
+import com.programming.droneservice.telemetry.FlightStatsTracker;
+import com.programming.droneservice.util.TransactionUtil;
+import com.programming.eventstream.KeyOrderedExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Đồng bộ state in-memory theo drone giữa các instance drone-service (websocket.cluster.enabled)
+ *
+ * GPS của một drone đi vào instance giữ session STOMP của nó, còn chuyển trạng thái (assign-order,
+ * arrived, delivered, duyệt drone...) có thể chạy ở instance khác. Sau mỗi chuyển trạng thái commit:
+ * 1. Instance thực hiện PUBLISH "{instanceId}\n{droneId}" lên Redis channel websocket.cluster.state-channel
+ * 2. Các instance còn lại nạp lại drone + chuyến bay hiện tại từ Postgres (tuần tự theo droneId, droneEventExecutor)
+ *    → FleetStateCache (deliveryLogId cho route points), GeofenceMonitor (vùng đích),
+ *    FlightStatsTracker (bỏ thống kê của chuyến bay đã kết thúc)
+ *
+ * Giới hạn:
+ * - Vị trí live chỉ có ở instance nhận GPS; instance khác thấy vị trí đã flush lúc nạp lại gần nhất
+ *   (truy vấn drone gần nhất / dispatch ở đó dùng vị trí này)
+ * - completeDelivery ở instance không giữ session tính quãng đường từ route đã lưu: các điểm còn chờ flush
+ *   ở instance giữ session (≤ telemetry.ingest.flush-interval-ms) không được tính
+ *
+ * Chỉ gửi droneId (invalidation), không gửi state: instance nhận luôn đọc bản đã commit mới nhất,
+ * message đến trễ / sai thứ tự không làm cache lệch. Mất message (Redis lỗi, như relay topic) → instance đó
+ * giữ state cũ của drone tới lần chuyển trạng thái kế tiếp hoặc tới khi khởi động lại.
+ */
+@Component
+@Slf4j
+public class FleetStateSync implements MessageListener {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final DroneRepository droneRepository;
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final FleetStateCache fleetStateCache;
+    private final GeofenceMonitor geofenceMonitor;
+    private final FlightStatsTracker flightStatsTracker;
+    private final KeyOrderedExecutor droneEventExecutor;
+
+    private final boolean enabled;
+    private final String instanceId;
+    private final String channel;
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter publishFailedCounter;
+
+    public FleetStateSync(
+            RedisTemplate<String, Object> redisTemplate,
+            DroneRepository droneRepository,
+            DeliveryLogRepository deliveryLogRepository,
+            FleetStateCache fleetStateCache,
+            GeofenceMonitor geofenceMonitor,
+            FlightStatsTracker flightStatsTracker,
+            KeyOrderedExecutor droneEventExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.cluster.enabled:false}") boolean enabled,
+            @Value("${websocket.cluster.instance-id:}") String instanceId,
+            @Value("${websocket.cluster.state-channel:fleet.state}") String channel
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.droneRepository = droneRepository;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.fleetStateCache = fleetStateCache;
+        this.geofenceMonitor = geofenceMonitor;
+        this.flightStatsTracker = flightStatsTracker;
+        this.droneEventExecutor = droneEventExecutor;
+        this.enabled = enabled;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+        this.channel = channel;
+
+        this.publishedCounter = meterRegistry.counter("drone.fleet.sync.published");
+        this.receivedCounter = meterRegistry.counter("drone.fleet.sync.received");
+        this.publishFailedCounter = meterRegistry.counter("drone.fleet.sync.publish.failed");
+    }
+
+    /**
+     * Có nhiều instance: state in-memory của instance này có thể thiếu phần do instance khác ghi
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Channel được RedisConfig đăng ký khi isEnabled()
+     */
+    public ChannelTopic topic() {
+        return new ChannelTopic(channel);
+    }
+
+    /**
+     * Báo các instance khác nạp lại drone sau khi transaction hiện tại commit
+     */
+    public void publishAfterCommit(Long droneId) {
+        if (enabled) {
+            TransactionUtil.afterCommit(() -> publish(droneId));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('\n');
+        if (separator < 0 || (separator == instanceId.length() && body.startsWith(instanceId))) {
+            return;
+        }
+        try {
+            Long droneId = Long.valueOf(body.substring(separator + 1).trim());
+            receivedCounter.increment();
+            // Cùng hàng với GeofenceEventListener / drone.events của drone này
+            droneEventExecutor.execute(droneId.toString(), () -> reload(droneId));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed fleet state message: {}", body);
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void publish(Long droneId) {
+        try {
+            redisTemplate.convertAndSend(channel, instanceId + '\n' + droneId);
+            publishedCounter.increment();
+        } catch (Exception e) {
+            publishFailedCounter.increment();
+            log.warn("Failed to publish state change of drone {} to other instances: {}", droneId, e.getMessage());
+        }
+    }
+
+    private void reload(Long droneId) {
+        try {
+            Drone drone = droneRepository.findById(droneId).orElse(null);
+            if (drone == null) {
+                return;
+            }
+            DeliveryLog deliveryLog = drone.getCurrentOrderId() == null ? null
+                    : deliveryLogRepository.findByOrderId(drone.getCurrentOrderId()).orElse(null);
+            Long deliveryLogId = deliveryLog != null ? deliveryLog.getId() : null;
+
+            DroneState previous = fleetStateCache.get(droneId);
+            fleetStateCache.put(drone, deliveryLogId);
+            geofenceMonitor.refresh(drone, deliveryLog);
+            if (previous != null && previous.deliveryLogId() != null && !previous.deliveryLogId().equals(deliveryLogId)) {
+                flightStatsTracker.forget(previous.deliveryLogId());
+            }
+            log.debug("Reloaded drone {} after state change on another instance", droneId);
+        } catch (Exception e) {
+            log.error("Failed to reload drone {} after remote state change: {}", droneId, e.getMessage());
+        }
+    }
+}
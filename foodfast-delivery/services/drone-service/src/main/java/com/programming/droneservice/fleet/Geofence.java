@@ -0,0 +1,66 @@
+package com.programming.droneservice.fleet;
+
+/**
+ * Vùng tròn quanh một điểm (điểm giao hàng hoặc cơ sở), tính sẵn khi chuyến bay được gán
+ *
+ * Mỗi GPS update chỉ tốn 2 phép trừ + 3 phép nhân, không sqrt/cos, không cấp phát:
+ * khoảng cách được so sánh dưới dạng bình phương trong hệ toạ độ phẳng cục bộ (đơn vị độ vĩ).
+ *
+ * Hysteresis:
+ * - Điểm nằm trong bán kính vào (enterRadius) → đếm thêm một điểm
+ * - Điểm nằm giữa bán kính vào và bán kính ra → giữ nguyên bộ đếm (GPS dao động quanh biên)
+ * - Điểm ra ngoài bán kính ra (exitRadius) → reset bộ đếm
+ * - Đủ confirmPoints điểm → kích hoạt đúng một lần
+ */
+public final class Geofence {
+
+    /** Km trên một độ vĩ (R = 6371 km) */
+    private static final double KM_PER_DEGREE = 6371.0 * Math.PI / 180.0;
+
+    private final double centerLat;
+    private final double centerLng;
+    private final double lngScale;
+    private final double enterRadiusSq;
+    private final double exitRadiusSq;
+    private final int confirmPoints;
+
+    private int insideCount;
+    private boolean triggered;
+
+    public Geofence(double centerLat, double centerLng, double enterRadiusKm, double exitRadiusKm, int confirmPoints) {
+        this.centerLat = centerLat;
+        this.centerLng = centerLng;
+        this.lngScale = Math.cos(Math.toRadians(centerLat));
+        double enter = enterRadiusKm / KM_PER_DEGREE;
+        double exit = Math.max(exitRadiusKm, enterRadiusKm) / KM_PER_DEGREE;
+        this.enterRadiusSq = enter * enter;
+        this.exitRadiusSq = exit * exit;
+        this.confirmPoints = Math.max(1, confirmPoints);
+    }
+
+    /**
+     * Ghi nhận một vị trí mới
+     * @return true đúng một lần, khi drone được xác nhận đã vào vùng
+     */
+    public synchronized boolean update(double lat, double lng) {
+        if (triggered) {
+            return false;
+        }
+        double dLat = lat - centerLat;
+        double dLng = (lng - centerLng) * lngScale;
+        double distanceSq = dLat * dLat + dLng * dLng;
+        if (distanceSq <= enterRadiusSq) {
+            if (++insideCount >= confirmPoints) {
+                triggered = true;
+                return true;
+            }
+        } else if (distanceSq > exitRadiusSq) {
+            insideCount = 0;
+        }
+        return false;
+    }
+
+    public synchronized boolean isTriggered() {
+        return triggered;
+    }
+}
@@ -0,0 +1,7 @@
+package com.programming.droneservice.fleet;
+
+/**
+ * Drone được GeofenceMonitor xác nhận đã vào vùng đích của chuyến bay
+ */
+public record GeofenceEvent(Long droneId, Long orderId) {
+}
@@ -0,0 +1,183 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.DeliveryStatus;
+import com.programming.droneservice.model.Drone;
+import com.programming.droneservice.model.DroneStatus;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.repository.DroneRepository;
+import com.programming.droneservice.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phát hiện drone tới điểm giao hàng ngay trên luồng GPS, không chờ client gửi /app/drone/arrived
+ *
+ * - Geofence của mỗi chuyến bay (điểm đến của DeliveryLog) được tính sẵn khi gán đơn
+ * - Mỗi GPS update: tra map theo droneId + so sánh khoảng cách bình phương → không đọc DB, không cấp phát
+ * - DELIVERING vào vùng đích → GeofenceEvent ARRIVED
+ * - Chuyển trạng thái (DB, outbox) do GeofenceEventListener chạy ngoài thread GPS
+ *
+ * Không có geofence cơ sở: giao xong drone chuyển thẳng DELIVERING → IDLE (COMPLETE_DELIVERY),
+ * không qua RETURNING nên không có gì để phát hiện khi drone bay về
+ */
+@Component
+@Slf4j
+public class GeofenceMonitor {
+
+    private static final List<DeliveryStatus> ARMED_FLIGHT_STATUSES =
+            List.of(DeliveryStatus.PREPARING, DeliveryStatus.IN_FLIGHT);
+
+    private final DroneRepository droneRepository;
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+    private final double arrivalRadiusKm;
+    private final double exitRadiusKm;
+    private final int confirmPoints;
+
+    // droneId → geofence của chuyến bay hiện tại
+    private final Map<Long, FlightGeofences> flights = new ConcurrentHashMap<>();
+
+    private final Counter arrivedCounter;
+
+    public GeofenceMonitor(
+            DroneRepository droneRepository,
+            DeliveryLogRepository deliveryLogRepository,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${geofence.enabled:true}") boolean enabled,
+            @Value("${geofence.arrival-radius-m:20}") double arrivalRadiusMeters,
+            @Value("${geofence.exit-radius-m:40}") double exitRadiusMeters,
+            @Value("${geofence.confirm-points:2}") int confirmPoints
+    ) {
+        this.droneRepository = droneRepository;
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.arrivalRadiusKm = arrivalRadiusMeters / 1000.0;
+        this.exitRadiusKm = exitRadiusMeters / 1000.0;
+        this.confirmPoints = confirmPoints;
+
+        this.arrivedCounter = meterRegistry.counter("drone.geofence.triggered", "type", "arrived");
+        Gauge.builder("drone.geofence.armed", flights, Map::size)
+                .description("Số chuyến bay đang được theo dõi geofence")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nạp geofence của các chuyến bay đang diễn ra khi service khởi động
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, DeliveryLog> flightByOrder = new HashMap<>();
+        for (DeliveryLog deliveryLog : deliveryLogRepository.findRecentByStatusIn(ARMED_FLIGHT_STATUSES)) {
+            flightByOrder.put(deliveryLog.getOrderId(), deliveryLog);
+        }
+        for (Drone drone : droneRepository.findAll()) {
+            DeliveryLog deliveryLog = drone.getCurrentOrderId() != null ? flightByOrder.get(drone.getCurrentOrderId()) : null;
+            FlightGeofences geofences = geofencesFor(drone, deliveryLog);
+            if (geofences != null) {
+                flights.put(drone.getId(), geofences);
+            }
+        }
+        log.info("Geofence monitor armed for {} flights", flights.size());
+    }
+
+    /**
+     * Tính sẵn geofence cho chuyến bay mới, có hiệu lực sau khi transaction gán đơn commit
+     */
+    public void armAfterCommit(Drone drone, DeliveryLog deliveryLog) {
+        if (!enabled) {
+            return;
+        }
+        FlightGeofences geofences = build(deliveryLog);
+        TransactionUtil.afterCommit(() -> flights.put(drone.getId(), geofences));
+    }
+
+    /**
+     * Đặt lại geofence theo trạng thái đã commit (chuyển trạng thái ở instance khác, FleetStateSync)
+     * Vẫn cùng chuyến bay → giữ geofence hiện tại (không reset bộ đếm điểm trong vùng)
+     * @param deliveryLog Chuyến bay của currentOrderId, null nếu không có
+     */
+    public void refresh(Drone drone, DeliveryLog deliveryLog) {
+        if (!enabled) {
+            return;
+        }
+        FlightGeofences geofences = geofencesFor(drone, deliveryLog);
+        if (geofences == null) {
+            flights.remove(drone.getId());
+            return;
+        }
+        flights.compute(drone.getId(), (id, current) -> current != null
+                && Objects.equals(current.orderId(), geofences.orderId())
+                ? current : geofences);
+    }
+
+    /**
+     * Bỏ theo dõi drone sau khi transaction hiện tại commit (giao xong)
+     */
+    public void disarmAfterCommit(Long droneId) {
+        TransactionUtil.afterCommit(() -> flights.remove(droneId));
+    }
+
+    /**
+     * Kiểm tra vị trí mới nhất của drone (GPS hot path)
+     */
+    public void check(DroneState state) {
+        if (!enabled || !state.hasPosition()) {
+            return;
+        }
+        FlightGeofences geofences = flights.get(state.droneId());
+        if (geofences == null) {
+            return;
+        }
+        if (state.status() == DroneStatus.DELIVERING
+                && geofences.orderId().equals(state.currentOrderId())
+                && geofences.destination().update(state.lat(), state.lng())) {
+            arrivedCounter.increment();
+            log.info("🎯 Drone {} entered destination geofence of order {}", state.droneId(), geofences.orderId());
+            eventPublisher.publishEvent(new GeofenceEvent(state.droneId(), geofences.orderId()));
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Geofence theo trạng thái drone: DELIVERING và chưa tới nơi → vùng đích, còn lại → null
+     * (ARRIVED: đã tới nơi trước khi service khởi động lại / ở instance khác, chỉ còn chờ /app/drone/delivered)
+     */
+    private FlightGeofences geofencesFor(Drone drone, DeliveryLog deliveryLog) {
+        if (drone.getStatus() == DroneStatus.DELIVERING && deliveryLog != null
+                && deliveryLog.getStatus() != DeliveryStatus.ARRIVED) {
+            return build(deliveryLog);
+        }
+        return null;
+    }
+
+    private FlightGeofences build(DeliveryLog deliveryLog) {
+        Geofence destination = new Geofence(deliveryLog.getDestinationLat(), deliveryLog.getDestinationLng(),
+                arrivalRadiusKm, exitRadiusKm, confirmPoints);
+        return new FlightGeofences(deliveryLog.getOrderId(), destination);
+    }
+
+    private record FlightGeofences(Long orderId, Geofence destination) {
+    }
+}
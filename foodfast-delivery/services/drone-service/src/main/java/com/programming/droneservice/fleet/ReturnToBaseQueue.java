@@ -0,0 +1,158 @@
+package com.programming.droneservice.fleet;
+
+import com.programming.droneservice.exception.BadRequestException;
+import com.programming.droneservice.exception.ResourceNotFoundException;
+import com.programming.droneservice.service.DroneService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hàng đợi trễ cho việc drone bay về cơ sở, lưu trong Redis ZSET "drone.return.queue"
+ *
+ * - member = droneId, score = thời điểm drone về tới nơi (epoch millis)
+ * - Lên lịch 2 lần cho cùng drone chỉ giữ một entry (ZADD ghi đè score)
+ * - Poller lấy các entry đã tới hạn; instance nào ZREM thành công (Lua, kiểm tra lại score) thì xử lý
+ *   → an toàn khi chạy nhiều instance
+ * - Nằm trong Redis nên không mất khi service restart; entry quá hạn được xử lý ở lần poll đầu tiên
+ *
+ * Thay cho Thread.sleep trên thread của Redis listener: hàng nghìn drone có thể cùng chờ mà không giữ thread nào
+ */
+@Component
+@Slf4j
+public class ReturnToBaseQueue {
+
+    static final String QUEUE_KEY = "drone.return.queue";
+
+    // ZREM chỉ khi entry vẫn tới hạn (không xoá nhầm entry vừa được lên lịch lại với score mới)
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('ZSCORE', KEYS[1], ARGV[1]) "
+                    + "if score and tonumber(score) <= tonumber(ARGV[2]) then "
+                    + "return redis.call('ZREM', KEYS[1], ARGV[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final DroneService droneService;
+    private final long delayMs;
+    private final long retryDelayMs;
+    private final int batchSize;
+
+    private final Counter scheduledCounter;
+    private final Counter completedCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Timer lagTimer;
+
+    public ReturnToBaseQueue(
+            RedisTemplate<String, Object> redisTemplate,
+            DroneService droneService,
+            MeterRegistry meterRegistry,
+            @Value("${return-to-base.delay-ms:10000}") long delayMs,
+            @Value("${return-to-base.retry-delay-ms:5000}") long retryDelayMs,
+            @Value("${return-to-base.batch-size:500}") int batchSize
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.droneService = droneService;
+        this.delayMs = delayMs;
+        this.retryDelayMs = retryDelayMs;
+        this.batchSize = batchSize;
+
+        this.scheduledCounter = meterRegistry.counter("drone.return.scheduled");
+        this.completedCounter = meterRegistry.counter("drone.return.completed");
+        this.failedCounter = meterRegistry.counter("drone.return.failed");
+        this.retriedCounter = meterRegistry.counter("drone.return.retried");
+        this.lagTimer = Timer.builder("drone.return.lag")
+                .description("Độ trễ giữa thời điểm tới hạn và lúc drone được chuyển về IDLE")
+                .register(meterRegistry);
+        Gauge.builder("drone.return.pending", this, ReturnToBaseQueue::pendingCount)
+                .description("Số drone đang chờ bay về cơ sở")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lên lịch chuyển drone về IDLE sau delay-ms
+     */
+    public void schedule(Long droneId) {
+        redisTemplate.opsForZSet().add(QUEUE_KEY, droneId.toString(), System.currentTimeMillis() + delayMs);
+        scheduledCounter.increment();
+        log.info("🏠 Drone {} scheduled to arrive at base in {} ms", droneId, delayMs);
+    }
+
+    /**
+     * Số drone đang chờ (-1 nếu Redis không trả lời)
+     */
+    public long pendingCount() {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(QUEUE_KEY);
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${return-to-base.poll-interval-ms:500}")
+    public void processDue() {
+        try {
+            int claimed;
+            do {
+                claimed = processBatch(System.currentTimeMillis());
+            } while (claimed == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Error polling return-to-base queue: {}", e.getMessage());
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * @return số entry tới hạn đọc được (batchSize → có thể còn entry tới hạn)
+     */
+    private int processBatch(long now) {
+        ZSetOperations<String, Object> zSet = redisTemplate.opsForZSet();
+        Set<ZSetOperations.TypedTuple<Object>> due = zSet.rangeByScoreWithScores(QUEUE_KEY, 0, now, 0, batchSize);
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+        for (ZSetOperations.TypedTuple<Object> entry : due) {
+            Long removed = redisTemplate.execute(CLAIM_SCRIPT, List.of(QUEUE_KEY), entry.getValue(), String.valueOf(now));
+            if (removed == null || removed == 0) {
+                continue; // Instance khác đã xử lý hoặc drone vừa được lên lịch lại
+            }
+            Long droneId = Long.valueOf(entry.getValue().toString());
+            returnToBase(droneId);
+            if (entry.getScore() != null) {
+                lagTimer.record(Math.max(0, now - entry.getScore().longValue()), TimeUnit.MILLISECONDS);
+            }
+        }
+        return due.size();
+    }
+
+    private void returnToBase(Long droneId) {
+        try {
+            droneService.markDroneReturnedToBase(droneId);
+            completedCounter.increment();
+        } catch (ResourceNotFoundException | BadRequestException e) {
+            // Drone đã bị xoá hoặc không còn RETURNING → không thử lại
+            failedCounter.increment();
+            log.warn("Dropped return-to-base for drone {}: {}", droneId, e.getMessage());
+        } catch (Exception e) {
+            retriedCounter.increment();
+            log.error("❌ Failed to return drone {} to base, retrying in {} ms: {}", droneId, retryDelayMs, e.getMessage());
+            redisTemplate.opsForZSet().add(QUEUE_KEY, droneId.toString(), System.currentTimeMillis() + retryDelayMs);
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.programming.droneservice.listener;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.fleet.ReturnToBaseQueue;
 import com.programming.droneservice.model.Drone;
 import com.programming.droneservice.model.DroneStatus;
 import com.programming.droneservice.service.DroneService;
+import com.programming.eventstream.KeyOrderedExecutor;
+import com.programming.eventstream.StreamEventConsumer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
@@ -17,32 +22,55 @@ import java.util.Map;
 public class DroneEventListener implements MessageListener {
     private final DroneService droneService;
     private final ObjectMapper objectMapper;
+    private final ReturnToBaseQueue returnToBaseQueue;
+    private final KeyOrderedExecutor droneEventExecutor;
+    private final StreamEventConsumer streamEventConsumer;
+
+    // ⭐️ Nhận drone.events qua Redis Stream (bền, consumer group); pub/sub vẫn được lắng nghe ở RedisConfig
+    @PostConstruct
+    public void subscribeStream() {
+        streamEventConsumer.subscribe("drone.events", this::handle);
+    }
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String messageBody = new String(message.getBody());
-            log.info("📡 Drone received event: {}", messageBody);
+            Map<String, Object> eventData = parse(new String(message.getBody()));
+            Object droneId = eventData.get("droneId");
+
+            // Xử lý ngoài thread của listener container, tuần tự theo droneId
+            droneEventExecutor.execute(droneId != null ? droneId.toString() : "", () -> handleEvent(eventData));
+        } catch (Exception e) {
+            log.error("❌ Error processing drone event: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Event từ Redis Stream: xử lý ngay trên thread của consumer,
+     * lỗi được ném ra để entry không bị ACK và được đọc lại
+     */
+    public void handle(String messageBody) throws JsonProcessingException {
+        handleEvent(parse(messageBody));
+    }
 
-            Map<String, Object> eventData = objectMapper.readValue(messageBody, Map.class);
-            String eventType = (String) eventData.get("eventType");
+    private Map<String, Object> parse(String messageBody) throws JsonProcessingException {
+        log.info("📡 Drone received event: {}", messageBody);
+        return objectMapper.readValue(messageBody, Map.class);
+    }
 
-            // ⭐️ LẮNG NGHE: DroneReturnToBase - Drone bay về nhà hàng
-            if ("DroneReturnToBase".equals(eventType)) {
-                Long droneId = Long.parseLong(eventData.get("droneId").toString());
-                Long orderId = Long.parseLong(eventData.get("orderId").toString());
+    private void handleEvent(Map<String, Object> eventData) {
+        String eventType = (String) eventData.get("eventType");
 
-                log.info("🏠 Drone {} is returning to base for order {}", droneId, orderId);
+        // ⭐️ LẮNG NGHE: DroneReturnToBase - Drone bay về nhà hàng
+        if ("DroneReturnToBase".equals(eventType)) {
+            Long droneId = Long.parseLong(eventData.get("droneId").toString());
+            Long orderId = Long.parseLong(eventData.get("orderId").toString());
 
-                // ⭐️ CẬP NHẬT DRONE: DELIVERING → IDLE
-                // Giả lập drone bay về mất 10 giây
-                Thread.sleep(10000);
+            log.info("🏠 Drone {} is returning to base for order {}", droneId, orderId);
 
-                droneService.markDroneReturnedToBase(droneId);
-                log.info("✅ Drone {} is now IDLE and ready for next delivery", droneId);
-            }
-        } catch (Exception e) {
-            log.error("❌ Error processing drone event: {}", e.getMessage());
+            // ⭐️ CẬP NHẬT DRONE: RETURNING → IDLE
+            // Giả lập drone bay về (return-to-base.delay-ms), không chặn thread của listener
+            returnToBaseQueue.schedule(droneId);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.programming.droneservice.listener;
+
+import com.programming.droneservice.broadcast.TopicBroadcaster;
+import com.programming.droneservice.fleet.GeofenceEvent;
+import com.programming.droneservice.service.DroneService;
+import com.programming.eventstream.KeyOrderedExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Đánh dấu drone đã tới nơi khi GeofenceMonitor phát hiện drone vào vùng đích
+ *
+ * Chạy trên droneEventExecutor (tuần tự theo droneId, cùng hàng với drone.events)
+ * → thread nhận GPS không chờ transaction
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceEventListener {
+
+    private final DroneService droneService;
+    private final TopicBroadcaster topicBroadcaster;
+    private final KeyOrderedExecutor droneEventExecutor;
+
+    @EventListener
+    public void onGeofence(GeofenceEvent event) {
+        droneEventExecutor.execute(event.droneId().toString(), () -> handleArrived(event));
+    }
+
+    private void handleArrived(GeofenceEvent event) {
+        droneService.markDroneArrived(event.droneId());
+
+        // ⭐️ Cùng message với /app/drone/arrived để client không phải phân biệt nguồn
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ARRIVED");
+        response.put("droneId", event.droneId());
+        response.put("orderId", event.orderId());
+        response.put("message", "Drone has arrived at destination");
+        topicBroadcaster.send("/topic/drone/" + event.droneId(), response);
+
+        log.info("Drone {} marked as arrived by geofence", event.droneId());
+    }
+}
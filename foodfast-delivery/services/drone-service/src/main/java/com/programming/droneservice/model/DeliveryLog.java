@@ -1,5 +1,6 @@
 package com.programming.droneservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.hypersistence.utils.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
@@ -19,7 +20,8 @@ import java.util.List;
 @Table(name = "delivery_logs", indexes = {
     @Index(name = "idx_delivery_order", columnList = "order_id"),
     @Index(name = "idx_delivery_drone", columnList = "drone_id"),
-    @Index(name = "idx_delivery_status", columnList = "status")
+    @Index(name = "idx_delivery_status", columnList = "status"),
+    @Index(name = "idx_delivery_drone_created", columnList = "drone_id, created_at, id")
 })
 @Data
 @Builder
@@ -56,11 +58,34 @@ public class DeliveryLog {
     private Drone drone;
     
     /**
-     * Lộ trình GPS (lưu dưới dạng JSONB)
-     * Mỗi phần tử là một điểm GPS với timestamp
+     * Lộ trình GPS cũ (JSONB) của các chuyến bay ghi trước khi có bảng delivery_route_points
+     * Không ghi thêm vào cột này nữa
      */
     @Type(JsonType.class)
     @Column(name = "route_path", columnDefinition = "jsonb")
+    @JsonIgnore
+    @Builder.Default
+    private List<GpsPoint> legacyRoutePath = new ArrayList<>();
+    
+    /**
+     * Lộ trình đã nén (RouteCodec) của chuyến bay đã kết thúc
+     * Khi có giá trị, các điểm trong delivery_route_points đã được gộp vào đây và xóa
+     */
+    @Column(name = "route_data")
+    @JsonIgnore
+    private byte[] routeData;
+    
+    /**
+     * Sai số (mét) đã dùng khi rút gọn route_data (RouteCompactor), null nếu chưa rút gọn
+     */
+    @Column(name = "route_tolerance_m")
+    private Double routeToleranceMeters;
+    
+    /**
+     * Lộ trình GPS đầy đủ, chỉ được ghép khi đọc (RoutePointStore.loadRoute)
+     * Mỗi phần tử là một điểm GPS với timestamp
+     */
+    @Transient
     @Builder.Default
     private List<GpsPoint> routePath = new ArrayList<>();
     
@@ -16,7 +16,9 @@ import java.time.LocalDateTime;
     @Index(name = "idx_drone_restaurant", columnList = "restaurant_id"),
     @Index(name = "idx_drone_owner", columnList = "owner_id"),
     @Index(name = "idx_drone_status", columnList = "status"),
-    @Index(name = "idx_drone_order", columnList = "current_order_id")
+    @Index(name = "idx_drone_order", columnList = "current_order_id"),
+    @Index(name = "idx_drone_created", columnList = "created_at, id"),
+    @Index(name = "idx_drone_owner_created", columnList = "owner_id, created_at, id")
 })
 @Data
 @Builder
@@ -84,6 +86,13 @@ public class Drone {
     @Column(name = "current_lng")
     private Double currentLng;
     
+    /**
+     * Thời điểm nhận mẫu GPS của currentLat/currentLng (GpsBatchWriter)
+     * Khác updated_at: chuyển trạng thái cũng đổi updated_at nhưng không đổi vị trí
+     */
+    @Column(name = "position_updated_at")
+    private LocalDateTime positionUpdatedAt;
+    
     /**
      * Vĩ độ điểm "home" (nhà hàng)
      * Drone sẽ bay về đây sau khi giao hàng
@@ -125,6 +134,14 @@ public class Drone {
     @Builder.Default
     private Boolean isActive = true;
     
+    /**
+     * Tăng 1 ở mỗi chuyển trạng thái (DroneStateMachine) và mỗi lần save entity (optimistic lock)
+     * DEFAULT 0: các dòng có sẵn nhận giá trị khi Hibernate thêm cột
+     */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
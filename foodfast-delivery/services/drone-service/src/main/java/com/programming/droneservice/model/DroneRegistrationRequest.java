@@ -15,7 +15,9 @@ import java.time.LocalDateTime;
 @Table(name = "drone_registration_requests", indexes = {
     @Index(name = "idx_request_restaurant", columnList = "restaurant_id"),
     @Index(name = "idx_request_status", columnList = "status"),
-    @Index(name = "idx_request_type", columnList = "request_type")
+    @Index(name = "idx_request_type", columnList = "request_type"),
+    @Index(name = "idx_request_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_request_restaurant_created", columnList = "restaurant_id, created_at, id")
 })
 @Data
 @Builder
@@ -0,0 +1,69 @@
+package com.programming.droneservice.model;
+
+import io.hypersistence.utils.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checkpoint định kỳ của FleetAnalytics, một dòng cho mỗi instance (chỉ chuyến giao do instance đó ghi nhận)
+ * Tổng toàn fleet = cộng mọi dòng; dòng của instance đã dừng vẫn được giữ và cộng vào
+ * Số drone theo trạng thái không cần lưu: được dựng lại từ FleetStateCache khi khởi động
+ */
+@Entity
+@Table(name = "fleet_analytics_instance_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetAnalyticsCheckpoint {
+
+    /**
+     * websocket.cluster.instance-id (HOSTNAME) của instance ghi dòng này
+     */
+    @Id
+    @Column(name = "instance_id")
+    private String instanceId;
+
+    @Column(name = "total_deliveries", nullable = false)
+    private long totalDeliveries;
+
+    /**
+     * Tổng quãng đường / pin tiêu hao của các chuyến bay có quãng đường > 0
+     */
+    @Column(name = "total_distance_km", nullable = false)
+    private double totalDistanceKm;
+
+    @Column(name = "total_battery_consumed", nullable = false)
+    private double totalBatteryConsumed;
+
+    /**
+     * Tổng (thực tế - dự kiến) và |thực tế - dự kiến| theo phút
+     */
+    @Column(name = "eta_error_sum_minutes", nullable = false)
+    private double etaErrorSumMinutes;
+
+    @Column(name = "eta_abs_error_sum_minutes", nullable = false)
+    private double etaAbsErrorSumMinutes;
+
+    @Column(name = "eta_samples", nullable = false)
+    private long etaSamples;
+
+    /**
+     * Số chuyến giao xong theo giờ: epoch hour → số chuyến (chỉ các giờ còn trong cửa sổ)
+     */
+    @Type(JsonType.class)
+    @Column(name = "hourly_deliveries", columnDefinition = "jsonb")
+    @Builder.Default
+    private Map<Long, Long> hourlyDeliveries = new HashMap<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
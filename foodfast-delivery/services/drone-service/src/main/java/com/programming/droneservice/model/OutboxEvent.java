@@ -0,0 +1,50 @@
+package com.programming.droneservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event chờ publish lên Redis (transactional outbox)
+ * Được INSERT trong cùng transaction với thay đổi trạng thái, OutboxRelay publish rồi xoá
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Channel / stream đích (delivery.events, drone.events)
+     */
+    @Column(nullable = false, length = 64)
+    private String channel;
+    
+    /**
+     * Key giữ thứ tự (orderId / droneId): event cùng key được publish đúng thứ tự id
+     */
+    @Column(name = "partition_key", length = 64)
+    private String partitionKey;
+    
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    /**
+     * Số lần publish thất bại
+     */
+    @Column(nullable = false)
+    private int attempts;
+}
@@ -0,0 +1,62 @@
+package com.programming.droneservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một điểm GPS trong lộ trình của chuyến bay (append-only)
+ * Mỗi GPS update chỉ INSERT một dòng, không ghi lại toàn bộ route như cột JSONB cũ
+ */
+@Entity
+@Table(name = "delivery_route_points", indexes = {
+    @Index(name = "idx_route_point_log", columnList = "delivery_log_id, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * Chuyến bay chứa điểm này (delivery_logs.id)
+     */
+    @Column(name = "delivery_log_id", nullable = false)
+    private Long deliveryLogId;
+    
+    @Column(nullable = false)
+    private Double lat;
+    
+    @Column(nullable = false)
+    private Double lng;
+    
+    @Column(name = "battery_percent")
+    private Double batteryPercent;
+    
+    @Column(name = "speed_kmh")
+    private Double speedKmh;
+    
+    /**
+     * Thời điểm server nhận GPS update
+     */
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+    
+    public GpsPoint toGpsPoint() {
+        return GpsPoint.builder()
+                .lat(lat)
+                .lng(lng)
+                .timestamp(recordedAt)
+                .batteryPercent(batteryPercent)
+                .speedKmh(speedKmh)
+                .build();
+    }
+}
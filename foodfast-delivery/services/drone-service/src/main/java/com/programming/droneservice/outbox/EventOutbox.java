@@ -0,0 +1,59 @@
+package com.programming.droneservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.model.OutboxEvent;
+import com.programming.droneservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ghi event vào bảng outbox_events thay vì publish thẳng lên Redis
+ *
+ * - Gọi trong transaction của service → event chỉ tồn tại nếu thay đổi trạng thái commit
+ * - Không có transaction → tự mở transaction riêng
+ * - OutboxRelay publish lên Redis ở background (at-least-once)
+ */
+@Component
+public class EventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter enqueuedCounter;
+
+    public EventOutbox(
+            OutboxEventRepository outboxEventRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.enqueuedCounter = meterRegistry.counter("drone.outbox.enqueued");
+    }
+
+    /**
+     * @param channel Channel / stream đích
+     * @param partitionKey orderId / droneId, giữ thứ tự giữa các event cùng key
+     * @param event Nội dung event (serialize thành JSON)
+     */
+    @Transactional
+    public void enqueue(String channel, Object partitionKey, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize event for " + channel, e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .channel(channel)
+                .partitionKey(partitionKey != null ? partitionKey.toString() : null)
+                .payload(payload)
+                .createdAt(LocalDateTime.now())
+                .build());
+        enqueuedCounter.increment();
+    }
+}
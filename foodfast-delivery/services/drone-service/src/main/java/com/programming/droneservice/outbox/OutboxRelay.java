@@ -0,0 +1,127 @@
+package com.programming.droneservice.outbox;
+
+import com.programming.droneservice.model.OutboxEvent;
+import com.programming.droneservice.repository.OutboxEventRepository;
+import com.programming.eventstream.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publish event trong outbox_events lên Redis theo batch
+ *
+ * - Mỗi vòng: khoá advisory (chỉ một instance relay) → đọc batch cũ nhất theo id → publish → xoá các event đã gửi
+ * - Publish lỗi: event được giữ lại (attempts + 1) và các event sau cùng channel + key bị hoãn tới vòng sau
+ *   → thứ tự theo từng order/drone được giữ, các key khác vẫn đi tiếp
+ * - Redis nhận event nhưng xoá chưa commit → event được gửi lại (at-least-once)
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    // Khoá advisory dùng chung cho mọi instance drone-service
+    private static final long RELAY_LOCK_ID = 0x6f7574626f78L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            EventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.batch-size:200}") int batchSize
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+
+        this.publishedCounter = meterRegistry.counter("drone.outbox.published");
+        this.failedCounter = meterRegistry.counter("drone.outbox.publish.failed");
+        this.lagTimer = Timer.builder("drone.outbox.lag")
+                .description("Thời gian từ lúc ghi outbox tới lúc publish lên Redis")
+                .register(meterRegistry);
+        Gauge.builder("drone.outbox.pending", outboxEventRepository, OutboxEventRepository::count)
+                .description("Số event đang chờ publish")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:100}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * @return số event đã publish nếu cả batch thành công, 0 nếu có lỗi hoặc instance khác đang relay
+     */
+    private int relayBatch() {
+        if (!outboxEventRepository.tryRelayLock(RELAY_LOCK_ID)) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.findOldest(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> published = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        Set<String> blockedKeys = new HashSet<>();
+        for (OutboxEvent event : batch) {
+            String orderingKey = event.getChannel() + "|" + event.getPartitionKey();
+            if (blockedKeys.contains(orderingKey)) {
+                continue;
+            }
+            try {
+                eventPublisher.publish(event.getChannel(), event.getPartitionKey(), event.getPayload());
+                published.add(event.getId());
+                lagTimer.record(Duration.between(event.getCreatedAt(), now));
+            } catch (Exception e) {
+                blockedKeys.add(orderingKey);
+                failed.add(event.getId());
+                log.warn("Failed to publish outbox event {} to {} (attempt {}): {}",
+                        event.getId(), event.getChannel(), event.getAttempts() + 1, e.getMessage());
+            }
+        }
+
+        if (!published.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(published);
+            publishedCounter.increment(published.size());
+        }
+        if (!failed.isEmpty()) {
+            outboxEventRepository.incrementAttempts(failed);
+            failedCounter.increment(failed.size());
+        }
+        return published.size() == batch.size() ? batch.size() : 0;
+    }
+}
@@ -1,10 +1,17 @@
 package com.programming.droneservice.repository;
 
+import com.programming.droneservice.archive.DeliveryLogPartitions;
+import com.programming.droneservice.dto.DeliveryLogSummaryDto;
 import com.programming.droneservice.model.DeliveryLog;
 import com.programming.droneservice.model.DeliveryStatus;
+import com.programming.droneservice.util.KeysetCursor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,17 +24,72 @@ public interface DeliveryLogRepository extends JpaRepository<DeliveryLog, Long>
     Optional<DeliveryLog> findByOrderId(Long orderId);
     
     /**
-     * Tìm tất cả log của một drone
+     * Đơn đã có chuyến bay chưa (không đọc route)
      */
-    List<DeliveryLog> findByDroneIdOrderByCreatedAtDesc(Long droneId);
+    boolean existsByOrderId(Long orderId);
     
     /**
-     * Tìm log theo status
+     * Lịch sử chuyến bay của một drone, phân trang keyset (createdAt DESC, id DESC)
+     * Projection: không đọc route_path / route_data
+     * @param includeCold false → chỉ các partition nóng, true → cả các partition cũ chưa archive
+     */
+    default List<DeliveryLogSummaryDto> findSummaryPageByDroneId(Long droneId, DeliveryStatus status,
+                                                                 KeysetCursor cursor, boolean includeCold,
+                                                                 Pageable pageable) {
+        return findSummaryPageByDroneId(droneId, status, DeliveryLogPartitions.since(includeCold),
+                cursor.createdAt(), cursor.id(), pageable);
+    }
+    
+    @Query("SELECT new com.programming.droneservice.dto.DeliveryLogSummaryDto(" +
+           "l.id, l.orderId, l.status, l.destinationAddress, l.estimatedDistanceKm, l.actualDistanceKm, " +
+           "l.batteryConsumedPercent, l.startTime, l.arrivalTime, l.endTime, l.createdAt) " +
+           "FROM DeliveryLog l " +
+           "WHERE l.drone.id = :droneId " +
+           "AND l.createdAt >= :since " +
+           "AND (:status IS NULL OR l.status = :status) " +
+           "AND (l.createdAt < :cursorCreatedAt OR (l.createdAt = :cursorCreatedAt AND l.id < :cursorId)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    List<DeliveryLogSummaryDto> findSummaryPageByDroneId(
+        @Param("droneId") Long droneId,
+        @Param("status") DeliveryStatus status,
+        @Param("since") LocalDateTime since,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
+    /**
+     * Tìm log theo status (mọi partition)
      */
     List<DeliveryLog> findByStatus(DeliveryStatus status);
     
     /**
-     * Tìm các chuyến bay đang diễn ra (IN_FLIGHT)
+     * Tìm log theo danh sách status (mọi partition)
      */
     List<DeliveryLog> findByStatusIn(List<DeliveryStatus> statuses);
+    
+    /**
+     * Như findByStatusIn nhưng chỉ trong các partition nóng (created_at là khoá partition → Postgres bỏ qua
+     * các partition cũ); dùng cho chuyến bay đang diễn ra, luôn được tạo trong tháng này hoặc tháng trước
+     */
+    default List<DeliveryLog> findRecentByStatusIn(List<DeliveryStatus> statuses) {
+        return findByStatusInAndCreatedAtGreaterThanEqual(statuses, DeliveryLogPartitions.hotSince());
+    }
+    
+    List<DeliveryLog> findByStatusInAndCreatedAtGreaterThanEqual(List<DeliveryStatus> statuses, LocalDateTime since);
+    
+    /**
+     * Chuyến bay đã hoàn thành nhưng lộ trình chưa được rút gọn (RouteCompactor)
+     * SKIP LOCKED: nhiều instance cùng chạy không xử lý trùng một chuyến bay
+     */
+    @Query(value = "SELECT * FROM delivery_logs WHERE status = 'COMPLETED' AND route_tolerance_m IS NULL " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<DeliveryLog> findUncompactedForUpdate(@Param("limit") int limit);
+    
+    /**
+     * Số chuyến bay chờ rút gọn (partial index idx_delivery_uncompacted); RouteCompactor gọi mỗi lượt, không gọi theo scrape
+     */
+    @Query(value = "SELECT COUNT(*) FROM delivery_logs WHERE status = 'COMPLETED' AND route_tolerance_m IS NULL",
+           nativeQuery = true)
+    long countUncompacted();
 }
@@ -1,11 +1,16 @@
 package com.programming.droneservice.repository;
 
+import com.programming.droneservice.dto.DroneRequestSummaryDto;
 import com.programming.droneservice.model.DroneRegistrationRequest;
 import com.programming.droneservice.model.RequestStatus;
 import com.programming.droneservice.model.RequestType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -21,6 +26,29 @@ public interface DroneRegistrationRequestRepository extends JpaRepository<DroneR
      */
     List<DroneRegistrationRequest> findByRestaurantIdOrderByCreatedAtDesc(String restaurantId);
     
+    /**
+     * Danh sách request phân trang keyset (createdAt DESC, id DESC), lọc phía server
+     * Filter null = không lọc; trang đầu dùng KeysetCursor.FIRST
+     */
+    @Query("SELECT new com.programming.droneservice.dto.DroneRequestSummaryDto(" +
+           "r.id, r.restaurantId, r.ownerId, r.restaurantName, r.requestType, r.status, r.droneName, " +
+           "r.droneModel, r.maxPayloadKg, r.maxSpeedKmh, r.homeLat, r.homeLng, r.droneId, r.reason, " +
+           "r.adminNote, r.createdAt, r.processedAt) " +
+           "FROM DroneRegistrationRequest r " +
+           "WHERE (:restaurantId IS NULL OR r.restaurantId = :restaurantId) " +
+           "AND (:status IS NULL OR r.status = :status) " +
+           "AND (:requestType IS NULL OR r.requestType = :requestType) " +
+           "AND (r.createdAt < :cursorCreatedAt OR (r.createdAt = :cursorCreatedAt AND r.id < :cursorId)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<DroneRequestSummaryDto> findSummaryPage(
+        @Param("restaurantId") String restaurantId,
+        @Param("status") RequestStatus status,
+        @Param("requestType") RequestType requestType,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
     /**
      * Tìm request theo type và status
      */
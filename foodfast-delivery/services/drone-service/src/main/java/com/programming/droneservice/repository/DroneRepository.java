@@ -1,12 +1,15 @@
 package com.programming.droneservice.repository;
 
+import com.programming.droneservice.dto.DroneSummaryDto;
 import com.programming.droneservice.model.Drone;
 import com.programming.droneservice.model.DroneStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +26,56 @@ public interface DroneRepository extends JpaRepository<Drone, Long> {
      */
     List<Drone> findByOwnerIdAndIsActiveTrue(String ownerId);
     
+    /**
+     * Danh sách drone phân trang keyset (createdAt DESC, id DESC), lọc phía server
+     * Filter null = không lọc; trang đầu dùng KeysetCursor.FIRST
+     */
+    @Query("SELECT new com.programming.droneservice.dto.DroneSummaryDto(" +
+           "d.id, d.restaurantId, d.name, d.status, d.batteryPercent, d.currentLat, d.currentLng, " +
+           "d.homeLat, d.homeLng, d.maxPayloadKg, d.maxSpeedKmh, d.currentOrderId, d.totalDeliveries, " +
+           "d.isActive, d.createdAt) " +
+           "FROM Drone d " +
+           "WHERE (:ownerId IS NULL OR d.ownerId = :ownerId) " +
+           "AND (:restaurantId IS NULL OR d.restaurantId = :restaurantId) " +
+           "AND (:status IS NULL OR d.status = :status) " +
+           "AND (:active IS NULL OR d.isActive = :active) " +
+           "AND (d.createdAt < :cursorCreatedAt OR (d.createdAt = :cursorCreatedAt AND d.id < :cursorId)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<DroneSummaryDto> findSummaryPage(
+        @Param("ownerId") String ownerId,
+        @Param("restaurantId") String restaurantId,
+        @Param("status") DroneStatus status,
+        @Param("active") Boolean active,
+        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
+    /**
+     * Drone available của nhà hàng (projection), pin cao nhất trước
+     */
+    @Query("SELECT new com.programming.droneservice.dto.DroneSummaryDto(" +
+           "d.id, d.restaurantId, d.name, d.status, d.batteryPercent, d.currentLat, d.currentLng, " +
+           "d.homeLat, d.homeLng, d.maxPayloadKg, d.maxSpeedKmh, d.currentOrderId, d.totalDeliveries, " +
+           "d.isActive, d.createdAt) " +
+           "FROM Drone d WHERE d.restaurantId = :restaurantId " +
+           "AND d.status = 'IDLE' " +
+           "AND d.batteryPercent >= :minBattery " +
+           "AND d.isActive = true " +
+           "ORDER BY d.batteryPercent DESC, d.id")
+    List<DroneSummaryDto> findAvailableDroneSummaries(
+        @Param("restaurantId") String restaurantId,
+        @Param("minBattery") Double minBattery,
+        Pageable pageable
+    );
+    
+    /**
+     * Chủ nhà hàng có drone (active) thuộc nhà hàng này không (kiểm tra quyền, không nạp danh sách drone)
+     */
+    boolean existsByOwnerIdAndRestaurantIdAndIsActiveTrue(String ownerId, String restaurantId);
+    
+    boolean existsByOwnerIdAndIsActiveTrue(String ownerId);
+    
     /**
      * Tìm drone available (IDLE, pin đầy, active)
      * Để gợi ý cho nhà hàng khi có đơn hàng mới
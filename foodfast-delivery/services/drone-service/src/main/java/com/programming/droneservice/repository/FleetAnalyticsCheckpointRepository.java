@@ -0,0 +1,16 @@
+package com.programming.droneservice.repository;
+
+import com.programming.droneservice.model.FleetAnalyticsCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FleetAnalyticsCheckpointRepository extends JpaRepository<FleetAnalyticsCheckpoint, String> {
+
+    /**
+     * Checkpoint của các instance khác (cộng vào số liệu của instance hiện tại)
+     */
+    List<FleetAnalyticsCheckpoint> findByInstanceIdNot(String instanceId);
+}
@@ -0,0 +1,26 @@
+package com.programming.droneservice.repository;
+
+import com.programming.droneservice.model.RoutePoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RoutePointRepository extends JpaRepository<RoutePoint, Long> {
+    
+    /**
+     * Lấy lộ trình của một chuyến bay theo thứ tự ghi
+     */
+    List<RoutePoint> findByDeliveryLogIdOrderByIdAsc(Long deliveryLogId);
+    
+    /**
+     * Xóa các điểm đã được nén vào delivery_logs.route_data
+     */
+    @Modifying
+    @Query("DELETE FROM RoutePoint p WHERE p.deliveryLogId = :deliveryLogId")
+    int deleteByDeliveryLogId(@Param("deliveryLogId") Long deliveryLogId);
+}
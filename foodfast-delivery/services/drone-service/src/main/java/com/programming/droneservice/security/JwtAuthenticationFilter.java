@@ -40,9 +40,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             final String jwt = authHeader.substring(7);
             
-            if (jwtUtil.validateToken(jwt)) {
-                String userId = jwtUtil.extractUserId(jwt);
-                String role = jwtUtil.extractRole(jwt);
+            // Một lần verify (hoặc cache hit) cho cả userId và role
+            JwtPrincipal principal = jwtUtil.verify(jwt);
+            if (principal != null) {
+                String userId = principal.userId();
+                String role = principal.role();
                 
                 log.debug("JWT validated for user: {} with role: {}", userId, role);
                 
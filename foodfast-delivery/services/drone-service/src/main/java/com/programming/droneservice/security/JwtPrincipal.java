@@ -0,0 +1,7 @@
+package com.programming.droneservice.security;
+
+/**
+ * Thông tin đã trích từ một JWT hợp lệ (một lần parse cho mỗi token)
+ */
+public record JwtPrincipal(String userId, String role, String email) {
+}
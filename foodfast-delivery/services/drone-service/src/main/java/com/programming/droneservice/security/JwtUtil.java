@@ -1,52 +1,170 @@
 package com.programming.droneservice.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Xác thực JWT của user-service (HMAC, cùng jwt.secret)
+ *
+ * - Key và JwtParser dựng một lần (parser immutable, dùng chung giữa các thread)
+ * - verify(): parse + kiểm chữ ký một lần, trả về JwtPrincipal (userId, role, email)
+ * - Token hợp lệ được cache theo SHA-256 của token tới khi hết hạn (LRU, tối đa jwt.cache.max-entries)
+ *   → các request sau với cùng token không verify HMAC / parse JSON lại
+ */
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    private final JwtParser parser;
+    private final int cacheMaxEntries;
+    private final long cacheMaxTtlMillis;
+    
+    // Access-order → LRU; get() cũng đổi thứ tự nên mọi truy cập đều giữ lock của map
+    private final Map<String, CachedPrincipal> cache;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    
+    public JwtUtil(
+            @Value("${jwt.secret}") String secret,
+            @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries,
+            @Value("${jwt.cache.max-ttl-ms:900000}") long cacheMaxTtlMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.cacheMaxTtlMillis = cacheMaxTtlMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > JwtUtil.this.cacheMaxEntries;
+            }
+        };
+        
+        this.hitCounter = meterRegistry.counter("drone.jwt.cache.hit");
+        this.missCounter = meterRegistry.counter("drone.jwt.cache.miss");
+        Gauge.builder("drone.jwt.cache.size", this, JwtUtil::cacheSize)
+                .description("Số token đã xác thực đang được cache")
+                .register(meterRegistry);
     }
     
+    /**
+     * Parse và kiểm chữ ký, không qua cache
+     */
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * Xác thực token (cache hit → không parse lại)
+     * @return null nếu token không hợp lệ hoặc đã hết hạn
+     */
+    public JwtPrincipal verify(String token) {
+        try {
+            return principal(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
     
     public String extractUserId(String token) {
-        // User service JWT stores userId in 'id' claim, not subject
-        String userId = extractAllClaims(token).get("id", String.class);
-        return userId != null ? userId : extractAllClaims(token).getSubject();
+        return principal(token).userId();
     }
     
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return principal(token).role();
     }
     
     public String extractEmail(String token) {
-        return extractAllClaims(token).get("email", String.class);
+        return principal(token).email();
     }
     
     public Boolean validateToken(String token) {
-        try {
-            extractAllClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+        return verify(token) != null;
+    }
+    
+    // ========== PRIVATE METHODS ==========
+    
+    private JwtPrincipal principal(String token) {
+        if (cacheMaxEntries <= 0) {
+            return toPrincipal(extractAllClaims(token));
         }
+        
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+            if (cached != null && cached.validUntil <= now) {
+                cache.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            hitCounter.increment();
+            return cached.principal;
+        }
+        
+        missCounter.increment();
+        Claims claims = extractAllClaims(token); // Hết hạn → ExpiredJwtException
+        JwtPrincipal principal = toPrincipal(claims);
+        Date expiration = claims.getExpiration();
+        long validUntil = now + cacheMaxTtlMillis;
+        if (expiration != null) {
+            validUntil = Math.min(validUntil, expiration.getTime());
+        }
+        synchronized (cache) {
+            cache.put(key, new CachedPrincipal(principal, validUntil));
+        }
+        return principal;
+    }
+    
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        // User service JWT stores userId in 'id' claim, not subject
+        String userId = claims.get("id", String.class);
+        return new JwtPrincipal(
+                userId != null ? userId : claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("email", String.class)
+        );
+    }
+    
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+    
+    private int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    private record CachedPrincipal(JwtPrincipal principal, long validUntil) {
     }
 }
@@ -1,8 +1,14 @@
 package com.programming.droneservice.service;
 
 import com.programming.droneservice.dto.AssignOrderRequestDto;
+import com.programming.droneservice.dto.CursorPageDto;
+import com.programming.droneservice.dto.DeliveryLogSummaryDto;
 import com.programming.droneservice.dto.DroneGpsUpdateDto;
 import com.programming.droneservice.dto.DroneRegistrationRequestDto;
+import com.programming.droneservice.dto.DroneRequestSummaryDto;
+import com.programming.droneservice.dto.DroneSummaryDto;
+import com.programming.droneservice.dto.FlightStatsDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
 import com.programming.droneservice.model.*;
 
 import java.util.List;
@@ -12,14 +18,39 @@ public interface DroneService {
     // ========== RESTAURANT APIs ==========
     
     /**
-     * Lấy tất cả drone của nhà hàng (theo ownerId từ JWT)
+     * Lấy drone của nhà hàng (theo ownerId từ JWT), phân trang keyset
+     * @param status null = mọi trạng thái
+     * @param cursor nextCursor của trang trước, null = trang đầu
      */
-    List<Drone> getMyDrones(String ownerId);
+    CursorPageDto<DroneSummaryDto> getMyDrones(String ownerId, DroneStatus status, String cursor, Integer limit);
     
     /**
-     * Lấy danh sách drone available để giao đơn hàng
+     * Chủ nhà hàng có drone thuộc nhà hàng này không
      */
-    List<Drone> getAvailableDrones(String restaurantId, Double minBattery);
+    boolean ownsRestaurant(String ownerId, String restaurantId);
+    
+    /**
+     * Chủ nhà hàng đã có drone nào chưa
+     */
+    boolean hasDrones(String ownerId);
+    
+    /**
+     * Lấy danh sách drone available để giao đơn hàng (pin cao nhất trước, tối đa limit drone)
+     */
+    List<DroneSummaryDto> getAvailableDrones(String restaurantId, Double minBattery, Integer limit);
+    
+    /**
+     * Tìm k drone IDLE gần điểm (lat, lng) nhất trong bán kính radiusKm (dùng spatial index, không query DB)
+     * radiusKm tối đa delivery.max-distance-km, limit tối đa DroneSpatialIndex.MAX_NEAREST
+     */
+    List<NearbyDroneDto> findNearestAvailableDrones(
+        double lat,
+        double lng,
+        Double radiusKm,
+        Double minBattery,
+        int limit,
+        String restaurantId
+    );
     
     /**
      * Gửi request đăng ký drone mới
@@ -47,16 +78,42 @@ public interface DroneService {
     DroneRegistrationRequest submitDeleteRequest(Long droneId, String ownerId, String reason);
     
     /**
-     * Xem lịch sử request của nhà hàng
+     * Xem lịch sử request của nhà hàng, phân trang keyset
+     */
+    CursorPageDto<DroneRequestSummaryDto> getMyRequests(
+        String restaurantId,
+        RequestStatus status,
+        RequestType requestType,
+        String cursor,
+        Integer limit
+    );
+    
+    /**
+     * Lịch sử chuyến bay của drone, phân trang keyset
+     * @param ownerId null = admin (không kiểm tra quyền sở hữu)
+     * @param includeCold false/null → chỉ các partition nóng (2 tháng gần nhất), true → cả chuyến bay cũ chưa archive
      */
-    List<DroneRegistrationRequest> getMyRequests(String restaurantId);
+    CursorPageDto<DeliveryLogSummaryDto> getDeliveryHistory(
+        Long droneId,
+        String ownerId,
+        DeliveryStatus status,
+        String cursor,
+        Integer limit,
+        Boolean includeCold
+    );
     
     // ========== ADMIN APIs ==========
     
     /**
-     * Lấy tất cả request pending
+     * Lấy request pending, phân trang keyset
+     * @param restaurantId null = mọi nhà hàng
      */
-    List<DroneRegistrationRequest> getPendingRequests();
+    CursorPageDto<DroneRequestSummaryDto> getPendingRequests(
+        String restaurantId,
+        RequestType requestType,
+        String cursor,
+        Integer limit
+    );
     
     /**
      * Duyệt request (tạo drone mới hoặc xóa drone)
@@ -69,9 +126,16 @@ public interface DroneService {
     DroneRegistrationRequest rejectRequest(Long requestId, String adminId, String adminNote);
     
     /**
-     * Xem tất cả drone trong hệ thống
+     * Xem drone trong hệ thống, phân trang keyset
+     * Filter null = không lọc
      */
-    List<Drone> getAllDrones();
+    CursorPageDto<DroneSummaryDto> getAllDrones(
+        String restaurantId,
+        DroneStatus status,
+        Boolean active,
+        String cursor,
+        Integer limit
+    );
     
     // ========== INTERNAL APIs (gọi từ order-service) ==========
     
@@ -80,6 +144,12 @@ public interface DroneService {
      */
     Drone assignOrder(AssignOrderRequestDto dto);
     
+    /**
+     * Gán đơn do DispatchEngine chọn: như assignOrder, thêm DRONE_ASSIGNED vào outbox trong cùng transaction
+     * (order-service chuyển đơn sang SHIPPED)
+     */
+    Drone dispatchOrder(AssignOrderRequestDto dto);
+    
     /**
      * Cập nhật GPS của drone (từ WebSocket)
      */
@@ -104,4 +174,9 @@ public interface DroneService {
      * Lấy delivery log theo orderId
      */
     DeliveryLog getDeliveryLogByOrderId(Long orderId);
+    
+    /**
+     * Thống kê chuyến bay của đơn (live nếu đang giao)
+     */
+    FlightStatsDto getFlightStats(Long orderId);
 }
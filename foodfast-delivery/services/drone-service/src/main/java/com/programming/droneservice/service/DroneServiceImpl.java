@@ -1,24 +1,45 @@
 package com.programming.droneservice.service;
 
+import com.programming.droneservice.analytics.FleetAnalytics;
 import com.programming.droneservice.dto.AssignOrderRequestDto;
+import com.programming.droneservice.dto.CursorPageDto;
+import com.programming.droneservice.dto.DeliveryLogSummaryDto;
 import com.programming.droneservice.dto.DroneGpsUpdateDto;
 import com.programming.droneservice.dto.DroneRegistrationRequestDto;
+import com.programming.droneservice.dto.DroneRequestSummaryDto;
+import com.programming.droneservice.dto.DroneSummaryDto;
+import com.programming.droneservice.dto.FlightStatsDto;
+import com.programming.droneservice.dto.NearbyDroneDto;
 import com.programming.droneservice.exception.BadRequestException;
 import com.programming.droneservice.exception.ResourceNotFoundException;
+import com.programming.droneservice.fleet.DroneState;
+import com.programming.droneservice.fleet.DroneStateMachine;
+import com.programming.droneservice.fleet.DroneTransition;
+import com.programming.droneservice.fleet.FleetStateCache;
+import com.programming.droneservice.fleet.FleetStateSync;
+import com.programming.droneservice.fleet.GeofenceMonitor;
 import com.programming.droneservice.model.*;
+import com.programming.droneservice.outbox.EventOutbox;
 import com.programming.droneservice.repository.DeliveryLogRepository;
 import com.programming.droneservice.repository.DroneRegistrationRequestRepository;
 import com.programming.droneservice.repository.DroneRepository;
+import com.programming.droneservice.spatial.DroneSpatialIndex;
+import com.programming.droneservice.telemetry.FlightStats;
+import com.programming.droneservice.telemetry.FlightStatsTracker;
+import com.programming.droneservice.telemetry.GpsBatchWriter;
+import com.programming.droneservice.telemetry.GpsIngestionBuffer;
+import com.programming.droneservice.telemetry.RoutePointStore;
 import com.programming.droneservice.util.GpsUtil;
+import com.programming.droneservice.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,7 +52,18 @@ public class DroneServiceImpl implements DroneService {
     private final DroneRepository droneRepository;
     private final DeliveryLogRepository deliveryLogRepository;
     private final DroneRegistrationRequestRepository requestRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final EventOutbox eventOutbox;
+    private final GpsIngestionBuffer gpsIngestionBuffer;
+    private final GpsBatchWriter gpsBatchWriter;
+    private final RoutePointStore routePointStore;
+    private final DroneSpatialIndex droneSpatialIndex;
+    private final FleetStateCache fleetStateCache;
+    private final FlightStatsTracker flightStatsTracker;
+    private final GeofenceMonitor geofenceMonitor;
+    private final FleetAnalytics fleetAnalytics;
+    private final DroneStateMachine droneStateMachine;
+    private final TransactionTemplate transactionTemplate;
+    private final FleetStateSync fleetStateSync;
     
     @Value("${delivery.max-distance-km}")
     private Double maxDistanceKm;
@@ -45,16 +77,56 @@ public class DroneServiceImpl implements DroneService {
     // ========== RESTAURANT APIs ==========
     
     @Override
-    public List<Drone> getMyDrones(String ownerId) {
-        return droneRepository.findByOwnerIdAndIsActiveTrue(ownerId);
+    public CursorPageDto<DroneSummaryDto> getMyDrones(String ownerId, DroneStatus status, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<DroneSummaryDto> rows = droneRepository.findSummaryPage(ownerId, null, status, true,
+                after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, drone -> new KeysetCursor(drone.getCreatedAt(), drone.getId()));
     }
     
     @Override
-    public List<Drone> getAvailableDrones(String restaurantId, Double minBattery) {
+    public boolean ownsRestaurant(String ownerId, String restaurantId) {
+        return droneRepository.existsByOwnerIdAndRestaurantIdAndIsActiveTrue(ownerId, restaurantId);
+    }
+    
+    @Override
+    public boolean hasDrones(String ownerId) {
+        return droneRepository.existsByOwnerIdAndIsActiveTrue(ownerId);
+    }
+    
+    @Override
+    public List<DroneSummaryDto> getAvailableDrones(String restaurantId, Double minBattery, Integer limit) {
         if (minBattery == null) {
             minBattery = 80.0; // Mặc định yêu cầu ít nhất 80% pin
         }
-        return droneRepository.findAvailableDrones(restaurantId, minBattery);
+        return droneRepository.findAvailableDroneSummaries(restaurantId, minBattery,
+                PageRequest.of(0, KeysetCursor.clampLimit(limit)));
+    }
+    
+    @Override
+    public List<NearbyDroneDto> findNearestAvailableDrones(
+            double lat, double lng, Double radiusKm, Double minBattery, int limit, String restaurantId
+    ) {
+        if (!Double.isFinite(lat) || Math.abs(lat) > 90 || !Double.isFinite(lng) || Math.abs(lng) > 180) {
+            throw new BadRequestException("Invalid coordinates");
+        }
+        if (radiusKm == null) {
+            radiusKm = maxDistanceKm; // Mặc định: tầm giao hàng tối đa
+        } else if (!Double.isFinite(radiusKm) || radiusKm <= 0) {
+            throw new BadRequestException("radiusKm must be a positive number");
+        }
+        if (minBattery == null) {
+            minBattery = 80.0;
+        } else if (!Double.isFinite(minBattery)) {
+            throw new BadRequestException("minBattery must be a number");
+        }
+        if (limit <= 0) {
+            throw new BadRequestException("limit must be positive");
+        }
+        // Xa hơn tầm giao hàng thì drone cũng không nhận được đơn → không cần quét thêm ô
+        return droneSpatialIndex.findNearestIdle(lat, lng, Math.min(radiusKm, maxDistanceKm), minBattery,
+                Math.min(limit, DroneSpatialIndex.MAX_NEAREST), restaurantId);
     }
     
     @Override
@@ -86,38 +158,20 @@ public class DroneServiceImpl implements DroneService {
     @Override
     @Transactional
     public Drone markDroneAsMaintenance(Long droneId, String ownerId) {
-        Drone drone = droneRepository.findById(droneId)
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
-        
-        if (!drone.getOwnerId().equals(ownerId)) {
-            throw new BadRequestException("You don't own this drone");
-        }
-        
-        if (drone.getStatus() == DroneStatus.DELIVERING) {
-            throw new BadRequestException("Cannot mark drone as maintenance while delivering");
-        }
-        
-        drone.setStatus(DroneStatus.MAINTENANCE);
-        return droneRepository.save(drone);
+        // Chủ drone + không đang giao hàng: kiểm tra ngay trong câu UPDATE (DroneTransition)
+        Drone saved = droneStateMachine.apply(droneId, DroneTransition.START_MAINTENANCE, ownerId, null, 0);
+        fleetStateCache.putAfterCommit(saved);
+        fleetStateSync.publishAfterCommit(droneId);
+        return saved;
     }
     
     @Override
     @Transactional
     public Drone markDroneReady(Long droneId, String ownerId) {
-        Drone drone = droneRepository.findById(droneId)
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
-        
-        if (!drone.getOwnerId().equals(ownerId)) {
-            throw new BadRequestException("You don't own this drone");
-        }
-        
-        if (drone.getStatus() != DroneStatus.MAINTENANCE) {
-            throw new BadRequestException("Drone is not in maintenance mode");
-        }
-        
-        drone.setStatus(DroneStatus.IDLE);
-        drone.setCurrentOrderId(null);
-        return droneRepository.save(drone);
+        Drone saved = droneStateMachine.apply(droneId, DroneTransition.FINISH_MAINTENANCE, ownerId, null, 0);
+        fleetStateCache.putAfterCommit(saved);
+        fleetStateSync.publishAfterCommit(droneId);
+        return saved;
     }
     
     @Override
@@ -147,15 +201,37 @@ public class DroneServiceImpl implements DroneService {
     }
     
     @Override
-    public List<DroneRegistrationRequest> getMyRequests(String restaurantId) {
-        return requestRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurantId);
+    public CursorPageDto<DroneRequestSummaryDto> getMyRequests(
+            String restaurantId, RequestStatus status, RequestType requestType, String cursor, Integer limit
+    ) {
+        return findRequestPage(restaurantId, status, requestType, cursor, limit);
+    }
+    
+    @Override
+    public CursorPageDto<DeliveryLogSummaryDto> getDeliveryHistory(
+            Long droneId, String ownerId, DeliveryStatus status, String cursor, Integer limit, Boolean includeCold
+    ) {
+        Drone drone = droneRepository.findById(droneId)
+                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
+        
+        if (ownerId != null && !drone.getOwnerId().equals(ownerId)) {
+            throw new BadRequestException("You don't own this drone");
+        }
+        
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<DeliveryLogSummaryDto> rows = deliveryLogRepository.findSummaryPageByDroneId(
+                droneId, status, after, Boolean.TRUE.equals(includeCold), PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, flight -> new KeysetCursor(flight.getCreatedAt(), flight.getId()));
     }
     
     // ========== ADMIN APIs ==========
     
     @Override
-    public List<DroneRegistrationRequest> getPendingRequests() {
-        return requestRepository.findByStatusOrderByCreatedAtDesc(RequestStatus.PENDING);
+    public CursorPageDto<DroneRequestSummaryDto> getPendingRequests(
+            String restaurantId, RequestType requestType, String cursor, Integer limit
+    ) {
+        return findRequestPage(restaurantId, RequestStatus.PENDING, requestType, cursor, limit);
     }
     
     @Override
@@ -185,7 +261,9 @@ public class DroneServiceImpl implements DroneService {
                     .isActive(true)
                     .build();
             
-            droneRepository.save(newDrone);
+            Drone saved = droneRepository.save(newDrone);
+            fleetStateCache.putAfterCommit(saved);
+            fleetStateSync.publishAfterCommit(saved.getId());
             log.info("Admin {} approved drone registration for restaurant {}", adminId, request.getRestaurantId());
             
         } else if (request.getRequestType() == RequestType.DELETE_DRONE) {
@@ -194,7 +272,8 @@ public class DroneServiceImpl implements DroneService {
                     .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
             
             drone.setIsActive(false);
-            droneRepository.save(drone);
+            fleetStateCache.putAfterCommit(droneRepository.save(drone));
+            fleetStateSync.publishAfterCommit(drone.getId());
             log.info("Admin {} approved drone deletion: {}", adminId, request.getDroneId());
         }
         
@@ -226,8 +305,14 @@ public class DroneServiceImpl implements DroneService {
     }
     
     @Override
-    public List<Drone> getAllDrones() {
-        return droneRepository.findAll();
+    public CursorPageDto<DroneSummaryDto> getAllDrones(
+            String restaurantId, DroneStatus status, Boolean active, String cursor, Integer limit
+    ) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<DroneSummaryDto> rows = droneRepository.findSummaryPage(null, restaurantId, status, active,
+                after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, drone -> new KeysetCursor(drone.getCreatedAt(), drone.getId()));
     }
     
     // ========== INTERNAL APIs ==========
@@ -235,16 +320,20 @@ public class DroneServiceImpl implements DroneService {
     @Override
     @Transactional
     public Drone assignOrder(AssignOrderRequestDto dto) {
-        Drone drone = droneRepository.findById(dto.getDroneId())
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
+        // Vị trí/pin lấy từ fleet cache (mới hơn database), không đọc entity
+        DroneState state = fleetStateCache.getOrLoad(dto.getDroneId());
+        if (state == null) {
+            throw new ResourceNotFoundException("Drone not found");
+        }
         
-        if (drone.getStatus() != DroneStatus.IDLE) {
+        // Kiểm tra sớm; điều kiện quyết định nằm trong câu UPDATE bên dưới
+        if (state.status() != DroneStatus.IDLE) {
             throw new BadRequestException("Drone is not available");
         }
         
         // Tính khoảng cách
         double distance = GpsUtil.calculateDistance(
-                drone.getCurrentLat(), drone.getCurrentLng(),
+                state.lat(), state.lng(),
                 dto.getDestinationLat(), dto.getDestinationLng()
         );
         
@@ -253,17 +342,16 @@ public class DroneServiceImpl implements DroneService {
         }
         
         // Kiểm tra pin
-        if (!GpsUtil.hasSufficientBattery(drone.getBatteryPercent(), distance, batteryConsumptionPerKm)) {
+        if (!GpsUtil.hasSufficientBattery(state.batteryPercent(), distance, batteryConsumptionPerKm)) {
             throw new BadRequestException("Insufficient battery for this delivery");
         }
         
         // Tính ETA
         int eta = GpsUtil.calculateETA(distance, speedKmh);
         
-        // Cập nhật drone
-        drone.setStatus(DroneStatus.DELIVERING);
-        drone.setCurrentOrderId(dto.getOrderId());
-        droneRepository.save(drone);
+        // ⭐️ IDLE → DELIVERING bằng một UPDATE có điều kiện: hai lượt dispatch cùng drone → đúng một lượt thắng
+        Drone drone = droneStateMachine.apply(
+                dto.getDroneId(), DroneTransition.ASSIGN_ORDER, null, dto.getOrderId(), 0);
         
         // Tạo delivery log
         DeliveryLog deliveryLog = DeliveryLog.builder()
@@ -275,10 +363,14 @@ public class DroneServiceImpl implements DroneService {
                 .estimatedDistanceKm(distance)
                 .estimatedDurationMinutes(eta)
                 .status(DeliveryStatus.PREPARING)
-                .routePath(new ArrayList<>())
                 .build();
         
         deliveryLogRepository.save(deliveryLog);
+        fleetStateCache.putAfterCommit(drone, deliveryLog.getId());
+        flightStatsTracker.startAfterCommit(deliveryLog.getId());
+        geofenceMonitor.armAfterCommit(drone, deliveryLog);
+        // Session STOMP của drone có thể ở instance khác: instance đó cần deliveryLogId + geofence
+        fleetStateSync.publishAfterCommit(drone.getId());
         
         log.info("Assigned order {} to drone {}, distance: {} km, ETA: {} minutes",
                 dto.getOrderId(), drone.getId(), distance, eta);
@@ -288,158 +380,199 @@ public class DroneServiceImpl implements DroneService {
     
     @Override
     @Transactional
+    public Drone dispatchOrder(AssignOrderRequestDto dto) {
+        Drone drone = assignOrder(dto);
+        publishDroneAssignedEvent(dto.getOrderId(), drone.getId());
+        return drone;
+    }
+    
+    @Override
     public void updateDroneGps(DroneGpsUpdateDto dto) {
-        Drone drone = droneRepository.findById(dto.getDroneId())
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
-        
-        drone.setCurrentLat(dto.getLat());
-        drone.setCurrentLng(dto.getLng());
-        
-        if (dto.getBatteryPercent() != null) {
-            drone.setBatteryPercent(dto.getBatteryPercent());
+        // Chỉ chạm cache + hàng đợi write-behind, không đọc Postgres (trừ lần đầu gặp drone)
+        DroneState state = fleetStateCache.updatePosition(
+                dto.getDroneId(), dto.getLat(), dto.getLng(), dto.getBatteryPercent());
+        if (state == null && fleetStateCache.getOrLoad(dto.getDroneId()) != null) {
+            // Cache miss (drone mới được duyệt / gán đơn ở instance khác): nạp một lần từ database
+            state = fleetStateCache.updatePosition(
+                    dto.getDroneId(), dto.getLat(), dto.getLng(), dto.getBatteryPercent());
         }
-        
-        droneRepository.save(drone);
-        
-        // Nếu drone đang giao hàng, lưu vào delivery log
-        if (drone.getCurrentOrderId() != null) {
-            DeliveryLog deliveryLog = deliveryLogRepository.findByOrderId(drone.getCurrentOrderId())
-                    .orElse(null);
-            
-            if (deliveryLog != null) {
-                GpsPoint point = GpsPoint.builder()
-                        .lat(dto.getLat())
-                        .lng(dto.getLng())
-                        .timestamp(LocalDateTime.now())
-                        .batteryPercent(dto.getBatteryPercent())
-                        .speedKmh(dto.getSpeedKmh())
-                        .build();
-                
-                deliveryLog.getRoutePath().add(point);
-                
-                if (deliveryLog.getStatus() == DeliveryStatus.PREPARING) {
-                    deliveryLog.setStatus(DeliveryStatus.IN_FLIGHT);
-                    deliveryLog.setStartTime(LocalDateTime.now());
-                }
-                
-                deliveryLogRepository.save(deliveryLog);
-            }
+        if (state == null) {
+            log.debug("Ignoring GPS update from unknown drone {}", dto.getDroneId());
+            return;
         }
+        gpsIngestionBuffer.offer(dto, state.deliveryLogId());
+        // Tới điểm giao được phát hiện ngay tại đây (GeofenceEventListener chuyển trạng thái)
+        geofenceMonitor.check(state);
     }
     
     @Override
-    @Transactional
     public void markDroneArrived(Long droneId) {
-        Drone drone = droneRepository.findById(droneId)
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
+        // Ghi các điểm GPS còn trong hàng đợi của drone trước khi chốt trạng thái
+        // (trước khi mở transaction: flush có thể chờ lượt ghi định kỳ, không giữ connection trong lúc chờ)
+        gpsBatchWriter.flushDrone(droneId);
+        transactionTemplate.executeWithoutResult(status -> applyArrived(droneId));
+    }
+    
+    @Override
+    public void completeDelivery(Long droneId, Long orderId) {
+        // Route phải đầy đủ để tính actualDistanceKm (flush ngoài transaction, như markDroneArrived)
+        gpsBatchWriter.flushDrone(droneId);
+        transactionTemplate.executeWithoutResult(status -> applyDeliveryCompleted(droneId, orderId));
+    }
+    
+    @Override
+    @Transactional
+    public void markDroneReturnedToBase(Long droneId) {
+        // RETURNING → IDLE, reset đơn hàng (sẵn sàng nhận đơn mới)
+        Drone drone = droneStateMachine.apply(droneId, DroneTransition.RETURN_TO_BASE, null, null, 0);
+        fleetStateCache.putAfterCommit(drone);
+        fleetStateSync.publishAfterCommit(droneId);
+        
+        log.info("✅ Drone {} returned to base and is now IDLE", droneId);
+    }
+    
+    @Override
+    public DeliveryLog getDeliveryLogByOrderId(Long orderId) {
+        DeliveryLog deliveryLog = deliveryLogRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
+        return routePointStore.loadRoute(deliveryLog);
+    }
+    
+    @Override
+    public FlightStatsDto getFlightStats(Long orderId) {
+        DeliveryLog deliveryLog = deliveryLogRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
+        FlightStatsDto stats = flightStatsTracker.get(deliveryLog).snapshot();
+        stats.setOrderId(orderId);
+        if (deliveryLog.getRouteToleranceMeters() != null && deliveryLog.getActualDistanceKm() != null) {
+            // Route đã rút gọn ngắn hơn route thật một chút → dùng quãng đường đã chốt lúc hoàn thành
+            stats.setDistanceKm(deliveryLog.getActualDistanceKm());
+        }
+        return stats;
+    }
+    
+    // ========== PRIVATE METHODS ==========
+    
+    /**
+     * Phần transaction của markDroneArrived
+     */
+    private void applyArrived(Long droneId) {
+        DroneState drone = fleetStateCache.getOrLoad(droneId);
+        if (drone == null) {
+            throw new ResourceNotFoundException("Drone not found");
+        }
         
-        if (drone.getCurrentOrderId() == null) {
+        if (drone.currentOrderId() == null) {
             throw new BadRequestException("Drone is not delivering any order");
         }
         
-        DeliveryLog deliveryLog = deliveryLogRepository.findByOrderId(drone.getCurrentOrderId())
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
+        DeliveryLog deliveryLog = findActiveDeliveryLog(drone, drone.currentOrderId());
+        
+        // Geofence và client (/app/drone/arrived) có thể cùng báo → chỉ xử lý lần đầu
+        if (deliveryLog.getStatus() == DeliveryStatus.ARRIVED) {
+            log.debug("Drone {} already arrived for order {}", droneId, drone.currentOrderId());
+            return;
+        }
         
         deliveryLog.setStatus(DeliveryStatus.ARRIVED);
         deliveryLog.setArrivalTime(LocalDateTime.now());
         deliveryLogRepository.save(deliveryLog);
+        fleetStateSync.publishAfterCommit(droneId);
         
         // ⭐️ THÊM: Publish event để order-service cập nhật order status thành DELIVERED
-        try {
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("orderId", drone.getCurrentOrderId());
-            eventData.put("droneId", droneId);
-            eventData.put("event", "DRONE_ARRIVED");
-            eventData.put("timestamp", LocalDateTime.now().toString());
-            
-            String json = new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(eventData);
-            redisTemplate.convertAndSend("drone.events", json);
-            log.info("✅ Published DRONE_ARRIVED event for order {}", drone.getCurrentOrderId());
-        } catch (Exception e) {
-            log.error("Failed to publish drone arrived event", e);
-        }
-        
-        log.info("Drone {} arrived at destination for order {}", droneId, drone.getCurrentOrderId());
+        // (ghi vào outbox cùng transaction, OutboxRelay publish lên Redis sau khi commit)
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("orderId", drone.currentOrderId());
+        eventData.put("droneId", droneId);
+        eventData.put("event", "DRONE_ARRIVED");
+        eventData.put("timestamp", LocalDateTime.now().toString());
+        eventOutbox.enqueue("drone.events", droneId, eventData);
+        log.info("✅ Queued DRONE_ARRIVED event for order {}", drone.currentOrderId());
+        
+        log.info("Drone {} arrived at destination for order {}", droneId, drone.currentOrderId());
     }
     
-    @Override
-    @Transactional
-    public void completeDelivery(Long droneId, Long orderId) {
-        Drone drone = droneRepository.findById(droneId)
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
+    /**
+     * Phần transaction của completeDelivery
+     */
+    private void applyDeliveryCompleted(Long droneId, Long orderId) {
+        DeliveryLog deliveryLog = findActiveDeliveryLog(fleetStateCache.get(droneId), orderId);
+        
+        // Khoảng cách thực tế đã bay: cộng dồn theo từng điểm GPS (FlightStatsTracker), O(1)
+        // Nhiều instance: điểm có thể do instance khác ghi → dựng từ route đã lưu
+        FlightStats flightStats = fleetStateSync.isEnabled()
+                ? flightStatsTracker.getFromRoute(deliveryLog) : flightStatsTracker.get(deliveryLog);
+        double actualDistance = flightStats.getDistanceKm();
         
-        DeliveryLog deliveryLog = deliveryLogRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
+        double batteryConsumed = GpsUtil.calculateBatteryConsumption(actualDistance, batteryConsumptionPerKm);
         
-        // Tính khoảng cách thực tế đã bay
-        double actualDistance = 0.0;
-        List<GpsPoint> routePath = deliveryLog.getRoutePath();
-        for (int i = 1; i < routePath.size(); i++) {
-            GpsPoint prev = routePath.get(i - 1);
-            GpsPoint curr = routePath.get(i);
-            actualDistance += GpsUtil.calculateDistance(prev.getLat(), prev.getLng(), curr.getLat(), curr.getLng());
-        }
+        // ⭐️ CẬP NHẬT: Drone tự động quay về IDLE sau khi giao xong
+        // (Thay vì RETURNING, ta giả định drone bay về ngay và sẵn sàng nhận đơn mới)
+        // DELIVERING (đúng đơn này) → IDLE, +1 chuyến, trừ pin: một UPDATE có điều kiện,
+        // gọi lặp lại cho cùng đơn → "Drone is not delivering this order"
+        Drone drone = droneStateMachine.apply(
+                droneId, DroneTransition.COMPLETE_DELIVERY, null, orderId, batteryConsumed);
         
-        double batteryConsumed = GpsUtil.calculateBatteryConsumption(actualDistance, batteryConsumptionPerKm);
+        // Route được rút gọn + nén vào cột nhị phân sau, ngoài transaction này (RouteCompactor)
+        flightStatsTracker.finishAfterCommit(deliveryLog.getId());
         
         deliveryLog.setActualDistanceKm(actualDistance);
         deliveryLog.setBatteryConsumedPercent(batteryConsumed);
         deliveryLog.setStatus(DeliveryStatus.COMPLETED);
         deliveryLog.setEndTime(LocalDateTime.now());
         deliveryLogRepository.save(deliveryLog);
+        fleetAnalytics.recordDeliveryAfterCommit(deliveryLog);
         
-        // ⭐️ CẬP NHẬT: Drone tự động quay về IDLE sau khi giao xong
-        // (Thay vì RETURNING, ta giả định drone bay về ngay và sẵn sàng nhận đơn mới)
-        drone.setStatus(DroneStatus.IDLE);
-        drone.setCurrentOrderId(null);
-        drone.setTotalDeliveries(drone.getTotalDeliveries() + 1);
-        
-        // Giảm pin sau khi giao hàng
-        double newBattery = Math.max(0, drone.getBatteryPercent() - batteryConsumed);
-        drone.setBatteryPercent(newBattery);
-        
-        droneRepository.save(drone);
+        double newBattery = drone.getBatteryPercent();
+        fleetStateCache.putAfterCommit(drone);
+        geofenceMonitor.disarmAfterCommit(droneId);
+        fleetStateSync.publishAfterCommit(droneId);
         
         // Publish event lên Redis để order-service nhận
         publishDeliveryCompletedEvent(orderId);
         
         log.info("✅ Delivery completed for order {}, drone {} returned to IDLE. Battery: {}% → {}%",
-                orderId, droneId, drone.getBatteryPercent() + batteryConsumed, newBattery);
+                orderId, droneId, newBattery + batteryConsumed, newBattery);
     }
     
-    @Override
-    @Transactional
-    public void markDroneReturnedToBase(Long droneId) {
-        Drone drone = droneRepository.findById(droneId)
-                .orElseThrow(() -> new ResourceNotFoundException("Drone not found"));
-        
-        if (drone.getStatus() != DroneStatus.RETURNING) {
-            throw new BadRequestException("Drone is not in RETURNING status");
-        }
-        
-        // Reset drone về trạng thái IDLE (sẵn sàng nhận đơn mới)
-        drone.setStatus(DroneStatus.IDLE);
-        drone.setCurrentOrderId(null);
-        droneRepository.save(drone);
-        
-        log.info("✅ Drone {} returned to base and is now IDLE", droneId);
+    private CursorPageDto<DroneRequestSummaryDto> findRequestPage(
+            String restaurantId, RequestStatus status, RequestType requestType, String cursor, Integer limit
+    ) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = KeysetCursor.clampLimit(limit);
+        List<DroneRequestSummaryDto> rows = requestRepository.findSummaryPage(restaurantId, status, requestType,
+                after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, request -> new KeysetCursor(request.getCreatedAt(), request.getId()));
     }
     
-    @Override
-    public DeliveryLog getDeliveryLogByOrderId(Long orderId) {
+    /**
+     * Chuyến bay của đơn: dùng deliveryLogId đã cache (khóa chính), fallback theo orderId
+     */
+    private DeliveryLog findActiveDeliveryLog(DroneState drone, Long orderId) {
+        if (drone != null && drone.deliveryLogId() != null && orderId.equals(drone.currentOrderId())) {
+            return deliveryLogRepository.findById(drone.deliveryLogId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
+        }
         return deliveryLogRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Delivery log not found"));
     }
     
-    // ========== PRIVATE METHODS ==========
+    private void publishDroneAssignedEvent(Long orderId, Long droneId) {
+        // Cùng transaction với assignOrder: gán thành công ⇔ có event, lỗi ghi outbox → rollback cả phép gán
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("orderId", orderId);
+        eventData.put("droneId", droneId);
+        eventData.put("event", "DRONE_ASSIGNED");
+        eventData.put("timestamp", LocalDateTime.now().toString());
+        eventOutbox.enqueue("delivery.events", orderId, eventData);
+    }
     
     private void publishDeliveryCompletedEvent(Long orderId) {
-        try {
-            String message = String.format("{\"eventType\":\"DeliveryCompleted\",\"orderId\":%d}", orderId);
-            redisTemplate.convertAndSend("delivery.events", message);
-            log.info("Published delivery completed event for order {}", orderId);
-        } catch (Exception e) {
-            log.error("Failed to publish delivery completed event", e);
-        }
+        // Cùng transaction với completeDelivery: rollback → không có event
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("eventType", "DeliveryCompleted");
+        eventData.put("orderId", orderId);
+        eventOutbox.enqueue("delivery.events", orderId, eventData);
+        log.info("Queued delivery completed event for order {}", orderId);
     }
 }
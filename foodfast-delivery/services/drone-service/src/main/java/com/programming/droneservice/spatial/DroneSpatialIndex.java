@@ -0,0 +1,165 @@
+package com.programming.droneservice.spatial;
+
+import com.programming.droneservice.dto.NearbyDroneDto;
+import com.programming.droneservice.fleet.DroneState;
+import com.programming.droneservice.util.DistanceStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục không gian in-memory cho vị trí drone (lưới ô vuông kiểu geohash)
+ *
+ * - Mỗi ô có cạnh cellSizeDeg độ; drone nằm trong đúng một ô theo vị trí hiện tại
+ * - Truy vấn "k drone IDLE gần nhất trong bán kính R" chỉ duyệt các ô giao với bounding box của R,
+ *   không quét bảng drones
+ * - Được FleetStateCache cập nhật (move) sau mỗi GPS update và chuyển trạng thái drone
+ */
+@Component
+public class DroneSpatialIndex {
+
+    private static final double KM_PER_DEG_LAT = 111.32;
+
+    /**
+     * Số drone tối đa một truy vấn nearest trả về
+     */
+    public static final int MAX_NEAREST = 50;
+
+    private final double cellSizeDeg;
+
+    // cellKey → (droneId → trạng thái mới nhất)
+    private final Map<Long, Map<Long, DroneState>> cells = new ConcurrentHashMap<>();
+
+    public DroneSpatialIndex(@Value("${spatial.cell-size-deg:0.01}") double cellSizeDeg) {
+        this.cellSizeDeg = cellSizeDeg;
+    }
+
+    /**
+     * Thay trạng thái của drone và chuyển ô nếu cần
+     * FleetStateCache gọi trong compute() của drone nên các lần move cùng drone không chen nhau
+     *
+     * @param previous Trạng thái cũ (null = drone mới)
+     * @param current Trạng thái mới (null = bỏ drone khỏi index)
+     */
+    public void move(DroneState previous, DroneState current) {
+        Long oldCell = previous != null && previous.hasPosition() ? cellKeyOf(previous) : null;
+        Long newCell = current != null && current.hasPosition() ? cellKeyOf(current) : null;
+        if (oldCell != null && !oldCell.equals(newCell)) {
+            cells.computeIfPresent(oldCell, (key, states) -> {
+                states.remove(previous.droneId());
+                return states.isEmpty() ? null : states;
+            });
+        }
+        if (newCell != null) {
+            cells.compute(newCell, (key, states) -> {
+                Map<Long, DroneState> cellStates = states != null ? states : new ConcurrentHashMap<>();
+                cellStates.put(current.droneId(), current);
+                return cellStates;
+            });
+        }
+    }
+
+    /**
+     * Tìm k drone IDLE gần (lat, lng) nhất trong bán kính radiusKm, pin ≥ minBattery
+     * Bounding box phủ nhiều ô hơn số ô đang có drone → duyệt các ô đang có drone thay vì từng ô của box
+     *
+     * @param restaurantId Chỉ lấy drone của nhà hàng này (null = toàn bộ fleet)
+     * @return Danh sách sắp xếp theo khoảng cách tăng dần
+     */
+    public List<NearbyDroneDto> findNearestIdle(
+            double lat, double lng, double radiusKm, double minBattery, int k, String restaurantId
+    ) {
+        if (k <= 0 || !(radiusKm > 0) || !Double.isFinite(radiusKm) || !Double.isFinite(lat) || !Double.isFinite(lng)) {
+            return List.of();
+        }
+        double dLat = radiusKm / KM_PER_DEG_LAT;
+        double dLng = radiusKm / (KM_PER_DEG_LAT * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+
+        long minRow = cellIndex(lat - dLat);
+        long maxRow = cellIndex(lat + dLat);
+        long minCol = cellIndex(lng - dLng);
+        long maxCol = cellIndex(lng + dLng);
+
+        // Gom ứng viên trong các ô rồi tính khoảng cách một lượt (batch/SIMD)
+        List<DroneState> candidates = new ArrayList<>();
+        double boxCells = (double) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (boxCells > cells.size()) {
+            for (Map.Entry<Long, Map<Long, DroneState>> cell : cells.entrySet()) {
+                long row = cell.getKey() >> 32;
+                long col = (int) cell.getKey().longValue();
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    addAvailable(cell.getValue(), minBattery, restaurantId, candidates);
+                }
+            }
+        } else {
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    addAvailable(cells.get(cellKey(row, col)), minBattery, restaurantId, candidates);
+                }
+            }
+        }
+
+        int count = candidates.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = candidates.get(i).lat();
+            lngs[i] = candidates.get(i).lng();
+        }
+        double[] distances = new double[count];
+        DistanceStrategy.forSpan(radiusKm, lat).distancesKm(lat, lng, lats, lngs, distances, count);
+
+        // Max-heap theo khoảng cách, giữ k phần tử gần nhất
+        PriorityQueue<NearbyDroneDto> best = new PriorityQueue<>(
+                Math.max(1, Math.min(k, count)), Comparator.comparingDouble(NearbyDroneDto::getDistanceKm).reversed());
+        for (int i = 0; i < count; i++) {
+            double distance = distances[i];
+            if (distance > radiusKm) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(candidates.get(i).toNearby(distance));
+            } else if (distance < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(candidates.get(i).toNearby(distance));
+            }
+        }
+
+        List<NearbyDroneDto> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyDroneDto::getDistanceKm));
+        return result;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static void addAvailable(
+            Map<Long, DroneState> cell, double minBattery, String restaurantId, List<DroneState> candidates
+    ) {
+        if (cell == null) {
+            return;
+        }
+        for (DroneState state : cell.values()) {
+            if (state.isAvailable(minBattery, restaurantId)) {
+                candidates.add(state);
+            }
+        }
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDeg);
+    }
+
+    private long cellKeyOf(DroneState state) {
+        return cellKey(cellIndex(state.lat()), cellIndex(state.lng()));
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,279 @@
+package com.programming.droneservice.telemetry;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hộp thư inbound theo từng drone cho /app/drone/** (interceptor của clientInboundChannel)
+ *
+ * FLOW:
+ * 1. preSend (thread nhận WebSocket): đọc droneId trong payload, đưa message vào hộp thư của drone
+ *    → message không vào hàng đợi executor của clientInboundChannel
+ * 2. Mỗi hộp thư có tối đa một worker xử lý tuần tự (gọi thẳng @MessageMapping handler) → giữ thứ tự theo drone
+ *
+ * - GPS (/app/drone/update): chỉ giữ gps-capacity vị trí mới nhất đang chờ, vị trí cũ nhất bị bỏ (shed)
+ * - Lệnh điều khiển (arrived/delivered/return-to-base): không bao giờ bị bỏ
+ *
+ * Postgres chậm → handler arrived/delivered của một drone bị chặn; GPS của drone đó chiếm tối đa
+ * gps-capacity chỗ, các drone khác vẫn được xử lý (mỗi hộp thư một virtual thread).
+ */
+@Component
+@Slf4j
+public class DroneInboundMailbox implements ChannelInterceptor {
+
+    public static final String DESTINATION_PREFIX = "/app/drone/";
+    public static final String GPS_DESTINATION = "/app/drone/update";
+
+    private final ObjectProvider<SimpAnnotationMethodMessageHandler> messageHandler;
+    private final JsonFactory jsonFactory;
+    private final int gpsCapacity;
+    private final ExecutorService executor;
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Counter gpsAcceptedCounter;
+    private final Counter controlAcceptedCounter;
+    private final Counter shedCounter;
+    private final Timer gpsLagTimer;
+    private final Timer controlLagTimer;
+
+    public DroneInboundMailbox(
+            // Handler @MessageMapping được tạo cùng cấu hình WebSocket → lấy lười khi xử lý message đầu tiên
+            ObjectProvider<SimpAnnotationMethodMessageHandler> messageHandler,
+            ObjectMapper objectMapper,
+            @Value("${messaging.drone-mailbox.gps-capacity:8}") int gpsCapacity,
+            @Value("${messaging.virtual-threads:true}") boolean virtualThreads,
+            @Value("${messaging.platform-threads:16}") int platformThreads,
+            MeterRegistry meterRegistry
+    ) {
+        this.messageHandler = messageHandler;
+        this.jsonFactory = objectMapper.getFactory();
+        this.gpsCapacity = Math.max(1, gpsCapacity);
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("drone-mailbox-", 0).factory())
+                : Executors.newFixedThreadPool(platformThreads, new CustomizableThreadFactory("drone-mailbox-"));
+
+        this.gpsAcceptedCounter = meterRegistry.counter("drone.inbound.mailbox.accepted", "type", "gps");
+        this.controlAcceptedCounter = meterRegistry.counter("drone.inbound.mailbox.accepted", "type", "control");
+        this.shedCounter = meterRegistry.counter("drone.inbound.mailbox.shed");
+        this.gpsLagTimer = lagTimer("gps", meterRegistry);
+        this.controlLagTimer = lagTimer("control", meterRegistry);
+        Gauge.builder("drone.inbound.mailbox.depth", depth, AtomicInteger::get)
+                .description("Số message đang chờ trong mọi hộp thư")
+                .register(meterRegistry);
+        Gauge.builder("drone.inbound.mailbox.drones", mailboxes, Map::size)
+                .description("Số drone đang có message chờ xử lý")
+                .register(meterRegistry);
+        Gauge.builder("drone.inbound.mailbox.oldest.seconds", this, DroneInboundMailbox::oldestPendingSeconds)
+                .description("Thời gian chờ của message cũ nhất chưa được xử lý")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || destination == null || !destination.startsWith(DESTINATION_PREFIX)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        Long droneId = readDroneId(payload);
+        if (droneId == null) {
+            // Payload lỗi: để handler xử lý và log như trước
+            return message;
+        }
+        offer(droneId, new Entry(message, GPS_DESTINATION.equals(destination), System.nanoTime()));
+        return null; // Đã nhận vào hộp thư, channel không gửi tiếp
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void offer(Long droneId, Entry entry) {
+        (entry.gps() ? gpsAcceptedCounter : controlAcceptedCounter).increment();
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(droneId, id -> new Mailbox());
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    continue; // Worker vừa đóng hộp thư rỗng → tạo hộp thư mới
+                }
+                if (entry.gps() && mailbox.gpsCount >= gpsCapacity) {
+                    mailbox.removeOldestGps();
+                    depth.decrementAndGet();
+                    shedCounter.increment();
+                }
+                mailbox.add(entry);
+                depth.incrementAndGet();
+                if (!mailbox.draining) {
+                    mailbox.draining = true;
+                    executor.execute(() -> drain(droneId, mailbox));
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Worker của một hộp thư: xử lý tới khi rỗng rồi đóng hộp thư (offer sau đó tạo hộp thư mới)
+     */
+    private void drain(Long droneId, Mailbox mailbox) {
+        SimpAnnotationMethodMessageHandler handler = messageHandler.getObject();
+        while (true) {
+            Entry entry;
+            synchronized (mailbox) {
+                entry = mailbox.poll();
+                if (entry == null) {
+                    mailbox.closed = true;
+                    mailboxes.remove(droneId, mailbox);
+                    return;
+                }
+            }
+            depth.decrementAndGet();
+            (entry.gps() ? gpsLagTimer : controlLagTimer)
+                    .record(System.nanoTime() - entry.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            try {
+                handler.handleMessage(entry.message());
+            } catch (Exception e) {
+                log.error("Failed to handle {} from drone {}: {}",
+                        SimpMessageHeaderAccessor.getDestination(entry.message().getHeaders()), droneId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Chỉ đọc tới field droneId (streaming), không dựng cả object
+     * @return null nếu payload không phải JSON object hoặc không có droneId dạng số
+     */
+    private Long readDroneId(byte[] payload) {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("droneId".equals(field)) {
+                    if (value == JsonToken.VALUE_NUMBER_INT) {
+                        return parser.getLongValue();
+                    }
+                    if (value == JsonToken.VALUE_STRING) {
+                        return Long.valueOf(parser.getText().trim());
+                    }
+                    return null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private double oldestPendingSeconds() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (Mailbox mailbox : mailboxes.values()) {
+            synchronized (mailbox) {
+                Entry head = mailbox.entries.peek();
+                if (head != null && head.enqueuedNanos() < oldest) {
+                    oldest = head.enqueuedNanos();
+                }
+            }
+        }
+        return (now - oldest) / 1e9;
+    }
+
+    private static Timer lagTimer(String type, MeterRegistry meterRegistry) {
+        return Timer.builder("drone.inbound.mailbox.lag")
+                .tag("type", type)
+                .description("Thời gian từ lúc nhận message tới lúc handler bắt đầu xử lý")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // ========== PRIVATE CLASSES ==========
+
+    private record Entry(Message<?> message, boolean gps, long enqueuedNanos) {
+    }
+
+    /**
+     * Message đang chờ của một drone theo thứ tự nhận; mọi truy cập dưới lock của chính nó
+     */
+    private static final class Mailbox {
+
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        private int gpsCount;
+        private boolean draining;
+        private boolean closed;
+
+        void add(Entry entry) {
+            entries.add(entry);
+            if (entry.gps()) {
+                gpsCount++;
+            }
+        }
+
+        Entry poll() {
+            Entry entry = entries.poll();
+            if (entry != null && entry.gps()) {
+                gpsCount--;
+            }
+            return entry;
+        }
+
+        /**
+         * Bỏ vị trí GPS cũ nhất, lệnh điều khiển giữ nguyên vị trí trong hàng
+         */
+        void removeOldestGps() {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().gps()) {
+                    iterator.remove();
+                    gpsCount--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.programming.droneservice.telemetry;
+
+import com.programming.droneservice.dto.FlightStatsDto;
+import com.programming.droneservice.model.GpsPoint;
+import com.programming.droneservice.util.DistanceStrategy;
+import com.programming.droneservice.util.GpsUtil;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Thống kê cộng dồn của một chuyến bay, cập nhật O(1) mỗi điểm GPS
+ *
+ * - Quãng đường: cộng khoảng cách giữa điểm trước và điểm mới (equirectangular, xem DistanceStrategy)
+ * - Tốc độ: max + trung bình các speedKmh drone báo về
+ * - Độ dốc pin (%/phút): hồi quy tuyến tính trên (phút kể từ điểm đầu, pin)
+ *
+ * Ghi từ thread flush GPS, đọc từ API → mọi method đều synchronized
+ */
+public class FlightStats {
+
+    private final Long deliveryLogId;
+
+    private long pointCount;
+    private double distanceKm;
+    private double lastLat;
+    private double lastLng;
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+
+    private double maxSpeedKmh;
+    private double speedSum;
+    private long speedSamples;
+
+    private Double firstBatteryPercent;
+    private Double lastBatteryPercent;
+
+    // Tổng cho hồi quy pin theo thời gian
+    private long batterySamples;
+    private double sumT;
+    private double sumB;
+    private double sumTT;
+    private double sumTB;
+
+    public FlightStats(Long deliveryLogId) {
+        this.deliveryLogId = deliveryLogId;
+    }
+
+    /**
+     * Dựng lại thống kê từ route đầy đủ (service restart giữa chuyến bay, chuyến bay đã nén)
+     */
+    public static FlightStats of(Long deliveryLogId, List<GpsPoint> route) {
+        FlightStats stats = new FlightStats(deliveryLogId);
+        for (GpsPoint point : route) {
+            stats.add(point.getLat(), point.getLng(), point.getBatteryPercent(), point.getSpeedKmh(), point.getTimestamp());
+        }
+        return stats;
+    }
+
+    /**
+     * Cộng một điểm; điểm không mới hơn điểm cuối đã cộng bị bỏ qua (idempotent khi dựng lại)
+     */
+    public synchronized void add(double lat, double lng, Double batteryPercent, Double speedKmh, LocalDateTime timestamp) {
+        if (timestamp != null && lastTimestamp != null && !timestamp.isAfter(lastTimestamp)) {
+            return;
+        }
+        if (pointCount > 0) {
+            distanceKm += segmentDistance(lat, lng);
+        }
+        pointCount++;
+        lastLat = lat;
+        lastLng = lng;
+
+        if (timestamp != null) {
+            if (firstTimestamp == null) {
+                firstTimestamp = timestamp;
+            }
+            lastTimestamp = timestamp;
+        }
+
+        if (speedKmh != null) {
+            maxSpeedKmh = Math.max(maxSpeedKmh, speedKmh);
+            speedSum += speedKmh;
+            speedSamples++;
+        }
+
+        if (batteryPercent != null) {
+            if (firstBatteryPercent == null) {
+                firstBatteryPercent = batteryPercent;
+            }
+            lastBatteryPercent = batteryPercent;
+            if (timestamp != null) {
+                double t = Duration.between(firstTimestamp, timestamp).toMillis() / 60000.0;
+                batterySamples++;
+                sumT += t;
+                sumB += batteryPercent;
+                sumTT += t * t;
+                sumTB += t * batteryPercent;
+            }
+        }
+    }
+
+    /**
+     * Hai điểm liên tiếp chỉ cách nhau vài chục mét → equirectangular;
+     * bước nhảy xa (mất tín hiệu lâu) hoặc vĩ độ cao quay về Haversine
+     */
+    private double segmentDistance(double lat, double lng) {
+        double segment = GpsUtil.calculateFastDistance(lastLat, lastLng, lat, lng);
+        if (segment > DistanceStrategy.FAST_MAX_SPAN_KM || Math.abs(lat) > DistanceStrategy.FAST_MAX_ABS_LAT) {
+            return GpsUtil.calculateDistance(lastLat, lastLng, lat, lng);
+        }
+        return segment;
+    }
+
+    public synchronized double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public synchronized FlightStatsDto snapshot() {
+        long flightSeconds = firstTimestamp != null ? Duration.between(firstTimestamp, lastTimestamp).getSeconds() : 0;
+
+        Double avgSpeed = null;
+        if (speedSamples > 0) {
+            avgSpeed = speedSum / speedSamples;
+        } else if (flightSeconds > 0) {
+            avgSpeed = distanceKm / (flightSeconds / 3600.0);
+        }
+
+        Double batterySlope = null;
+        double denominator = batterySamples * sumTT - sumT * sumT;
+        if (batterySamples >= 2 && denominator > 0) {
+            batterySlope = (batterySamples * sumTB - sumT * sumB) / denominator;
+        }
+
+        return FlightStatsDto.builder()
+                .deliveryLogId(deliveryLogId)
+                .pointCount(pointCount)
+                .distanceKm(distanceKm)
+                .maxSpeedKmh(speedSamples > 0 ? maxSpeedKmh : null)
+                .avgSpeedKmh(avgSpeed)
+                .startBatteryPercent(firstBatteryPercent)
+                .currentBatteryPercent(lastBatteryPercent)
+                .batterySlopePercentPerMinute(batterySlope)
+                .flightTimeSeconds(flightSeconds)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.programming.droneservice.telemetry;
+
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.DeliveryStatus;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ FlightStats của các chuyến bay đang diễn ra, keyed by deliveryLogId
+ *
+ * - GpsBatchWriter gọi record() sau khi mỗi batch commit → thống kê khớp với các điểm đã lưu
+ * - Chuyến bay chưa có trong bộ nhớ (service restart giữa chuyến) được dựng lại một lần từ route đã lưu;
+ *   FlightStats bỏ các điểm không mới hơn điểm cuối nên dựng lại + record chồng nhau không đếm trùng
+ * - completeDelivery đọc quãng đường O(1) rồi bỏ chuyến bay khỏi bộ nhớ
+ */
+@Component
+@Slf4j
+public class FlightStatsTracker {
+
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final RoutePointStore routePointStore;
+
+    private final Map<Long, FlightStats> flights = new ConcurrentHashMap<>();
+
+    private final Counter rebuiltCounter;
+
+    public FlightStatsTracker(
+            DeliveryLogRepository deliveryLogRepository,
+            RoutePointStore routePointStore,
+            MeterRegistry meterRegistry
+    ) {
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.routePointStore = routePointStore;
+        this.rebuiltCounter = meterRegistry.counter("drone.flight.stats.rebuilt");
+        Gauge.builder("drone.flight.stats.active", flights, Map::size)
+                .description("Số chuyến bay đang được theo dõi thống kê")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bắt đầu theo dõi chuyến bay mới (sau khi assignOrder commit)
+     */
+    public void startAfterCommit(Long deliveryLogId) {
+        TransactionUtil.afterCommit(() -> flights.putIfAbsent(deliveryLogId, new FlightStats(deliveryLogId)));
+    }
+
+    /**
+     * Cộng các điểm vừa được ghi xuống database
+     */
+    public void record(Map<Long, List<GpsSample>> samplesByDrone) {
+        for (List<GpsSample> route : samplesByDrone.values()) {
+            for (GpsSample sample : route) {
+                if (sample.getDeliveryLogId() == null) {
+                    continue;
+                }
+                FlightStats stats = flights.get(sample.getDeliveryLogId());
+                if (stats == null) {
+                    stats = rebuild(sample.getDeliveryLogId());
+                    if (stats == null) {
+                        continue;
+                    }
+                }
+                stats.add(sample.getLat(), sample.getLng(), sample.getBatteryPercent(),
+                        sample.getSpeedKmh(), sample.getTimestamp());
+            }
+        }
+    }
+
+    /**
+     * Thống kê của chuyến bay: trong bộ nhớ nếu đang diễn ra, dựng từ route nếu không
+     * (chuyến bay đã hoàn thành không được giữ lại trong bộ nhớ)
+     */
+    public FlightStats get(DeliveryLog deliveryLog) {
+        FlightStats stats = flights.get(deliveryLog.getId());
+        if (stats != null) {
+            return stats;
+        }
+        rebuiltCounter.increment();
+        stats = FlightStats.of(deliveryLog.getId(), routePointStore.loadRoute(deliveryLog).getRoutePath());
+        if (isActive(deliveryLog)) {
+            FlightStats existing = flights.putIfAbsent(deliveryLog.getId(), stats);
+            return existing != null ? existing : stats;
+        }
+        return stats;
+    }
+
+    /**
+     * Thống kê dựng từ route đã lưu, không dùng bản trong bộ nhớ
+     * Nhiều instance: điểm GPS của chuyến bay có thể do instance khác ghi → bản trong bộ nhớ instance này thiếu
+     */
+    public FlightStats getFromRoute(DeliveryLog deliveryLog) {
+        rebuiltCounter.increment();
+        return FlightStats.of(deliveryLog.getId(), routePointStore.loadRoute(deliveryLog).getRoutePath());
+    }
+
+    /**
+     * Bỏ thống kê của chuyến bay đã kết thúc ở instance khác (FleetStateSync)
+     */
+    public void forget(Long deliveryLogId) {
+        flights.remove(deliveryLogId);
+    }
+
+    /**
+     * Ngừng theo dõi sau khi chuyến bay kết thúc và transaction commit
+     */
+    public void finishAfterCommit(Long deliveryLogId) {
+        TransactionUtil.afterCommit(() -> flights.remove(deliveryLogId));
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private FlightStats rebuild(Long deliveryLogId) {
+        DeliveryLog deliveryLog = deliveryLogRepository.findById(deliveryLogId).orElse(null);
+        if (deliveryLog == null || !isActive(deliveryLog)) {
+            return null;
+        }
+        log.info("Rebuilding flight stats for delivery log {}", deliveryLogId);
+        return get(deliveryLog);
+    }
+
+    private static boolean isActive(DeliveryLog deliveryLog) {
+        return deliveryLog.getStatus() != DeliveryStatus.COMPLETED
+                && deliveryLog.getStatus() != DeliveryStatus.FAILED
+                && deliveryLog.getStatus() != DeliveryStatus.CANCELLED;
+    }
+}
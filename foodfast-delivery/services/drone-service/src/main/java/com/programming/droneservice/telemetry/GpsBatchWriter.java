@@ -0,0 +1,149 @@
+package com.programming.droneservice.telemetry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi batch các GPS update từ GpsIngestionBuffer xuống Postgres
+ *
+ * Mỗi lần flush:
+ * - Gộp các mẫu theo droneId, bỏ các vị trí lặp liên tiếp
+ * - 1 batch UPDATE drones (chỉ vị trí/pin mới nhất của mỗi drone)
+ * - 1 batch INSERT delivery_route_points (append-only, xem RoutePointStore)
+ * - Sau commit: cộng dồn thống kê chuyến bay (FlightStatsTracker)
+ *
+ * Không có lock chung: thứ tự ghi theo drone do GpsIngestionBuffer giữ (writeLock của từng drone)
+ */
+@Component
+@Slf4j
+public class GpsBatchWriter {
+
+    private static final String UPDATE_DRONE_POSITION_SQL =
+            "UPDATE drones SET current_lat = ?, current_lng = ?, " +
+            "battery_percent = COALESCE(?, battery_percent), position_updated_at = ?, updated_at = ? " +
+            "WHERE id = ?";
+
+    private final GpsIngestionBuffer buffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final RoutePointStore routePointStore;
+    private final FlightStatsTracker flightStatsTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Timer flushTimer;
+    private final Counter mergedCounter;
+
+    public GpsBatchWriter(
+            GpsIngestionBuffer buffer,
+            JdbcTemplate jdbcTemplate,
+            RoutePointStore routePointStore,
+            FlightStatsTracker flightStatsTracker,
+            PlatformTransactionManager transactionManager,
+            @Value("${telemetry.ingest.batch-size:1000}") int batchSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.buffer = buffer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.routePointStore = routePointStore;
+        this.flightStatsTracker = flightStatsTracker;
+        // Batch luôn commit riêng, không bao giờ tham gia transaction của caller
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.flushTimer = Timer.builder("drone.gps.ingest.flush")
+                .description("Thời gian ghi một batch GPS xuống database")
+                .register(meterRegistry);
+        this.mergedCounter = meterRegistry.counter("drone.gps.ingest.merged");
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.ingest.flush-interval-ms:500}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("GPS batch flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Flush toàn bộ hàng đợi (theo từng batch, mỗi batch một transaction)
+     */
+    public void flush() {
+        while (true) {
+            try (GpsIngestionBuffer.Drained drained = buffer.drain(batchSize)) {
+                if (drained.samples().isEmpty()) {
+                    return;
+                }
+                write(drained.samples());
+            }
+        }
+    }
+
+    /**
+     * Flush các mẫu đang chờ của một drone
+     * Gọi trước các chuyển trạng thái cần route đầy đủ (arrived, completed), NGOÀI transaction của caller:
+     * có thể phải chờ lượt flush đang ghi drone này commit, không được giữ connection trong lúc chờ
+     */
+    public void flushDrone(Long droneId) {
+        try (GpsIngestionBuffer.Drained drained = buffer.drainDrone(droneId)) {
+            if (!drained.samples().isEmpty()) {
+                write(drained.samples());
+            }
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void write(List<GpsSample> samples) {
+        Map<Long, List<GpsSample>> written = flushTimer.record(
+                () -> transactionTemplate.execute(status -> writeBatch(samples)));
+        // Chỉ cộng thống kê chuyến bay khi batch đã commit (drone vẫn bị giữ → đúng thứ tự)
+        flightStatsTracker.record(written);
+    }
+
+    private Map<Long, List<GpsSample>> writeBatch(List<GpsSample> samples) {
+        // Gộp theo drone, giữ thứ tự nhận
+        Map<Long, List<GpsSample>> byDrone = new LinkedHashMap<>();
+        for (GpsSample sample : samples) {
+            List<GpsSample> route = byDrone.computeIfAbsent(sample.getDroneId(), id -> new ArrayList<>());
+            if (!route.isEmpty() && sample.samePositionAs(route.get(route.size() - 1))) {
+                // Vị trí lặp: chỉ giữ mẫu mới nhất (pin/tốc độ mới hơn)
+                route.set(route.size() - 1, sample);
+                mergedCounter.increment();
+            } else {
+                route.add(sample);
+            }
+        }
+
+        List<Object[]> positionArgs = new ArrayList<>(byDrone.size());
+        for (Map.Entry<Long, List<GpsSample>> entry : byDrone.entrySet()) {
+            List<GpsSample> route = entry.getValue();
+            GpsSample latest = route.get(route.size() - 1);
+            Timestamp receivedAt = Timestamp.valueOf(latest.getTimestamp());
+            positionArgs.add(new Object[]{
+                    latest.getLat(), latest.getLng(), latest.getBatteryPercent(),
+                    receivedAt, receivedAt, entry.getKey()
+            });
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_DRONE_POSITION_SQL, positionArgs);
+        routePointStore.appendAll(byDrone);
+
+        log.debug("Flushed {} GPS samples for {} drones", samples.size(), byDrone.size());
+        return byDrone;
+    }
+}
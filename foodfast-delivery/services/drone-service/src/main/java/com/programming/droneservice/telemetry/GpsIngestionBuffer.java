@@ -0,0 +1,176 @@
+package com.programming.droneservice.telemetry;
+
+import com.programming.droneservice.dto.DroneGpsUpdateDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hàng đợi write-behind cho GPS updates, tách theo drone
+ *
+ * FLOW:
+ * 1. WebSocket thread gọi offer() → chỉ enqueue vào hàng của drone, không chạm database
+ * 2. GpsBatchWriter định kỳ drain() các drone có mẫu chờ và ghi batch xuống Postgres
+ * 3. Trước arrived / completed: drainDrone() chỉ lấy mẫu của drone đó
+ *
+ * Mỗi lần lấy mẫu giữ writeLock của các drone liên quan tới khi batch commit (Drained.close())
+ * → mẫu của một drone luôn được ghi theo thứ tự nhận, dù lượt flush định kỳ và lượt flush theo drone chạy song song
+ *
+ * Hàng đợi có giới hạn (tổng mọi drone): khi đầy, mẫu mới bị bỏ (đếm vào metric) thay vì làm phình heap
+ */
+@Component
+@Slf4j
+public class GpsIngestionBuffer {
+
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+    // Một hàng cho mỗi drone từng gửi GPS (giới hạn bởi kích thước fleet)
+    private final Map<Long, DroneQueue> queues = new ConcurrentHashMap<>();
+    // Các drone đang có mẫu chờ, mỗi drone xuất hiện tối đa một lần (DroneQueue.ready)
+    private final Queue<DroneQueue> ready = new ConcurrentLinkedQueue<>();
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+
+    public GpsIngestionBuffer(
+            @Value("${telemetry.ingest.queue-capacity:10000}") int queueCapacity,
+            MeterRegistry meterRegistry
+    ) {
+        this.capacity = queueCapacity;
+        this.acceptedCounter = meterRegistry.counter("drone.gps.ingest.accepted");
+        this.rejectedCounter = meterRegistry.counter("drone.gps.ingest.rejected");
+        Gauge.builder("drone.gps.ingest.queue.depth", size, AtomicInteger::get)
+                .description("Số GPS update đang chờ flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nhận một GPS update
+     * @param deliveryLogId Chuyến bay hiện tại của drone (từ FleetStateCache), null nếu không giao đơn
+     * @return false nếu hàng đợi đầy và update bị bỏ
+     */
+    public boolean offer(DroneGpsUpdateDto dto, Long deliveryLogId) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            rejectedCounter.increment();
+            log.warn("GPS ingest queue full, dropping update from drone {}", dto.getDroneId());
+            return false;
+        }
+        DroneQueue queue = queues.computeIfAbsent(dto.getDroneId(), id -> new DroneQueue());
+        synchronized (queue) {
+            queue.samples.add(GpsSample.from(dto, deliveryLogId));
+            if (!queue.ready) {
+                queue.ready = true;
+                ready.add(queue);
+            }
+        }
+        acceptedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Lấy tối đa maxSamples mẫu của các drone đang chờ (flush định kỳ)
+     * Drone đang được ghi ở lượt khác bị bỏ qua tới lần sau, không chờ
+     */
+    public Drained drain(int maxSamples) {
+        Drained drained = new Drained();
+        List<DroneQueue> busy = new ArrayList<>();
+        DroneQueue queue;
+        while (drained.samples.size() < maxSamples && (queue = ready.poll()) != null) {
+            if (!queue.writeLock.tryLock()) {
+                busy.add(queue);
+                continue;
+            }
+            drained.held.add(queue);
+            synchronized (queue) {
+                take(queue, drained.samples, maxSamples);
+                if (queue.samples.isEmpty()) {
+                    queue.ready = false;
+                } else {
+                    busy.add(queue); // Vượt maxSamples → phần còn lại để lần sau
+                }
+            }
+        }
+        ready.addAll(busy);
+        return drained;
+    }
+
+    /**
+     * Lấy mọi mẫu đang chờ của một drone; chờ nếu drone đang được ghi ở lượt flush khác
+     * Caller không được giữ connection database khi gọi (lượt đang ghi cần commit xong mới nhả lock)
+     */
+    public Drained drainDrone(Long droneId) {
+        Drained drained = new Drained();
+        DroneQueue queue = queues.get(droneId);
+        if (queue == null) {
+            return drained;
+        }
+        queue.writeLock.lock();
+        drained.held.add(queue);
+        synchronized (queue) {
+            // Cờ ready giữ nguyên: drain() gặp hàng rỗng sẽ tự bỏ
+            take(queue, drained.samples, Integer.MAX_VALUE);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void take(DroneQueue queue, List<GpsSample> target, int maxSamples) {
+        int taken = 0;
+        GpsSample sample;
+        while (target.size() < maxSamples && (sample = queue.samples.poll()) != null) {
+            target.add(sample);
+            taken++;
+        }
+        size.addAndGet(-taken);
+    }
+
+    // ========== PRIVATE CLASSES ==========
+
+    /**
+     * Mẫu chờ của một drone; samples + ready truy cập dưới lock của chính nó
+     */
+    private static final class DroneQueue {
+
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final ArrayDeque<GpsSample> samples = new ArrayDeque<>();
+        private boolean ready;
+    }
+
+    /**
+     * Mẫu vừa lấy (theo thứ tự nhận trong từng drone) + các drone đang bị giữ
+     * close() sau khi batch commit (hoặc thất bại) để nhả các drone cho lượt flush sau
+     */
+    public static final class Drained implements AutoCloseable {
+
+        private final List<GpsSample> samples = new ArrayList<>();
+        private final List<DroneQueue> held = new ArrayList<>();
+
+        public List<GpsSample> samples() {
+            return samples;
+        }
+
+        @Override
+        public void close() {
+            held.forEach(queue -> queue.writeLock.unlock());
+            held.clear();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.programming.droneservice.telemetry;
+
+import com.programming.droneservice.dto.DroneGpsUpdateDto;
+import com.programming.droneservice.model.GpsPoint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Một mẫu GPS đã nhận từ drone, đang chờ được ghi xuống database
+ * (timestamp là thời điểm server nhận, không phải lúc flush)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GpsSample {
+    private Long droneId;
+    private Long deliveryLogId;     // Chuyến bay đang diễn ra lúc nhận mẫu (null = không giao đơn)
+    private Double lat;
+    private Double lng;
+    private Double batteryPercent;
+    private Double speedKmh;
+    private LocalDateTime timestamp;
+
+    public static GpsSample from(DroneGpsUpdateDto dto, Long deliveryLogId) {
+        return GpsSample.builder()
+                .droneId(dto.getDroneId())
+                .deliveryLogId(deliveryLogId)
+                .lat(dto.getLat())
+                .lng(dto.getLng())
+                .batteryPercent(dto.getBatteryPercent())
+                .speedKmh(dto.getSpeedKmh())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Cùng vị trí với mẫu trước đó (drone đứng yên / gửi lặp)
+     */
+    public boolean samePositionAs(GpsSample other) {
+        return other != null && lat.equals(other.lat) && lng.equals(other.lng)
+                && Objects.equals(deliveryLogId, other.deliveryLogId);
+    }
+
+    public GpsPoint toGpsPoint() {
+        return GpsPoint.builder()
+                .lat(lat)
+                .lng(lng)
+                .timestamp(timestamp)
+                .batteryPercent(batteryPercent)
+                .speedKmh(speedKmh)
+                .build();
+    }
+}
@@ -0,0 +1,271 @@
+package com.programming.droneservice.telemetry;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.droneservice.dto.RouteCompactionReportDto;
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.GpsPoint;
+import com.programming.droneservice.repository.DeliveryLogRepository;
+import com.programming.droneservice.util.GpsUtil;
+import com.programming.droneservice.util.RouteSimplifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rút gọn lộ trình của các chuyến bay đã hoàn thành (Douglas–Peucker, RouteSimplifier)
+ *
+ * - Chạy nền theo chu kỳ: mọi DeliveryLog COMPLETED chưa rút gọn, kể cả dữ liệu cũ
+ *   (route_data, JSONB route_path, bảng delivery_route_points) → completeDelivery không phải nén route
+ * - Giữ nguyên điểm đầu, điểm cuối và điểm tới nơi (arrivalTime)
+ * - actualDistanceKm được tính trên route đầy đủ trước khi rút gọn (nếu chuyến bay chưa có)
+ * - Mỗi batch một transaction, SKIP LOCKED → nhiều instance chạy song song không xử lý trùng
+ * - Số chuyến bay còn chờ được đếm một lần cuối mỗi lượt (partial index idx_delivery_uncompacted),
+ *   gauge drone.route.compaction.pending đọc giá trị đó thay vì COUNT mỗi lần scrape
+ * - Báo cáo số byte tiết kiệm được của lần chạy gần nhất (GET /api/v1/admin/drones/routes/compaction)
+ */
+@Component
+@Slf4j
+public class RouteCompactor {
+
+    private final DeliveryLogRepository deliveryLogRepository;
+    private final RoutePointStore routePointStore;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final double toleranceMeters;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RouteCompactionReportDto lastReport;
+    // -1 = chưa đếm lần nào
+    private final AtomicLong pending = new AtomicLong(-1);
+
+    private final Counter compactedCounter;
+    private final Counter bytesSavedCounter;
+    private final Counter pointsRemovedCounter;
+
+    public RouteCompactor(
+            DeliveryLogRepository deliveryLogRepository,
+            RoutePointStore routePointStore,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${route-compaction.enabled:true}") boolean enabled,
+            @Value("${route-compaction.tolerance-m:3}") double toleranceMeters,
+            @Value("${route-compaction.batch-size:100}") int batchSize
+    ) {
+        this.deliveryLogRepository = deliveryLogRepository;
+        this.routePointStore = routePointStore;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.toleranceMeters = toleranceMeters;
+        this.batchSize = batchSize;
+
+        this.compactedCounter = meterRegistry.counter("drone.route.compaction.logs");
+        this.bytesSavedCounter = meterRegistry.counter("drone.route.compaction.bytes.saved");
+        this.pointsRemovedCounter = meterRegistry.counter("drone.route.compaction.points.removed");
+        Gauge.builder("drone.route.compaction.pending", pending, AtomicLong::get)
+                .description("Số chuyến bay đã hoàn thành đang chờ rút gọn lộ trình")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${route-compaction.interval-ms:30000}")
+    public void compactPending() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Chạy một lượt trên thread riêng (admin API)
+     * @return false nếu đang có lượt khác chạy
+     */
+    public boolean startAsync() {
+        if (running.get()) {
+            return false;
+        }
+        Thread.ofVirtual().name("route-compaction").start(this::run);
+        return true;
+    }
+
+    /**
+     * Báo cáo của lượt chạy gần nhất có rút gọn ít nhất một chuyến bay (null nếu chưa có)
+     */
+    public RouteCompactionReportDto getLastReport() {
+        return lastReport;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Progress progress = new Progress(LocalDateTime.now());
+        try {
+            Integer compacted;
+            do {
+                compacted = transactionTemplate.execute(status -> compactBatch(progress));
+                if (progress.logs > 0) {
+                    lastReport = progress.toReport(null, null);
+                }
+            } while (compacted != null && compacted == batchSize);
+        } catch (Exception e) {
+            log.error("❌ Route compaction failed: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        Long remaining = countPending();
+        if (progress.logs > 0 || progress.failed > 0) {
+            lastReport = progress.toReport(LocalDateTime.now(), remaining);
+            log.info("🗜️ Compacted {} routes: {} → {} points, {} → {} bytes ({} bytes saved)",
+                    progress.logs, progress.pointsBefore, progress.pointsAfter,
+                    progress.bytesBefore, progress.bytesAfter, progress.bytesBefore - progress.bytesAfter);
+        }
+    }
+
+    /**
+     * Đếm lại số chuyến bay chờ rút gọn cho gauge
+     * @return null nếu không đếm được (giữ giá trị cũ của gauge)
+     */
+    private Long countPending() {
+        try {
+            long count = deliveryLogRepository.countUncompacted();
+            pending.set(count);
+            return count;
+        } catch (Exception e) {
+            log.warn("Cannot count routes pending compaction: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return số chuyến bay đã xử lý trong batch
+     */
+    private int compactBatch(Progress progress) {
+        List<DeliveryLog> batch = deliveryLogRepository.findUncompactedForUpdate(batchSize);
+        for (DeliveryLog deliveryLog : batch) {
+            compact(deliveryLog, progress);
+        }
+        return batch.size();
+    }
+
+    private void compact(DeliveryLog deliveryLog, Progress progress) {
+        byte[] storedData = deliveryLog.getRouteData();
+        List<GpsPoint> route;
+        try {
+            route = routePointStore.loadRoute(deliveryLog).getRoutePath();
+        } catch (RuntimeException e) {
+            // route_data hỏng: đánh dấu đã xử lý để không đọc lại mãi, giữ nguyên dữ liệu
+            log.warn("Skipping route compaction of delivery log {}: {}", deliveryLog.getId(), e.getMessage());
+            deliveryLog.setRouteToleranceMeters(toleranceMeters);
+            deliveryLogRepository.save(deliveryLog);
+            progress.failed++;
+            return;
+        }
+
+        long bytesBefore = storedData != null ? storedData.length : jsonSize(route);
+        if (deliveryLog.getActualDistanceKm() == null) {
+            deliveryLog.setActualDistanceKm(pathLengthKm(route));
+        }
+
+        List<GpsPoint> simplified = RouteSimplifier.simplify(route, toleranceMeters,
+                arrivalIndex(route, deliveryLog.getArrivalTime()));
+        deliveryLog.setRoutePath(simplified);
+        routePointStore.archiveRoute(deliveryLog);
+        deliveryLog.setRouteToleranceMeters(toleranceMeters);
+        deliveryLogRepository.save(deliveryLog);
+
+        long bytesAfter = deliveryLog.getRouteData().length;
+        progress.logs++;
+        progress.pointsBefore += route.size();
+        progress.pointsAfter += simplified.size();
+        progress.bytesBefore += bytesBefore;
+        progress.bytesAfter += bytesAfter;
+        compactedCounter.increment();
+        pointsRemovedCounter.increment(route.size() - simplified.size());
+        bytesSavedCounter.increment(Math.max(0, bytesBefore - bytesAfter));
+    }
+
+    /**
+     * Điểm cuối cùng ghi nhận trước hoặc đúng lúc tới nơi, -1 nếu không xác định
+     */
+    private static int arrivalIndex(List<GpsPoint> route, LocalDateTime arrivalTime) {
+        if (arrivalTime == null) {
+            return -1;
+        }
+        int index = -1;
+        for (int i = 0; i < route.size(); i++) {
+            LocalDateTime timestamp = route.get(i).getTimestamp();
+            if (timestamp != null && !timestamp.isAfter(arrivalTime)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static double pathLengthKm(List<GpsPoint> route) {
+        double[] lats = new double[route.size()];
+        double[] lngs = new double[route.size()];
+        for (int i = 0; i < route.size(); i++) {
+            lats[i] = route.get(i).getLat();
+            lngs[i] = route.get(i).getLng();
+        }
+        return GpsUtil.calculatePathLength(lats, lngs, route.size());
+    }
+
+    private long jsonSize(List<GpsPoint> route) {
+        try {
+            return objectMapper.writeValueAsBytes(route).length;
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Số liệu cộng dồn của một lượt chạy (chỉ thread đang chạy ghi)
+     */
+    private final class Progress {
+        private final LocalDateTime startedAt;
+        private long logs;
+        private long failed;
+        private long pointsBefore;
+        private long pointsAfter;
+        private long bytesBefore;
+        private long bytesAfter;
+
+        private Progress(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        private RouteCompactionReportDto toReport(LocalDateTime finishedAt, Long remaining) {
+            return RouteCompactionReportDto.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .toleranceMeters(toleranceMeters)
+                    .logsCompacted(logs)
+                    .logsFailed(failed)
+                    .pointsBefore(pointsBefore)
+                    .pointsAfter(pointsAfter)
+                    .bytesBefore(bytesBefore)
+                    .bytesAfter(bytesAfter)
+                    .bytesSaved(bytesBefore - bytesAfter)
+                    .remaining(remaining)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.programming.droneservice.telemetry;
+
+import com.programming.droneservice.model.DeliveryLog;
+import com.programming.droneservice.model.GpsPoint;
+import com.programming.droneservice.model.RoutePoint;
+import com.programming.droneservice.repository.RoutePointRepository;
+import com.programming.droneservice.util.RouteCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lưu trữ lộ trình append-only (bảng delivery_route_points)
+ *
+ * - Ghi: mỗi điểm GPS là một INSERT, không đọc lại route cũ → chi phí O(1) mỗi điểm
+ * - Đọc: ghép route đầy đủ khi cần (getDeliveryLogByOrderId, completeDelivery)
+ * - Sau khi chuyến bay hoàn thành: RouteCompactor rút gọn + nén route vào delivery_logs.route_data (RouteCodec)
+ *   và xóa các dòng điểm
+ */
+@Component
+@RequiredArgsConstructor
+public class RoutePointStore {
+
+    // deliveryLogId lấy từ FleetStateCache lúc nhận mẫu → INSERT thẳng, không join drones/delivery_logs
+    private static final String APPEND_POINT_SQL =
+            "INSERT INTO delivery_route_points " +
+            "(delivery_log_id, lat, lng, battery_percent, speed_kmh, recorded_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // PREPARING → IN_FLIGHT ở điểm GPS đầu tiên
+    private static final String MARK_IN_FLIGHT_SQL =
+            "UPDATE delivery_logs SET status = 'IN_FLIGHT', start_time = ? " +
+            "WHERE id = ? AND status = 'PREPARING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RoutePointRepository routePointRepository;
+
+    /**
+     * Append các điểm mới theo drone (batch JDBC)
+     * Mẫu không thuộc chuyến bay nào (deliveryLogId null) bị bỏ qua
+     * Phải gọi trong transaction của caller
+     */
+    public void appendAll(Map<Long, List<GpsSample>> samplesByDrone) {
+        List<Object[]> pointArgs = new ArrayList<>();
+        Map<Long, Timestamp> firstPointByFlight = new LinkedHashMap<>();
+
+        for (List<GpsSample> route : samplesByDrone.values()) {
+            for (GpsSample sample : route) {
+                if (sample.getDeliveryLogId() == null) {
+                    continue;
+                }
+                Timestamp recordedAt = Timestamp.valueOf(sample.getTimestamp());
+                pointArgs.add(new Object[]{
+                        sample.getDeliveryLogId(), sample.getLat(), sample.getLng(),
+                        sample.getBatteryPercent(), sample.getSpeedKmh(), recordedAt
+                });
+                firstPointByFlight.putIfAbsent(sample.getDeliveryLogId(), recordedAt);
+            }
+        }
+        if (pointArgs.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> inFlightArgs = new ArrayList<>(firstPointByFlight.size());
+        firstPointByFlight.forEach((deliveryLogId, startTime) -> inFlightArgs.add(new Object[]{startTime, deliveryLogId}));
+
+        jdbcTemplate.batchUpdate(APPEND_POINT_SQL, pointArgs);
+        jdbcTemplate.batchUpdate(MARK_IN_FLIGHT_SQL, inFlightArgs);
+    }
+
+    /**
+     * Ghép lộ trình đầy đủ vào deliveryLog.routePath
+     * - Chuyến bay đã nén: giải mã route_data
+     * - Còn lại: điểm JSONB cũ (nếu có) đứng trước các điểm append-only
+     */
+    public DeliveryLog loadRoute(DeliveryLog deliveryLog) {
+        if (deliveryLog.getRouteData() != null) {
+            deliveryLog.setRoutePath(RouteCodec.decode(deliveryLog.getRouteData()));
+            return deliveryLog;
+        }
+        List<GpsPoint> route = new ArrayList<>();
+        if (deliveryLog.getLegacyRoutePath() != null) {
+            route.addAll(deliveryLog.getLegacyRoutePath());
+        }
+        for (RoutePoint point : routePointRepository.findByDeliveryLogIdOrderByIdAsc(deliveryLog.getId())) {
+            route.add(point.toGpsPoint());
+        }
+        deliveryLog.setRoutePath(route);
+        return deliveryLog;
+    }
+
+    /**
+     * Nén deliveryLog.routePath vào route_data và dọn bảng điểm
+     * Gọi trong transaction của caller (RouteCompactor), caller chịu trách nhiệm save deliveryLog
+     */
+    public void archiveRoute(DeliveryLog deliveryLog) {
+        deliveryLog.setRouteData(RouteCodec.encode(deliveryLog.getRoutePath()));
+        deliveryLog.setLegacyRoutePath(null);
+        routePointRepository.deleteByDeliveryLogId(deliveryLog.getId());
+    }
+}
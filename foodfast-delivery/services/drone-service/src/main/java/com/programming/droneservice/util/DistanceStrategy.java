@@ -0,0 +1,65 @@
+package com.programming.droneservice.util;
+
+/**
+ * Cách tính khoảng cách GPS, caller chọn theo độ lớn khoảng cách cần đo
+ *
+ * - HAVERSINE: chính xác trên mọi khoảng cách (mặt cầu R = 6371 km)
+ * - EQUIRECTANGULAR: chiếu phẳng cục bộ quanh vĩ độ trung bình, chỉ 1 cos + 1 sqrt
+ *
+ * Sai số EQUIRECTANGULAR so với HAVERSINE (lưới vĩ độ 0.1°, 72 hướng, lớn nhất tại |lat| = 70°;
+ * DistanceStrategyTest kiểm tra lại):
+ * <pre>
+ *   |lat| ≤ 70°, khoảng cách ≤ 5 km  : tương đối < 2.3e-7, tuyệt đối < 1.2 mm
+ *   |lat| ≤ 70°, khoảng cách ≤ 50 km : tương đối < 2.3e-5, tuyệt đối < 1.2 m
+ * </pre>
+ * Nhỏ hơn nhiều so với sai số GPS và sai số của mô hình mặt cầu.
+ * Dùng forSpan() để lấy EQUIRECTANGULAR chỉ khi nằm trong giới hạn trên.
+ */
+public enum DistanceStrategy {
+
+    HAVERSINE {
+        @Override
+        public double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+            return GpsUtil.calculateDistance(lat1, lng1, lat2, lng2);
+        }
+
+        @Override
+        public void distancesKm(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+            GpsUtil.calculateDistances(lat, lng, lats, lngs, out, count);
+        }
+    },
+
+    EQUIRECTANGULAR {
+        @Override
+        public double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+            return GpsUtil.calculateFastDistance(lat1, lng1, lat2, lng2);
+        }
+
+        @Override
+        public void distancesKm(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+            GpsUtil.calculateFastDistances(lat, lng, lats, lngs, out, count);
+        }
+    };
+
+    /** Khoảng cách lớn nhất được phép dùng EQUIRECTANGULAR (km) */
+    public static final double FAST_MAX_SPAN_KM = 50.0;
+
+    /** Vĩ độ tuyệt đối lớn nhất được phép dùng EQUIRECTANGULAR (độ) */
+    public static final double FAST_MAX_ABS_LAT = 70.0;
+
+    public abstract double distanceKm(double lat1, double lng1, double lat2, double lng2);
+
+    /**
+     * Khoảng cách từ (lat, lng) tới count điểm, ghi vào out
+     */
+    public abstract void distancesKm(double lat, double lng, double[] lats, double[] lngs, double[] out, int count);
+
+    /**
+     * Chọn strategy cho các phép đo quanh vĩ độ latitude với khoảng cách không quá maxSpanKm
+     */
+    public static DistanceStrategy forSpan(double maxSpanKm, double latitude) {
+        return maxSpanKm <= FAST_MAX_SPAN_KM && Math.abs(latitude) <= FAST_MAX_ABS_LAT
+                ? EQUIRECTANGULAR
+                : HAVERSINE;
+    }
+}
@@ -6,7 +6,13 @@ package com.programming.droneservice.util;
 public class GpsUtil {
     
     private static final double EARTH_RADIUS_KM = 6371.0;
-    
+
+    // Batch API dùng Vector API khi JVM chạy với --add-modules jdk.incubator.vector
+    // (tắt bằng -Dgps.vector.enabled=false)
+    private static final boolean VECTOR_ENABLED =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                    && Boolean.parseBoolean(System.getProperty("gps.vector.enabled", "true"));
+
     /**
      * Tính khoảng cách giữa 2 điểm GPS bằng công thức Haversine
      * 
@@ -28,7 +34,76 @@ public class GpsUtil {
         
         return EARTH_RADIUS_KM * c;
     }
-    
+
+    /**
+     * Khoảng cách từ một điểm tới N điểm (xếp hạng drone gần nhất, ma trận chi phí dispatch)
+     * Dùng Vector API nếu có, ngược lại lặp calculateDistance
+     *
+     * @param lats Vĩ độ N điểm (chỉ đọc count phần tử đầu)
+     * @param lngs Kinh độ N điểm
+     * @param out Mảng kết quả (km), độ dài ≥ count
+     */
+    public static void calculateDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        if (VECTOR_ENABLED) {
+            GpsVectorKernel.distancesFrom(lat, lng, lats, lngs, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = calculateDistance(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    /**
+     * Tổng chiều dài lộ trình qua count điểm liên tiếp
+     *
+     * @return Khoảng cách (km), 0 nếu ít hơn 2 điểm
+     */
+    public static double calculatePathLength(double[] lats, double[] lngs, int count) {
+        if (count < 2) {
+            return 0.0;
+        }
+        if (VECTOR_ENABLED) {
+            return GpsVectorKernel.pathLength(lats, lngs, count);
+        }
+        double total = 0.0;
+        for (int i = 1; i < count; i++) {
+            total += calculateDistance(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Khoảng cách gần đúng bằng phép chiếu equirectangular quanh vĩ độ trung bình
+     * Chỉ dùng cho khoảng cách ngắn, xem giới hạn sai số trong DistanceStrategy
+     *
+     * @return Khoảng cách (km)
+     */
+    public static double calculateFastDistance(double lat1, double lng1, double lat2, double lng2) {
+        double x = Math.toRadians(lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) * 0.5));
+        double y = Math.toRadians(lat2 - lat1);
+        return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Như calculateDistances nhưng dùng calculateFastDistance
+     */
+    public static void calculateFastDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        if (VECTOR_ENABLED) {
+            GpsVectorKernel.fastDistancesFrom(lat, lng, lats, lngs, out, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = calculateFastDistance(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    /**
+     * Batch API đang chạy bằng Vector API hay vòng lặp scalar
+     */
+    public static boolean isVectorEnabled() {
+        return VECTOR_ENABLED;
+    }
+
     /**
      * Tính pin tiêu hao dựa trên khoảng cách
      * 
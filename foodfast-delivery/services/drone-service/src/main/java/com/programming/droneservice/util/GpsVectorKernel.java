@@ -0,0 +1,92 @@
+package com.programming.droneservice.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Haversine / equirectangular trên nhiều điểm cùng lúc bằng Vector API (jdk.incubator.vector)
+ *
+ * Chỉ được gọi qua GpsUtil khi module có mặt lúc runtime (--add-modules jdk.incubator.vector);
+ * phần đuôi không đủ một vector được tính bằng hàm scalar tương ứng của GpsUtil
+ */
+final class GpsVectorKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private GpsVectorKernel() {
+    }
+
+    static void distancesFrom(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        double cosLat = Math.cos(lat * DEG_TO_RAD);
+        int upper = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector dLat = lat2.sub(lat).mul(DEG_TO_RAD * 0.5);
+            DoubleVector dLng = lng2.sub(lng).mul(DEG_TO_RAD * 0.5);
+            DoubleVector cosLat2 = lat2.mul(DEG_TO_RAD).lanewise(VectorOperators.COS);
+            haversine(dLat, dLng, cosLat2.mul(cosLat)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = GpsUtil.calculateDistance(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    static void fastDistancesFrom(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        int upper = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector cosMeanLat = lat2.add(lat).mul(DEG_TO_RAD * 0.5).lanewise(VectorOperators.COS);
+            DoubleVector x = lng2.sub(lng).mul(DEG_TO_RAD).mul(cosMeanLat);
+            DoubleVector y = lat2.sub(lat).mul(DEG_TO_RAD);
+            x.mul(x).add(y.mul(y)).lanewise(VectorOperators.SQRT).mul(EARTH_RADIUS_KM).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = GpsUtil.calculateFastDistance(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    static double pathLength(double[] lats, double[] lngs, int count) {
+        int segments = count - 1;
+        int upper = SPECIES.loopBound(segments);
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector lat1 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng1 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i + 1);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i + 1);
+            DoubleVector dLat = lat2.sub(lat1).mul(DEG_TO_RAD * 0.5);
+            DoubleVector dLng = lng2.sub(lng1).mul(DEG_TO_RAD * 0.5);
+            DoubleVector cosProduct = lat1.mul(DEG_TO_RAD).lanewise(VectorOperators.COS)
+                    .mul(lat2.mul(DEG_TO_RAD).lanewise(VectorOperators.COS));
+            sum = sum.add(haversine(dLat, dLng, cosProduct));
+        }
+        double total = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < segments; i++) {
+            total += GpsUtil.calculateDistance(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+        }
+        return total;
+    }
+
+    /**
+     * @param halfDLat (lat2 − lat1) / 2, radian
+     * @param halfDLng (lng2 − lng1) / 2, radian
+     * @param cosProduct cos(lat1) × cos(lat2)
+     */
+    private static DoubleVector haversine(DoubleVector halfDLat, DoubleVector halfDLng, DoubleVector cosProduct) {
+        DoubleVector sinLat = halfDLat.lanewise(VectorOperators.SIN);
+        DoubleVector sinLng = halfDLng.lanewise(VectorOperators.SIN);
+        DoubleVector a = sinLat.mul(sinLat).add(cosProduct.mul(sinLng).mul(sinLng));
+        DoubleVector c = a.lanewise(VectorOperators.SQRT)
+                .lanewise(VectorOperators.ATAN2, a.neg().add(1.0).lanewise(VectorOperators.SQRT))
+                .mul(2.0);
+        return c.mul(EARTH_RADIUS_KM);
+    }
+}
@@ -0,0 +1,60 @@
+package com.programming.droneservice.util;
+
+import com.programming.droneservice.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Con trỏ phân trang keyset (createdAt, id) cho các API danh sách
+ *
+ * - Danh sách sắp theo createdAt DESC, id DESC; trang sau = các dòng có (createdAt, id) nhỏ hơn con trỏ
+ * - Không dùng OFFSET → trang thứ N tốn như trang đầu (index seek), không lệch khi có dòng mới chèn vào
+ * - Client nhận nextCursor và gửi lại nguyên văn (base64url, không cần hiểu nội dung)
+ */
+public record KeysetCursor(LocalDateTime createdAt, long id) {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Trang đầu: lớn hơn mọi dòng (không cần nhánh "cursor IS NULL" trong câu query)
+     */
+    public static final KeysetCursor FIRST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * @param cursor null/rỗng → trang đầu
+     * @throws BadRequestException nếu con trỏ không hợp lệ
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * limit null → mặc định, luôn nằm trong [1, MAX_LIMIT]
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
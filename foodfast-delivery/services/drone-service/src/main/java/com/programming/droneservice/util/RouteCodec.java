@@ -0,0 +1,154 @@
+package com.programming.droneservice.util;
+
+import com.programming.droneservice.model.GpsPoint;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec nhị phân gọn cho lộ trình GPS (thay cho JSONB)
+ *
+ * Định dạng (kiểu polyline): [version][count] rồi mỗi điểm là 5 varint zigzag,
+ * mỗi varint là delta so với điểm trước:
+ * - lat, lng: lượng tử hóa 1e-6 độ (~0.11 m)
+ * - timestamp: epoch millis (UTC)
+ * - batteryPercent, speedKmh: lượng tử hóa 0.1
+ *
+ * Giá trị null được mã hóa bằng NULL_SENTINEL; phép trừ delta tràn số vẫn đảo ngược được
+ * nên không cần byte cờ riêng. Một điểm bay đều 2 giây/lần chỉ tốn khoảng 10 byte
+ * (so với ~130 byte JSON).
+ */
+public final class RouteCodec {
+
+    private static final byte VERSION = 1;
+    private static final long NULL_SENTINEL = Long.MIN_VALUE;
+    private static final double COORD_SCALE = 1_000_000.0;
+    private static final double METRIC_SCALE = 10.0;
+
+    private RouteCodec() {
+    }
+
+    /**
+     * Mã hóa lộ trình
+     *
+     * @param route Danh sách điểm GPS theo thứ tự bay
+     * @return Mảng byte (null nếu route null)
+     */
+    public static byte[] encode(List<GpsPoint> route) {
+        if (route == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + route.size() * 8);
+        out.write(VERSION);
+        writeVarint(out, route.size());
+
+        long prevLat = 0, prevLng = 0, prevTime = 0, prevBattery = 0, prevSpeed = 0;
+        for (GpsPoint point : route) {
+            long lat = quantize(point.getLat(), COORD_SCALE);
+            long lng = quantize(point.getLng(), COORD_SCALE);
+            long time = toEpochMillis(point.getTimestamp());
+            long battery = quantize(point.getBatteryPercent(), METRIC_SCALE);
+            long speed = quantize(point.getSpeedKmh(), METRIC_SCALE);
+
+            writeVarint(out, zigzag(lat - prevLat));
+            writeVarint(out, zigzag(lng - prevLng));
+            writeVarint(out, zigzag(time - prevTime));
+            writeVarint(out, zigzag(battery - prevBattery));
+            writeVarint(out, zigzag(speed - prevSpeed));
+
+            prevLat = lat;
+            prevLng = lng;
+            prevTime = time;
+            prevBattery = battery;
+            prevSpeed = speed;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Giải mã lộ trình
+     *
+     * @param data Mảng byte từ encode()
+     * @return Danh sách điểm GPS (null nếu data null)
+     */
+    public static List<GpsPoint> decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0 || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported route encoding");
+        }
+        int[] pos = {1};
+        int count = (int) readVarint(data, pos);
+        List<GpsPoint> route = new ArrayList<>(count);
+
+        long lat = 0, lng = 0, time = 0, battery = 0, speed = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(data, pos));
+            lng += unzigzag(readVarint(data, pos));
+            time += unzigzag(readVarint(data, pos));
+            battery += unzigzag(readVarint(data, pos));
+            speed += unzigzag(readVarint(data, pos));
+
+            route.add(GpsPoint.builder()
+                    .lat(dequantize(lat, COORD_SCALE))
+                    .lng(dequantize(lng, COORD_SCALE))
+                    .timestamp(fromEpochMillis(time))
+                    .batteryPercent(dequantize(battery, METRIC_SCALE))
+                    .speedKmh(dequantize(speed, METRIC_SCALE))
+                    .build());
+        }
+        return route;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static long quantize(Double value, double scale) {
+        return value == null ? NULL_SENTINEL : Math.round(value * scale);
+    }
+
+    private static Double dequantize(long value, double scale) {
+        return value == NULL_SENTINEL ? null : value / scale;
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp == null ? NULL_SENTINEL : timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long millis) {
+        return millis == NULL_SENTINEL ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+}
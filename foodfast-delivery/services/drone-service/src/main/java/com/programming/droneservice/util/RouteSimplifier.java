@@ -0,0 +1,119 @@
+package com.programming.droneservice.util;
+
+import com.programming.droneservice.model.GpsPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rút gọn lộ trình GPS bằng Douglas–Peucker
+ *
+ * - Bỏ các điểm cách đoạn thẳng nối hai điểm được giữ không quá toleranceMeters
+ * - Điểm đầu, điểm cuối và các điểm bắt buộc (vd. điểm tới nơi) luôn được giữ nguyên giá trị
+ * - Khoảng cách đo trong mặt phẳng chiếu equirectangular quanh điểm đầu (đơn vị mét),
+ *   đủ chính xác trong tầm giao hàng (xem DistanceStrategy)
+ * - Dùng stack thay cho đệ quy → route dài không tràn stack
+ */
+public final class RouteSimplifier {
+
+    private static final double METERS_PER_DEGREE = 6371000.0 * Math.PI / 180.0;
+
+    private RouteSimplifier() {
+    }
+
+    /**
+     * @param route Lộ trình theo thứ tự bay
+     * @param toleranceMeters Sai lệch tối đa của route rút gọn so với route gốc
+     * @param keepIndices Chỉ số các điểm bắt buộc giữ (bỏ qua chỉ số ngoài phạm vi)
+     * @return Route mới gồm các điểm được giữ, cùng đối tượng GpsPoint với route gốc
+     */
+    public static List<GpsPoint> simplify(List<GpsPoint> route, double toleranceMeters, int... keepIndices) {
+        int count = route.size();
+        if (count < 3 || toleranceMeters <= 0) {
+            return new ArrayList<>(route);
+        }
+
+        double originLat = route.get(0).getLat();
+        double originLng = route.get(0).getLng();
+        double lngScale = Math.cos(Math.toRadians(originLat)) * METERS_PER_DEGREE;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            GpsPoint point = route.get(i);
+            xs[i] = (point.getLng() - originLng) * lngScale;
+            ys[i] = (point.getLat() - originLat) * METERS_PER_DEGREE;
+        }
+
+        boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+        for (int index : keepIndices) {
+            if (index >= 0 && index < count) {
+                keep[index] = true;
+            }
+        }
+
+        // Các điểm bắt buộc chia route thành nhiều đoạn, mỗi đoạn rút gọn độc lập
+        double toleranceSq = toleranceMeters * toleranceMeters;
+        int[] stack = new int[2 * count];
+        int anchor = 0;
+        for (int i = 1; i < count; i++) {
+            if (keep[i]) {
+                simplifySection(xs, ys, anchor, i, toleranceSq, keep, stack);
+                anchor = i;
+            }
+        }
+
+        List<GpsPoint> simplified = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                simplified.add(route.get(i));
+            }
+        }
+        return simplified;
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static void simplifySection(double[] xs, double[] ys, int first, int last,
+                                        double toleranceSq, boolean[] keep, int[] stack) {
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            double maxDistanceSq = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distanceSq = segmentDistanceSq(xs[i], ys[i], xs[start], ys[start], xs[end], ys[end]);
+                if (distanceSq > maxDistanceSq) {
+                    maxDistanceSq = distanceSq;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistanceSq > toleranceSq) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    /**
+     * Bình phương khoảng cách từ (px, py) tới đoạn thẳng (ax, ay)–(bx, by)
+     * (đoạn thẳng chứ không phải đường thẳng: drone có thể bay vòng lại)
+     */
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSq : 0;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,87 @@
+package com.programming.droneservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra giới hạn sai số EQUIRECTANGULAR so với HAVERSINE ghi trong Javadoc của DistanceStrategy
+ * Lưới: vĩ độ -70° → 70° (gồm cả biên, nơi sai số lớn nhất), khoảng cách tới maxSpanKm, 24 hướng
+ */
+class DistanceStrategyTest {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double LNG = 105.85;
+
+    @Test
+    void equirectangularErrorWithin5KmBounds() {
+        assertErrorBounds(5.0, 2.3e-7, 1.2e-6);
+    }
+
+    @Test
+    void equirectangularErrorWithin50KmBounds() {
+        assertErrorBounds(50.0, 2.3e-5, 1.2e-3);
+    }
+
+    @Test
+    void forSpanUsesEquirectangularOnlyInsideBounds() {
+        assertEquals(DistanceStrategy.EQUIRECTANGULAR, DistanceStrategy.forSpan(5.0, 21.0));
+        assertEquals(DistanceStrategy.EQUIRECTANGULAR, DistanceStrategy.forSpan(50.0, -70.0));
+        assertEquals(DistanceStrategy.HAVERSINE, DistanceStrategy.forSpan(50.1, 21.0));
+        assertEquals(DistanceStrategy.HAVERSINE, DistanceStrategy.forSpan(5.0, 70.1));
+    }
+
+    @Test
+    void batchMatchesSingleDistance() {
+        double[] lats = {21.0, 21.01, 20.95, 21.2, 20.8};
+        double[] lngs = {105.8, 105.83, 105.79, 105.9, 105.6};
+        double[] out = new double[lats.length];
+        for (DistanceStrategy strategy : DistanceStrategy.values()) {
+            strategy.distancesKm(21.02, 105.81, lats, lngs, out, lats.length);
+            for (int i = 0; i < lats.length; i++) {
+                assertEquals(strategy.distanceKm(21.02, 105.81, lats[i], lngs[i]), out[i], 1e-9);
+            }
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static void assertErrorBounds(double maxSpanKm, double maxRelative, double maxAbsoluteKm) {
+        double worstRelative = 0;
+        double worstAbsoluteKm = 0;
+        for (int latStep = -28; latStep <= 28; latStep++) {
+            double lat = latStep * 2.5;
+            for (int spanStep = 1; spanStep <= 20; spanStep++) {
+                double spanKm = maxSpanKm * spanStep / 20;
+                for (int bearing = 0; bearing < 360; bearing += 15) {
+                    double[] to = destination(lat, LNG, spanKm, bearing);
+                    if (Math.abs(to[0]) > DistanceStrategy.FAST_MAX_ABS_LAT) {
+                        continue;
+                    }
+                    double exact = DistanceStrategy.HAVERSINE.distanceKm(lat, LNG, to[0], to[1]);
+                    double fast = DistanceStrategy.EQUIRECTANGULAR.distanceKm(lat, LNG, to[0], to[1]);
+                    double error = Math.abs(fast - exact);
+                    worstAbsoluteKm = Math.max(worstAbsoluteKm, error);
+                    worstRelative = Math.max(worstRelative, error / exact);
+                }
+            }
+        }
+        assertTrue(worstRelative < maxRelative, "relative error " + worstRelative);
+        assertTrue(worstAbsoluteKm < maxAbsoluteKm, "absolute error " + worstAbsoluteKm + " km");
+    }
+
+    /**
+     * Điểm cách (lat, lng) distanceKm theo hướng bearingDeg trên mặt cầu
+     */
+    private static double[] destination(double lat, double lng, double distanceKm, double bearingDeg) {
+        double angular = distanceKm / EARTH_RADIUS_KM;
+        double bearing = Math.toRadians(bearingDeg);
+        double lat1 = Math.toRadians(lat);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angular)
+                + Math.cos(lat1) * Math.sin(angular) * Math.cos(bearing));
+        double lng2 = Math.toRadians(lng) + Math.atan2(Math.sin(bearing) * Math.sin(angular) * Math.cos(lat1),
+                Math.cos(angular) - Math.sin(lat1) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), Math.toDegrees(lng2)};
+    }
+}
@@ -0,0 +1,84 @@
+package com.programming.droneservice.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * GpsVectorKernel phải cho cùng kết quả với các hàm scalar của GpsUtil,
+ * kể cả phần đuôi không đủ một vector (count chạy qua nhiều bội số của số lane)
+ */
+class GpsVectorKernelTest {
+
+    private static final double TOLERANCE_KM = 1e-9;
+    private static final int MAX_COUNT = 67;
+
+    private final Random random = new Random(42);
+
+    @BeforeAll
+    static void requireVectorModule() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "Chạy test với --add-modules jdk.incubator.vector");
+    }
+
+    @Test
+    void distancesFromMatchesScalarHaversine() {
+        for (int count = 0; count <= MAX_COUNT; count++) {
+            double[] lats = randomLats(count);
+            double[] lngs = randomLngs(count);
+            double[] out = new double[count];
+            GpsVectorKernel.distancesFrom(21.03, 105.85, lats, lngs, out, count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(GpsUtil.calculateDistance(21.03, 105.85, lats[i], lngs[i]), out[i], TOLERANCE_KM);
+            }
+        }
+    }
+
+    @Test
+    void fastDistancesFromMatchesScalarEquirectangular() {
+        for (int count = 0; count <= MAX_COUNT; count++) {
+            double[] lats = randomLats(count);
+            double[] lngs = randomLngs(count);
+            double[] out = new double[count];
+            GpsVectorKernel.fastDistancesFrom(21.03, 105.85, lats, lngs, out, count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(GpsUtil.calculateFastDistance(21.03, 105.85, lats[i], lngs[i]), out[i], TOLERANCE_KM);
+            }
+        }
+    }
+
+    @Test
+    void pathLengthMatchesScalarSum() {
+        for (int count = 2; count <= MAX_COUNT; count++) {
+            double[] lats = randomLats(count);
+            double[] lngs = randomLngs(count);
+            double expected = 0;
+            for (int i = 1; i < count; i++) {
+                expected += GpsUtil.calculateDistance(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+            }
+            assertEquals(expected, GpsVectorKernel.pathLength(lats, lngs, count), TOLERANCE_KM);
+        }
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private double[] randomLats(int count) {
+        double[] lats = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 21.03 + (random.nextDouble() - 0.5);
+        }
+        return lats;
+    }
+
+    private double[] randomLngs(int count) {
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lngs[i] = 105.85 + (random.nextDouble() - 0.5);
+        }
+        return lngs;
+    }
+}
@@ -0,0 +1,118 @@
+package com.programming.droneservice.util;
+
+import com.programming.droneservice.model.GpsPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteCodecTest {
+
+    // Nửa bước lượng tử hóa (+ sai số làm tròn double)
+    private static final double COORD_TOLERANCE = 0.5e-6 + 1e-12;
+    private static final double METRIC_TOLERANCE = 0.05 + 1e-12;
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_238);
+
+    @Test
+    void roundTripKeepsQuantizedValues() {
+        List<GpsPoint> route = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            route.add(point(21.0278 + i * 0.0000137, 105.8342 - i * 0.0000291,
+                    START.plusNanos(i * 2_000_123_456L), 100.0 - i * 0.0371, 30.0 + (i % 7) * 1.234));
+        }
+
+        List<GpsPoint> decoded = RouteCodec.decode(RouteCodec.encode(route));
+
+        assertEquals(route.size(), decoded.size());
+        for (int i = 0; i < route.size(); i++) {
+            GpsPoint expected = route.get(i);
+            GpsPoint actual = decoded.get(i);
+            // Thời gian lưu theo millis
+            assertEquals(expected.getLat(), actual.getLat(), COORD_TOLERANCE);
+            assertEquals(expected.getLng(), actual.getLng(), COORD_TOLERANCE);
+            assertEquals(expected.getBatteryPercent(), actual.getBatteryPercent(), METRIC_TOLERANCE);
+            assertEquals(expected.getSpeedKmh(), actual.getSpeedKmh(), METRIC_TOLERANCE);
+            assertEquals(expected.getTimestamp().truncatedTo(ChronoUnit.MILLIS), actual.getTimestamp());
+        }
+    }
+
+    @Test
+    void quantizedValuesRoundTripExactly() {
+        List<GpsPoint> route = List.of(
+                point(-33.868820, 151.209296, START.truncatedTo(ChronoUnit.MILLIS), 87.5, 42.3),
+                point(89.999999, -179.999999, START.plusDays(400).truncatedTo(ChronoUnit.MILLIS), 0.0, 0.1),
+                point(0.0, 0.0, LocalDateTime.of(1970, 1, 1, 0, 0), 100.0, 0.0));
+
+        assertEquals(route, RouteCodec.decode(RouteCodec.encode(route)));
+    }
+
+    @Test
+    void nullFieldsRoundTripThroughSentinel() {
+        List<GpsPoint> route = List.of(
+                point(21.0, 105.8, START, 90.0, 20.0),
+                point(null, null, null, null, null),
+                point(21.000001, null, START.plusSeconds(4), null, 0.0),
+                point(-21.5, 105.9, null, 89.9, null),
+                point(21.0, 105.8, START.plusSeconds(8), 89.8, 25.5));
+
+        List<GpsPoint> decoded = RouteCodec.decode(RouteCodec.encode(route));
+
+        assertEquals(route.size(), decoded.size());
+        GpsPoint allNull = decoded.get(1);
+        assertNull(allNull.getLat());
+        assertNull(allNull.getLng());
+        assertNull(allNull.getTimestamp());
+        assertNull(allNull.getBatteryPercent());
+        assertNull(allNull.getSpeedKmh());
+        assertEquals(21.000001, decoded.get(2).getLat(), COORD_TOLERANCE);
+        assertNull(decoded.get(2).getLng());
+        assertEquals(START.plusSeconds(4).truncatedTo(ChronoUnit.MILLIS), decoded.get(2).getTimestamp());
+        assertNull(decoded.get(3).getTimestamp());
+        assertNull(decoded.get(3).getSpeedKmh());
+        assertEquals(route.get(4).getLng(), decoded.get(4).getLng(), COORD_TOLERANCE);
+        assertEquals(START.plusSeconds(8).truncatedTo(ChronoUnit.MILLIS), decoded.get(4).getTimestamp());
+        assertEquals(25.5, decoded.get(4).getSpeedKmh(), METRIC_TOLERANCE);
+    }
+
+    @Test
+    void nullAndEmptyRoutes() {
+        assertNull(RouteCodec.encode(null));
+        assertNull(RouteCodec.decode(null));
+        assertTrue(RouteCodec.decode(RouteCodec.encode(List.of())).isEmpty());
+    }
+
+    @Test
+    void steadyFlightIsCompact() {
+        List<GpsPoint> route = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            route.add(point(21.0 + i * 0.00001, 105.8 + i * 0.00001, START.plusSeconds(2L * i), 100.0 - i * 0.05, 36.0));
+        }
+        assertTrue(RouteCodec.encode(route).length <= route.size() * 10 + 4);
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> RouteCodec.decode(new byte[]{2, 0}));
+        assertThrows(IllegalArgumentException.class, () -> RouteCodec.decode(new byte[0]));
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    private static GpsPoint point(Double lat, Double lng, LocalDateTime timestamp, Double battery, Double speed) {
+        return GpsPoint.builder()
+                .lat(lat)
+                .lng(lng)
+                .timestamp(timestamp)
+                .batteryPercent(battery)
+                .speedKmh(speed)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.programming.eventstream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Map;
+
+/**
+ * Publish event liên service (delivery.events, drone.events)
+ *
+ * - event-stream.enabled=true: XADD vào Redis Stream "{channel}:{partition}", partition = hash(key) % partitions
+ *   → event được lưu lại tới khi consumer group ACK, cùng key luôn vào cùng partition (giữ thứ tự)
+ * - event-stream.enabled=false: Redis pub/sub như trước (fire-and-forget)
+ *
+ * event-stream.partitions phải giống nhau ở service publish và service consume
+ * Metric: {event-stream.metric-prefix}.published
+ */
+@Slf4j
+public class EventPublisher {
+
+    public static final String PAYLOAD_FIELD = "payload";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean streamEnabled;
+    private final int partitions;
+
+    private final Counter publishedCounter;
+
+    public EventPublisher(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${event-stream.enabled:true}") boolean streamEnabled,
+            @Value("${event-stream.partitions:8}") int partitions,
+            @Value("${event-stream.metric-prefix}") String metricPrefix
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.streamEnabled = streamEnabled;
+        this.partitions = partitions;
+        this.publishedCounter = meterRegistry.counter(metricPrefix + ".published");
+    }
+
+    /**
+     * @param channel Tên channel / stream (delivery.events, drone.events)
+     * @param partitionKey orderId hoặc droneId; event cùng key được xử lý theo đúng thứ tự publish
+     * @param json Nội dung event
+     */
+    public void publish(String channel, Object partitionKey, String json) {
+        if (streamEnabled) {
+            redisTemplate.opsForStream().add(StreamRecords.string(Map.of(PAYLOAD_FIELD, json))
+                    .withStreamKey(streamKey(channel, partition(partitionKey, partitions))));
+        } else {
+            redisTemplate.convertAndSend(channel, json);
+        }
+        publishedCounter.increment();
+    }
+
+    public static String streamKey(String channel, int partition) {
+        return channel + ":" + partition;
+    }
+
+    /**
+     * Dựa trên String.hashCode() của key → mọi service (và mọi JVM) cho cùng kết quả
+     */
+    public static int partition(Object partitionKey, int partitions) {
+        return partitionKey == null ? 0 : Math.floorMod(partitionKey.toString().hashCode(), partitions);
+    }
+}
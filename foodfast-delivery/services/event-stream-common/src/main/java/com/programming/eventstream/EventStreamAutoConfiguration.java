@@ -0,0 +1,20 @@
+package com.programming.eventstream;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Đăng ký EventPublisher + StreamEventConsumer cho service có module này trên classpath
+ *
+ * Cấu hình riêng của từng service nằm trong application.yml của service đó:
+ * - event-stream.group: consumer group (drone-service, order-service)
+ * - event-stream.metric-prefix: tiền tố metric (drone.events, order.events)
+ * Các khoá event-stream.* còn lại xem EventPublisher / StreamEventConsumer.
+ *
+ * KeyOrderedExecutor không được đăng ký ở đây: mỗi service tự tạo bean với tên / cấu hình thread riêng.
+ */
+@AutoConfiguration(after = RedisAutoConfiguration.class)
+@Import({EventPublisher.class, StreamEventConsumer.class})
+public class EventStreamAutoConfiguration {
+}
@@ -0,0 +1,70 @@
+package com.programming.eventstream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chạy task song song giữa các key nhưng tuần tự trong cùng một key (droneId, orderId...)
+ *
+ * - virtualThreads=true: mỗi task một virtual thread, task chặn (JPA, Redis) không giữ platform thread
+ * - virtualThreads=false: pool platform thread cố định platformThreads
+ *
+ * Mỗi key giữ future của task cuối cùng; task mới được nối sau nó và key bị xoá khi hết task.
+ * Task lỗi chỉ được log, không chặn các task sau của cùng key.
+ */
+@Slf4j
+public class KeyOrderedExecutor {
+
+    private final ExecutorService delegate;
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public KeyOrderedExecutor(String name, boolean virtualThreads, int platformThreads) {
+        this.delegate = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+                : Executors.newFixedThreadPool(platformThreads, new CustomizableThreadFactory(name + "-"));
+    }
+
+    /**
+     * Chạy task sau mọi task đã gửi trước đó với cùng key
+     */
+    public void execute(Object key, Runnable task) {
+        Runnable safeTask = () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Task for key {} failed: {}", key, e.getMessage(), e);
+            }
+        };
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(safeTask, delegate)
+                : tail.thenRunAsync(safeTask, delegate));
+        // Đăng ký ngoài compute(): future có thể đã xong và callback chạy ngay trên thread này
+        next.whenComplete((result, error) -> tails.remove(key, next));
+    }
+
+    /**
+     * Số key đang có task chờ hoặc đang chạy
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(10, TimeUnit.SECONDS)) {
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.programming.eventstream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consumer group cho các Redis Stream do EventPublisher ghi
+ *
+ * - Mỗi stream gồm event-stream.partitions partition; mỗi partition chỉ một instance đọc tại một thời điểm
+ *   (lease "stream.lease:{group}:{stream}:{p}") → event cùng key xử lý đúng thứ tự
+ * - Partition chia đều cho các instance còn sống (heartbeat trong ZSET "stream.members:{group}"),
+ *   thêm instance → partition được chuyển dần sang instance mới
+ * - XREADGROUP theo batch, XACK một lần cho cả batch; event lỗi dừng partition tới lần poll sau (giữ thứ tự),
+ *   lỗi quá max-attempts lần → chuyển sang "{stream}:dlq" rồi ACK
+ * - Nhận partition từ instance khác: XCLAIM các entry chưa ACK của nó rồi xử lý trước
+ * - Consumer dừng/restart: entry chưa ACK vẫn nằm trong stream → không mất event
+ * - Drain backlog dài: gia hạn heartbeat + lease sau mỗi batch, dừng khi mất lease hoặc sau lease-ms / 2
+ *   → một batch (batch-size event) phải xử lý xong trong thời gian ngắn hơn nhiều so với lease-ms
+ * - Metric: {event-stream.metric-prefix}.stream.*
+ */
+@Slf4j
+public class StreamEventConsumer {
+
+    /**
+     * Handler của một stream; ném exception → entry không được ACK và được đọc lại
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void handle(String payload) throws Exception;
+    }
+
+    private static final RedisScript<Long> RENEW_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+                    + "return 0",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private static final int MAX_CLAIM = 10_000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String group;
+    private final String consumerName;
+    private final int partitions;
+    private final int batchSize;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long maxLength;
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final Set<String> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private final Set<String> readyGroups = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+    private final Counter claimedCounter;
+
+    public StreamEventConsumer(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${event-stream.enabled:true}") boolean enabled,
+            @Value("${event-stream.group}") String group,
+            @Value("${event-stream.consumer-name:}") String consumerName,
+            @Value("${event-stream.partitions:8}") int partitions,
+            @Value("${event-stream.batch-size:100}") int batchSize,
+            @Value("${event-stream.lease-ms:10000}") long leaseMs,
+            @Value("${event-stream.max-attempts:5}") int maxAttempts,
+            @Value("${event-stream.max-length:100000}") long maxLength,
+            @Value("${event-stream.metric-prefix}") String metricPrefix
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.group = group;
+        this.consumerName = StringUtils.hasText(consumerName) ? consumerName : UUID.randomUUID().toString();
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.maxLength = maxLength;
+
+        String prefix = metricPrefix + ".stream";
+        this.processedCounter = meterRegistry.counter(prefix + ".processed");
+        this.retriedCounter = meterRegistry.counter(prefix + ".retried");
+        this.deadLetteredCounter = meterRegistry.counter(prefix + ".dead.lettered");
+        this.claimedCounter = meterRegistry.counter(prefix + ".claimed");
+        Gauge.builder(prefix + ".partitions.owned", ownedPartitions, Set::size)
+                .description("Số partition stream instance này đang đọc")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Đăng ký handler cho stream (tên channel, vd "drone.events")
+     */
+    public void subscribe(String stream, Handler handler) {
+        handlers.put(stream, handler);
+        if (enabled) {
+            log.info("📡 Consuming stream {} as {}/{}", stream, group, consumerName);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${event-stream.poll-interval-ms:100}")
+    public void poll() {
+        if (!enabled || handlers.isEmpty()) {
+            return;
+        }
+        List<String> members;
+        try {
+            members = heartbeat();
+        } catch (Exception e) {
+            log.error("❌ Stream consumer heartbeat failed: {}", e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, Handler> entry : handlers.entrySet()) {
+            for (int partition = 0; partition < partitions; partition++) {
+                String streamKey = EventPublisher.streamKey(entry.getKey(), partition);
+                try {
+                    if (!members.get(partition % members.size()).equals(consumerName)) {
+                        releaseLease(streamKey);
+                        continue;
+                    }
+                    if (!holdLease(streamKey)) {
+                        continue;
+                    }
+                    drain(entry.getKey(), streamKey, entry.getValue());
+                    redisTemplate.opsForStream().trim(streamKey, maxLength, true);
+                } catch (Exception e) {
+                    log.error("❌ Error consuming stream {}: {}", streamKey, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        // Nhường partition ngay cho instance khác thay vì chờ lease hết hạn
+        for (String streamKey : List.copyOf(ownedPartitions)) {
+            try {
+                releaseLease(streamKey);
+            } catch (Exception e) {
+                log.warn("Failed to release lease of {}: {}", streamKey, e.getMessage());
+            }
+        }
+        redisTemplate.opsForZSet().remove(membersKey(), consumerName);
+    }
+
+    // ========== PRIVATE METHODS ==========
+
+    /**
+     * Ghi heartbeat, trả về các instance còn sống (sắp theo tên → mọi instance thấy cùng một cách chia partition)
+     */
+    private List<String> heartbeat() {
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().add(membersKey(), consumerName, now);
+        redisTemplate.opsForZSet().removeRangeByScore(membersKey(), 0, now - leaseMs);
+        Set<String> alive = redisTemplate.opsForZSet().range(membersKey(), 0, -1);
+        List<String> members = alive != null ? new ArrayList<>(alive) : new ArrayList<>();
+        if (!members.contains(consumerName)) {
+            members.add(consumerName);
+        }
+        Collections.sort(members);
+        return members;
+    }
+
+    /**
+     * Giữ hoặc giành lease của partition; lần đầu giành được → tạo group + claim entry của chủ cũ
+     */
+    private boolean holdLease(String streamKey) {
+        if (ownedPartitions.contains(streamKey) && renewLease(streamKey)) {
+            return true;
+        }
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(
+                leaseKey(streamKey), consumerName, Duration.ofMillis(leaseMs));
+        if (!Boolean.TRUE.equals(acquired)) {
+            return false;
+        }
+        ensureGroup(streamKey);
+        claimPending(streamKey);
+        ownedPartitions.add(streamKey);
+        log.info("Acquired stream partition {}", streamKey);
+        return true;
+    }
+
+    /**
+     * Gia hạn lease đang giữ
+     * @return false nếu lease đã hết hạn / thuộc instance khác (partition bị bỏ khỏi ownedPartitions)
+     */
+    private boolean renewLease(String streamKey) {
+        Long renewed = redisTemplate.execute(RENEW_LEASE_SCRIPT, List.of(leaseKey(streamKey)),
+                consumerName, String.valueOf(leaseMs));
+        if (renewed != null && renewed == 1) {
+            return true;
+        }
+        ownedPartitions.remove(streamKey);
+        log.warn("Lost lease of stream partition {}", streamKey);
+        return false;
+    }
+
+    /**
+     * Gia hạn heartbeat + lease của mọi partition đang giữ (giữa các batch của một lần drain dài)
+     * @return false nếu đã mất lease của streamKey
+     */
+    private boolean keepAlive(String streamKey) {
+        redisTemplate.opsForZSet().add(membersKey(), consumerName, System.currentTimeMillis());
+        for (String owned : List.copyOf(ownedPartitions)) {
+            renewLease(owned);
+        }
+        return ownedPartitions.contains(streamKey);
+    }
+
+    private void releaseLease(String streamKey) {
+        if (ownedPartitions.remove(streamKey)) {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(leaseKey(streamKey)), consumerName);
+            log.info("Released stream partition {}", streamKey);
+        }
+    }
+
+    private void ensureGroup(String streamKey) {
+        if (readyGroups.contains(streamKey)) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> createGroup(connection, streamKey));
+        } catch (Exception e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP")
+                    && (e.getCause() == null || !String.valueOf(e.getCause().getMessage()).contains("BUSYGROUP"))) {
+                throw e;
+            }
+        }
+        readyGroups.add(streamKey);
+    }
+
+    private String createGroup(RedisConnection connection, String streamKey) {
+        // MKSTREAM: partition chưa có event nào vẫn tạo được group
+        return connection.streamCommands().xGroupCreate(
+                streamKey.getBytes(StandardCharsets.UTF_8), group, ReadOffset.from("0-0"), true);
+    }
+
+    /**
+     * Chuyển entry chưa ACK của consumer khác (chủ cũ của partition) sang consumer này
+     * Mỗi consumer giữ tối đa khoảng một batch chưa ACK → một lần XPENDING đủ lấy hết
+     */
+    private void claimPending(String streamKey) {
+        StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        PendingMessages pending = streams.pending(streamKey, group, Range.unbounded(), MAX_CLAIM);
+        List<RecordId> ids = new ArrayList<>();
+        Set<String> previousOwners = new HashSet<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())) {
+                ids.add(message.getId());
+                previousOwners.add(message.getConsumerName());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        streams.claim(streamKey, group, consumerName, Duration.ZERO, ids.toArray(RecordId[]::new));
+        // Consumer cũ không còn entry nào ở partition này (đọc lại sẽ được tạo lại tự động)
+        previousOwners.forEach(owner -> streams.deleteConsumer(streamKey, Consumer.from(group, owner)));
+        claimedCounter.increment(ids.size());
+        log.info("Claimed {} pending events of {} from {}", ids.size(), streamKey, previousOwners);
+    }
+
+    /**
+     * Xử lý partition tới khi hết entry, gặp lỗi, hoặc hết lease-ms / 2
+     * Sau mỗi batch gia hạn heartbeat + lease; mất lease → dừng ngay: chủ mới XCLAIM các entry chưa ACK,
+     * xử lý tiếp ở đây sẽ trùng event và sai thứ tự theo key
+     */
+    private void drain(String stream, String streamKey, Handler handler) {
+        long deadline = System.currentTimeMillis() + leaseMs / 2;
+        while (processBatch(stream, streamKey, handler) == batchSize) {
+            if (!keepAlive(streamKey) || System.currentTimeMillis() >= deadline) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Đọc và xử lý một batch: entry chưa ACK của chính consumer trước, sau đó entry mới
+     *
+     * @return số entry đọc được nếu cả batch thành công, 0 nếu dừng giữa chừng
+     */
+    private int processBatch(String stream, String streamKey, Handler handler) {
+        StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        Consumer consumer = Consumer.from(group, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+
+        List<MapRecord<String, Object, Object>> records =
+                streams.read(consumer, options, StreamOffset.create(streamKey, ReadOffset.from("0")));
+        if (records == null || records.isEmpty()) {
+            records = streams.read(consumer, options, StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+        }
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        List<RecordId> acknowledged = new ArrayList<>(records.size());
+        boolean completed = true;
+        for (MapRecord<String, Object, Object> record : records) {
+            Object payload = record.getValue().get(EventPublisher.PAYLOAD_FIELD);
+            if (payload == null) {
+                // Entry đã bị XTRIM khỏi stream
+                acknowledged.add(record.getId());
+                continue;
+            }
+            String attemptKey = streamKey + "/" + record.getId().getValue();
+            try {
+                handler.handle(payload.toString());
+                attempts.remove(attemptKey);
+                acknowledged.add(record.getId());
+                processedCounter.increment();
+            } catch (Exception e) {
+                int attempt = attempts.merge(attemptKey, 1, Integer::sum);
+                if (attempt >= maxAttempts) {
+                    deadLetter(stream, streamKey, record, payload.toString(), e);
+                    attempts.remove(attemptKey);
+                    acknowledged.add(record.getId());
+                    continue;
+                }
+                // Dừng partition: event sau của cùng key không được vượt event lỗi
+                retriedCounter.increment();
+                log.warn("Event {} of {} failed (attempt {}/{}): {}",
+                        record.getId(), streamKey, attempt, maxAttempts, e.getMessage());
+                completed = false;
+                break;
+            }
+        }
+        if (!acknowledged.isEmpty()) {
+            streams.acknowledge(streamKey, group, acknowledged.toArray(RecordId[]::new));
+        }
+        return completed ? records.size() : 0;
+    }
+
+    private void deadLetter(String stream, String streamKey, MapRecord<String, Object, Object> record,
+                            String payload, Exception error) {
+        redisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+                EventPublisher.PAYLOAD_FIELD, payload,
+                "source", streamKey + "/" + record.getId().getValue(),
+                "error", String.valueOf(error.getMessage())
+        )).withStreamKey(stream + ":dlq"));
+        deadLetteredCounter.increment();
+        log.error("❌ Event {} of {} moved to {}:dlq after {} attempts", record.getId(), streamKey, stream, maxAttempts);
+    }
+
+    private String membersKey() {
+        return "stream.members:" + group;
+    }
+
+    private String leaseKey(String streamKey) {
+        return "stream.lease:" + group + ":" + streamKey;
+    }
+}
@@ -2,6 +2,7 @@ package com.programming.orderservice.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.programming.eventstream.KeyOrderedExecutor;
 import com.programming.orderservice.listener.DeliveryEventListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -81,6 +82,16 @@ public class RedisConfig {
         return container;
     }
 
+    // ⭐️ Executor xử lý delivery.events ngoài thread của listener container, tuần tự theo orderId
+    // messaging.virtual-threads=false → pool platform thread messaging.platform-threads
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor deliveryEventExecutor(
+            @Value("${messaging.virtual-threads:true}") boolean virtualThreads,
+            @Value("${messaging.platform-threads:16}") int platformThreads) {
+        log.info("🔧 Delivery events run on {} threads", virtualThreads ? "virtual" : "platform");
+        return new KeyOrderedExecutor("delivery-event", virtualThreads, platformThreads);
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -188,6 +188,14 @@ public class OrderController {
         return orderService.shipOrderWithDrone(orderId, droneId);
     }
 
+    // ⭐️ Gửi lệnh xuất phát, để drone-service tự chọn drone
+    @PostMapping("/{orderId}/auto-dispatch")
+    public ResponseEntity<ApiResponseDto<?>> autoDispatchOrder(
+            @PathVariable Long orderId
+    ) throws ResourceNotFoundException, ServiceLogicException {
+        return orderService.requestAutoDispatch(orderId);
+    }
+
     @PostMapping("/{orderId}/confirm-delivery")
     public ResponseEntity<ApiResponseDto<?>> confirmDelivery(
             @PathVariable Long orderId
@@ -19,6 +19,12 @@ public interface DroneService {
     @PostMapping("/api/v1/drones/internal/assign-order")
     ResponseEntity<ApiResponseDto<Object>> assignOrder(@RequestBody Map<String, Object> request);
 
+    /**
+     * Đưa đơn vào hàng chờ dispatch tự động - drone-service tự chọn drone
+     */
+    @PostMapping("/api/v1/drones/internal/dispatch/requests")
+    ResponseEntity<ApiResponseDto<Void>> requestDispatch(@RequestBody Map<String, Object> request);
+
     /**
      * Hoàn thành giao hàng - Drone tự động quay về IDLE
      */
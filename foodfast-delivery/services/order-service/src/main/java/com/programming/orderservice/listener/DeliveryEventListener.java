@@ -1,9 +1,13 @@
 package com.programming.orderservice.listener;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.programming.eventstream.KeyOrderedExecutor;
+import com.programming.eventstream.StreamEventConsumer;
 import com.programming.orderservice.enums.EOrderStatus;
 import com.programming.orderservice.model.Order;
 import com.programming.orderservice.repositories.OrderRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
@@ -23,52 +27,92 @@ public class DeliveryEventListener implements MessageListener {
 
     private final OrderRepository orderRepository;
     private final ObjectMapper objectMapper;
+    private final KeyOrderedExecutor deliveryEventExecutor;
+    private final StreamEventConsumer streamEventConsumer;
+
+    // ⭐️ Nhận delivery.events qua Redis Stream (bền, consumer group); pub/sub vẫn được lắng nghe ở RedisConfig
+    @PostConstruct
+    public void subscribeStream() {
+        streamEventConsumer.subscribe("delivery.events", this::handle);
+    }
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String messageBody = new String(message.getBody());
-            log.info("📡 Received delivery event: {}", messageBody);
+            Map<String, Object> eventData = parse(new String(message.getBody()));
 
-            // Parse JSON message
-            Map<String, Object> eventData = objectMapper.readValue(messageBody, Map.class);
-            String event = (String) eventData.get("event");
+            // ⭐️ Cập nhật DB ngoài thread của listener container; event cùng order chạy lần lượt
+            Object orderId = eventData.get("orderId");
+            deliveryEventExecutor.execute(orderId != null ? orderId.toString() : "", () -> handleEvent(eventData));
+        } catch (Exception e) {
+            log.error("❌ Error processing delivery event: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Event từ Redis Stream: xử lý ngay trên thread của consumer,
+     * lỗi được ném ra để entry không bị ACK và được đọc lại
+     */
+    public void handle(String messageBody) throws JsonProcessingException {
+        handleEvent(parse(messageBody));
+    }
 
-            // ⭐️ Xử lý event DRONE_ARRIVED
-            if ("DRONE_ARRIVED".equals(event)) {
-                Long orderId = ((Number) eventData.get("orderId")).longValue();
-                log.info("🚁 Drone arrived at destination for order: {}", orderId);
+    private Map<String, Object> parse(String messageBody) throws JsonProcessingException {
+        log.info("📡 Received delivery event: {}", messageBody);
+        return objectMapper.readValue(messageBody, Map.class);
+    }
 
-                // Cập nhật order status thành DELIVERED
-                Order order = orderRepository.findById(orderId).orElse(null);
-                if (order != null) {
-                    order.setOrderStatus(EOrderStatus.DELIVERED);
-                    orderRepository.save(order);
-                    log.info("✅ Order {} status updated to DELIVERED", orderId);
-                } else {
-                    log.warn("⚠️ Order {} not found in database", orderId);
-                }
+    private void handleEvent(Map<String, Object> eventData) {
+        String event = (String) eventData.get("event");
+
+        // ⭐️ Xử lý event DRONE_ASSIGNED (dispatch tự động bên drone-service)
+        if ("DRONE_ASSIGNED".equals(event)) {
+            Long orderId = ((Number) eventData.get("orderId")).longValue();
+            Long droneId = ((Number) eventData.get("droneId")).longValue();
+            log.info("🚁 Drone {} auto-assigned to order {}", droneId, orderId);
+
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order != null) {
+                order.setDroneId(droneId);
+                order.setOrderStatus(EOrderStatus.SHIPPED);
+                orderRepository.save(order);
+                log.info("✅ Order {} status updated to SHIPPED", orderId);
+            } else {
+                log.warn("⚠️ Order {} not found in database", orderId);
             }
-            
-            // ⭐️ Xử lý event cũ (backward compatibility)
-            String eventType = (String) eventData.get("eventType");
-            if ("DeliveryCompleted".equals(eventType)) {
-                Long orderId = ((Number) eventData.get("orderId")).longValue();
-                log.info("🚁 Delivery completed for order: {}", orderId);
+        }
+
+        // ⭐️ Xử lý event DRONE_ARRIVED
+        if ("DRONE_ARRIVED".equals(event)) {
+            Long orderId = ((Number) eventData.get("orderId")).longValue();
+            log.info("🚁 Drone arrived at destination for order: {}", orderId);
 
-                // Cập nhật order status
-                Order order = orderRepository.findById(orderId).orElse(null);
-                if (order != null) {
-                    order.setOrderStatus(EOrderStatus.DELIVERED);
-                    orderRepository.save(order);
-                    log.info("✅ Order {} status updated to DELIVERED", orderId);
-                } else {
-                    log.warn("⚠️ Order {} not found in database", orderId);
-                }
+            // Cập nhật order status thành DELIVERED
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order != null) {
+                order.setOrderStatus(EOrderStatus.DELIVERED);
+                orderRepository.save(order);
+                log.info("✅ Order {} status updated to DELIVERED", orderId);
+            } else {
+                log.warn("⚠️ Order {} not found in database", orderId);
             }
+        }
+        
+        // ⭐️ Xử lý event cũ (backward compatibility)
+        String eventType = (String) eventData.get("eventType");
+        if ("DeliveryCompleted".equals(eventType)) {
+            Long orderId = ((Number) eventData.get("orderId")).longValue();
+            log.info("🚁 Delivery completed for order: {}", orderId);
 
-        } catch (Exception e) {
-            log.error("❌ Error processing delivery event: {}", e.getMessage(), e);
+            // Cập nhật order status
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order != null) {
+                order.setOrderStatus(EOrderStatus.DELIVERED);
+                orderRepository.save(order);
+                log.info("✅ Order {} status updated to DELIVERED", orderId);
+            } else {
+                log.warn("⚠️ Order {} not found in database", orderId);
+            }
         }
     }
 }
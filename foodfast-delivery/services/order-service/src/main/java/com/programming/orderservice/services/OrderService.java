@@ -39,6 +39,10 @@ public interface OrderService {
     ResponseEntity<ApiResponseDto<?>> shipOrderWithDrone(Long orderId, Long droneId)
             throws ServiceLogicException, ResourceNotFoundException;
 
+    // ⭐️ Giao cho drone-service tự chọn drone (dispatch tự động)
+    ResponseEntity<ApiResponseDto<?>> requestAutoDispatch(Long orderId)
+            throws ServiceLogicException, ResourceNotFoundException;
+
     // ⭐️ Xác nhận giao hàng thành công
     ResponseEntity<ApiResponseDto<?>> confirmDelivery(Long orderId)
             throws ServiceLogicException, ResourceNotFoundException;
@@ -19,6 +19,7 @@ import com.programming.orderservice.feign.DroneServiceClient; // ⭐️ Feign Cl
 import com.programming.orderservice.model.Order;
 import com.programming.orderservice.model.OrderItems;
 import com.programming.orderservice.repositories.OrderRepository;
+import com.programming.eventstream.EventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -26,6 +27,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -41,6 +43,7 @@ public class OrderServiceImpl implements OrderService {
     private final DroneService droneService; // ⭐️ Inject Feign Client
     // ⭐️ BẮT ĐẦU SỬA ĐỔI: Thêm 3 dòng
     private final RedisTemplate<String, String> redisTemplate;
+    private final EventPublisher eventPublisher; // ⭐️ drone.events qua Redis Stream
     private final ObjectMapper objectMapper;
     public static final String ORDER_CONFIRMED_CHANNEL = "order.confirmed";
     // ⭐️ KẾT THÚC SỬA ĐỔI
@@ -516,6 +519,46 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    // ⭐️ Dispatch tự động: drone-service chọn drone, order chuyển SHIPPED khi nhận event DRONE_ASSIGNED
+    @Override
+    public ResponseEntity<ApiResponseDto<?>> requestAutoDispatch(Long orderId)
+            throws ServiceLogicException, ResourceNotFoundException {
+        
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        
+        EOrderStatus currentStatus = order.getOrderStatus();
+        if (currentStatus != EOrderStatus.CONFIRMED && currentStatus != EOrderStatus.PROCESSING) {
+            throw new ServiceLogicException("Order must be CONFIRMED or PROCESSING before shipping");
+        }
+        
+        if (order.getDestinationLat() == null || order.getDestinationLng() == null) {
+            throw new ServiceLogicException("Order missing GPS coordinates");
+        }
+        
+        try {
+            Map<String, Object> dispatchRequest = new HashMap<>();
+            dispatchRequest.put("orderId", orderId);
+            dispatchRequest.put("restaurantId", order.getRestaurantId());
+            dispatchRequest.put("destinationLat", order.getDestinationLat());
+            dispatchRequest.put("destinationLng", order.getDestinationLng());
+            dispatchRequest.put("destinationAddress", order.getAddressShip());
+            
+            log.info("📡 Queueing order {} for auto dispatch", orderId);
+            droneService.requestDispatch(dispatchRequest);
+            
+            return ResponseEntity.ok(ApiResponseDto.builder()
+                    .isSuccess(true)
+                    .message("Order queued for automatic drone dispatch")
+                    .data(order)
+                    .build());
+            
+        } catch (Exception e) {
+            log.error("Error queueing order {} for dispatch: {}", orderId, e.getMessage());
+            throw new ServiceLogicException("Failed to request dispatch: " + e.getMessage());
+        }
+    }
+
     // ⭐️ Xác nhận giao hàng thành công
     @Override
     public ResponseEntity<ApiResponseDto<?>> confirmDelivery(Long orderId)
@@ -540,7 +583,7 @@ public class OrderServiceImpl implements OrderService {
                 "droneId", order.getDroneId(),
                 "event", "DELIVERY_CONFIRMED"
             );
-            redisTemplate.convertAndSend("drone.events", objectMapper.writeValueAsString(eventData));
+            eventPublisher.publish("drone.events", order.getDroneId(), objectMapper.writeValueAsString(eventData));
 
             log.info("✅ Order {} delivery confirmed, status updated to COMPLETED", orderId);
 